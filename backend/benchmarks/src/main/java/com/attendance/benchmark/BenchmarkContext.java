@@ -0,0 +1,93 @@
+package com.attendance.benchmark;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.attendance.AttendanceApplication;
+
+/**
+ * ベンチマーク用にアプリケーションをH2(MySQL互換モード)上で起動する
+ * Webサーバーは起動せず、サービスとリポジトリだけを使う
+ */
+public final class BenchmarkContext {
+
+  /** 初期データの基準日 */
+  public static final LocalDate BASE_DATE = LocalDate.of(2025, 1, 1);
+
+  private static final int INSERT_BATCH_SIZE = 1000;
+
+  private BenchmarkContext() {
+  }
+
+  /**
+   * アプリケーションコンテキストをh2プロファイルで起動する
+   * 同一JVM内で複数起動しても干渉しないよう、DB名は呼び出し側で分ける
+   */
+  public static ConfigurableApplicationContext start(String databaseName) {
+    return new SpringApplicationBuilder(AttendanceApplication.class)
+        .web(WebApplicationType.NONE)
+        .logStartupInfo(false)
+        .profiles("h2")
+        .run(
+            "--spring.datasource.url=jdbc:h2:mem:" + databaseName
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+            "--spring.jpa.show-sql=false",
+            "--logging.level.root=WARN",
+            "--logging.level.com.attendance=WARN");
+  }
+
+  /**
+   * 勤怠記録を含まないユーザーを登録する
+   */
+  public static void seedUsers(JdbcTemplate jdbcTemplate, int users) {
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO users (user_id, username, email, role) VALUES (?, ?, ?, 'USER')",
+        LongStream.rangeClosed(1, users).boxed().toList(),
+        INSERT_BATCH_SIZE,
+        (PreparedStatement ps, Long userId) -> {
+          ps.setLong(1, userId);
+          ps.setString(2, "user" + userId);
+          ps.setString(3, "user" + userId + "@example.com");
+        });
+  }
+
+  /**
+   * 各ユーザーに基準日から連続した日数分の勤務記録を登録する
+   */
+  public static void seedRecords(JdbcTemplate jdbcTemplate, int users, int days) {
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO attendance_records "
+            + "(user_id, check_in_time, check_out_time, record_date, work_date, attendance_type, version) "
+            + "VALUES (?, ?, ?, ?, ?, 'WORK', 0)",
+        IntStream.range(0, users * days).boxed().toList(),
+        INSERT_BATCH_SIZE,
+        (PreparedStatement ps, Integer index) -> {
+          long userId = index / days + 1;
+          LocalDate workDate = BASE_DATE.plusDays(index % days);
+          LocalDateTime checkIn = workDate.atTime(9, (int) (userId % 30));
+          ps.setLong(1, userId);
+          ps.setTimestamp(2, Timestamp.valueOf(checkIn));
+          ps.setTimestamp(3, Timestamp.valueOf(checkIn.plusHours(9)));
+          ps.setTimestamp(4, Timestamp.valueOf(checkIn));
+          ps.setObject(5, workDate);
+        });
+  }
+
+  /**
+   * 勤怠記録と集計を空にする(ユーザーは残す)
+   */
+  public static void clearRecords(JdbcTemplate jdbcTemplate) {
+    jdbcTemplate.update("DELETE FROM attendance_records");
+    jdbcTemplate.update("DELETE FROM attendance_daily_summary");
+    jdbcTemplate.update("DELETE FROM attendance_monthly_summary");
+  }
+}
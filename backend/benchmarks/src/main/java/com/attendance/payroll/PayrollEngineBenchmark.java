@@ -0,0 +1,89 @@
+package com.attendance.payroll;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.attendance.dto.AttendanceResponse;
+import com.attendance.dto.PayrollResult;
+
+/**
+ * PayrollEngine の計算時間(DB読み出しを除く)
+ * 50,000ユーザー × 1か月(22営業日)の勤怠記録を配列に詰めて計算する
+ * parallelism=1 は逐次、0 はCPU数で並列に計算する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PayrollEngineBenchmark {
+
+  private static final int WORK_DAYS = 22;
+  private static final LocalDate BASE_DATE = LocalDate.of(2025, 1, 6);
+
+  @Param({ "50000" })
+  private int users;
+
+  @Param({ "1", "0" })
+  private int parallelism;
+
+  private PayrollEngine payrollEngine;
+  private AttendanceResponse[] records;
+
+  @Setup
+  public void setUp() {
+    PayrollRules rules = new PayrollRules();
+    rules.setParallelism(parallelism);
+    payrollEngine = new PayrollEngine(rules);
+
+    // ストリームと同じくユーザー順・日付順に並べる
+    records = new AttendanceResponse[users * WORK_DAYS];
+    int index = 0;
+    for (int u = 0; u < users; u++) {
+      long userId = u + 1;
+      for (int d = 0; d < WORK_DAYS; d++) {
+        LocalDateTime checkIn = BASE_DATE.plusDays(d).atTime(8, 30).plusMinutes((userId * 7 + d * 13) % 60);
+        if ((userId + d) % 25 == 0) {
+          records[index++] = new AttendanceResponse((long) index, userId, "user" + userId,
+              null, null, checkIn, "ANNUAL_LEAVE", "ANNUAL_LEAVE");
+        } else {
+          // 一部の日は深夜まで残業する
+          LocalDateTime checkOut = checkIn.plusHours((userId + d) % 10 == 0 ? 15 : 9);
+          records[index++] = new AttendanceResponse((long) index, userId, "user" + userId,
+              checkIn, checkOut, checkIn, "WORK", "COMPLETED");
+        }
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    payrollEngine.shutdown();
+  }
+
+  @Benchmark
+  public List<PayrollResult> fillAndCalculate() {
+    PayrollDataset dataset = payrollEngine.newDataset();
+    for (AttendanceResponse record : records) {
+      dataset.add(record);
+    }
+    return payrollEngine.calculate(dataset, Map.of());
+  }
+}
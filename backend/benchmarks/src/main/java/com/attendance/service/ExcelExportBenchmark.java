@@ -0,0 +1,102 @@
+package com.attendance.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.attendance.dto.AttendanceResponse;
+import com.attendance.payroll.PayrollEngine;
+import com.attendance.payroll.PayrollRules;
+
+/**
+ * ExcelExportService のワークブック生成コスト(DB読み出しを除く)
+ * 行は合成データを逐次生成し、出力は破棄する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ExcelExportBenchmark {
+
+  @Param({ "1000", "100000", "1000000" })
+  private int rows;
+
+  private PayrollEngine payrollEngine;
+  private ExcelExportService excelExportService;
+
+  @Setup
+  public void setUp() {
+    // writeWorkbook はリポジトリ・メトリクス・PayrollServiceを使わない
+    payrollEngine = new PayrollEngine(new PayrollRules());
+    excelExportService = new ExcelExportService(null, null, payrollEngine, null);
+  }
+
+  @TearDown
+  public void tearDown() {
+    payrollEngine.shutdown();
+  }
+
+  @Benchmark
+  public void exportToExcel() throws IOException {
+    excelExportService.writeWorkbook(new SyntheticRecords(rows), Map.of(), OutputStream.nullOutputStream());
+  }
+
+  /**
+   * 100ユーザー分の勤怠記録をエクスポートの読み出し順(ユーザーID・日付順)に生成する
+   */
+  private static final class SyntheticRecords implements Iterator<AttendanceResponse> {
+
+    private static final int USERS = 100;
+    private static final LocalDate BASE_DATE = LocalDate.of(2025, 1, 1);
+
+    private final int rows;
+    private final int rowsPerUser;
+    private int index;
+
+    SyntheticRecords(int rows) {
+      this.rows = rows;
+      this.rowsPerUser = (rows + USERS - 1) / USERS;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < rows;
+    }
+
+    @Override
+    public AttendanceResponse next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      int i = index++;
+      long userId = i / rowsPerUser + 1;
+      LocalDateTime checkIn = BASE_DATE.plusDays(i % rowsPerUser).atTime(9, (int) (userId % 30));
+      if (i % 20 == 0) {
+        return new AttendanceResponse((long) i + 1, userId, "user" + userId,
+            null, null, checkIn, "ANNUAL_LEAVE", "ANNUAL_LEAVE");
+      }
+      return new AttendanceResponse((long) i + 1, userId, "user" + userId,
+          checkIn, checkIn.plusHours(9), checkIn, "WORK", "COMPLETED");
+    }
+  }
+}
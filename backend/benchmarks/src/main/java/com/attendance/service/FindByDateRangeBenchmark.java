@@ -0,0 +1,88 @@
+package com.attendance.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.attendance.benchmark.BenchmarkContext;
+import com.attendance.dto.AttendanceResponse;
+import com.attendance.repository.AttendanceRecordRepository;
+
+/**
+ * 期間指定取得のコスト(H2 MySQL互換モード)
+ * エンティティを読み込んで変換する方式とDTOを直接射影する方式を比較する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindByDateRangeBenchmark {
+
+  private static final int USERS = 200;
+  private static final int DAYS = 60;
+
+  // 1週間分(USERS * 7 行)を取得する
+  private static final LocalDateTime START = BenchmarkContext.BASE_DATE.plusDays(14).atStartOfDay();
+  private static final LocalDateTime END = START.plusDays(7);
+
+  private ConfigurableApplicationContext context;
+  private AttendanceService attendanceService;
+  private AttendanceRecordRepository attendanceRecordRepository;
+  private TransactionTemplate readOnlyTransaction;
+
+  @Setup(Level.Trial)
+  public void startContext() {
+    context = BenchmarkContext.start("find_by_date_range");
+    attendanceService = context.getBean(AttendanceService.class);
+    attendanceRecordRepository = context.getBean(AttendanceRecordRepository.class);
+    readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    readOnlyTransaction.setReadOnly(true);
+
+    JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+    BenchmarkContext.seedUsers(jdbcTemplate, USERS);
+    BenchmarkContext.seedRecords(jdbcTemplate, USERS, DAYS);
+  }
+
+  @TearDown(Level.Trial)
+  public void closeContext() {
+    context.close();
+  }
+
+  /**
+   * エンティティを読み込み、ユーザーを遅延ロードしながら変換する
+   */
+  @Benchmark
+  public List<AttendanceResponse> findByDateRangeEntities() {
+    return readOnlyTransaction.execute(status -> attendanceRecordRepository.findByDateRange(START, END)
+        .stream()
+        .map(AttendanceService::mapToResponse)
+        .toList());
+  }
+
+  /**
+   * 1回のJOINクエリでDTOを直接射影する(サービスの現行経路)
+   */
+  @Benchmark
+  public List<AttendanceResponse> findByDateRangeProjection() {
+    return attendanceService.getAttendanceRecordsByDateRange(START, END);
+  }
+}
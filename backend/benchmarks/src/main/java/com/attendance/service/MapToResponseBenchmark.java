@@ -0,0 +1,78 @@
+package com.attendance.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.attendance.model.AttendanceRecord;
+import com.attendance.model.User;
+
+/**
+ * AttendanceService.mapToResponse の1件あたりの変換コスト
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapToResponseBenchmark {
+
+  private static final int RECORDS = 1024;
+
+  private AttendanceRecord[] records;
+
+  @Setup
+  public void setUp() {
+    records = new AttendanceRecord[RECORDS];
+    for (int i = 0; i < RECORDS; i++) {
+      User user = new User();
+      user.setUserId((long) (i % 100) + 1);
+      user.setUsername("user" + user.getUserId());
+
+      LocalDate workDate = LocalDate.of(2025, 1, 1).plusDays(i / 100);
+      LocalDateTime checkIn = workDate.atTime(9, 0);
+
+      AttendanceRecord record = new AttendanceRecord();
+      record.setRecordId((long) i + 1);
+      record.setUser(user);
+      record.setWorkDate(workDate);
+      record.setRecordDate(checkIn);
+      // 勤務完了・勤務中・年休を混在させる
+      switch (i % 3) {
+        case 0 -> {
+          record.setAttendanceType("WORK");
+          record.setCheckInTime(checkIn);
+          record.setCheckOutTime(checkIn.plusHours(9));
+        }
+        case 1 -> {
+          record.setAttendanceType("WORK");
+          record.setCheckInTime(checkIn);
+        }
+        default -> record.setAttendanceType("ANNUAL_LEAVE");
+      }
+      records[i] = record;
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void mapToResponse(Blackhole blackhole) {
+    for (AttendanceRecord record : records) {
+      blackhole.consume(AttendanceService.mapToResponse(record));
+    }
+  }
+}
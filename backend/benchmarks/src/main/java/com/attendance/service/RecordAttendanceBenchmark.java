@@ -0,0 +1,70 @@
+package com.attendance.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.attendance.benchmark.BenchmarkContext;
+import com.attendance.dto.AttendanceRequest;
+
+/**
+ * AttendanceService.recordAttendance の打刻1件あたりのコスト(H2 MySQL互換モード)
+ * 1回の呼び出しで1ユーザーの出勤と退勤を記録する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordAttendanceBenchmark {
+
+  // 1イテレーション内で同じユーザーを2周しない程度の人数
+  private static final int USERS = 50_000;
+
+  private ConfigurableApplicationContext context;
+  private AttendanceService attendanceService;
+  private JdbcTemplate jdbcTemplate;
+  private int nextUser;
+
+  @Setup(Level.Trial)
+  public void startContext() {
+    context = BenchmarkContext.start("record_attendance");
+    attendanceService = context.getBean(AttendanceService.class);
+    jdbcTemplate = context.getBean(JdbcTemplate.class);
+    BenchmarkContext.seedUsers(jdbcTemplate, USERS);
+  }
+
+  @Setup(Level.Iteration)
+  public void resetRecords() {
+    BenchmarkContext.clearRecords(jdbcTemplate);
+    nextUser = 0;
+  }
+
+  @TearDown(Level.Trial)
+  public void closeContext() {
+    context.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(2)
+  public AttendanceResult checkInAndCheckOut() {
+    long userId = nextUser++ % USERS + 1;
+    attendanceService.recordAttendance(new AttendanceRequest(userId, "CHECK_IN", null));
+    return attendanceService.recordAttendance(new AttendanceRequest(userId, "CHECK_OUT", null));
+  }
+}
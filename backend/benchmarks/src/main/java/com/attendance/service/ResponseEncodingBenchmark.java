@@ -0,0 +1,86 @@
+package com.attendance.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.attendance.config.BinaryEncodingConfig;
+import com.attendance.dto.AttendanceResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 期間指定取得の応答(勤怠記録のリスト)のシリアライズ時間とサイズ
+ * JSONは現行の表現(ISO形式の日時・文字列の区分)、Smile/CBORは CompactEncodingModule の表現
+ * サイズは副次メトリクス payloadBytes(1回あたりのバイト数)として出力する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+
+  private static final int RECORDS = 1000;
+
+  @Param({ "json", "smile", "cbor" })
+  private String format;
+
+  private ObjectMapper objectMapper;
+  private List<AttendanceResponse> records;
+
+  @Setup
+  public void setUp() {
+    objectMapper = switch (format) {
+      case "smile" -> BinaryEncodingConfig.smileObjectMapper();
+      case "cbor" -> BinaryEncodingConfig.cborObjectMapper();
+      default -> Jackson2ObjectMapperBuilder.json().build();
+    };
+
+    records = new ArrayList<>(RECORDS);
+    for (int i = 0; i < RECORDS; i++) {
+      long userId = i % 100 + 1;
+      LocalDateTime checkIn = LocalDate.of(2025, 1, 1).plusDays(i / 100).atTime(9, (int) (userId % 30));
+      if (i % 20 == 0) {
+        records.add(new AttendanceResponse((long) i + 1, userId, "user" + userId,
+            null, null, checkIn, "ANNUAL_LEAVE", "ANNUAL_LEAVE"));
+      } else {
+        records.add(new AttendanceResponse((long) i + 1, userId, "user" + userId,
+            checkIn, checkIn.plusHours(9), checkIn, "WORK", "COMPLETED"));
+      }
+    }
+  }
+
+  @Benchmark
+  public byte[] serialize(Payload payload) throws JsonProcessingException {
+    byte[] bytes = objectMapper.writeValueAsBytes(records);
+    payload.payloadBytes = bytes.length;
+    return bytes;
+  }
+
+  /**
+   * 出力サイズ(集計されず最後の値がそのまま出力される)
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Payload {
+    public long payloadBytes;
+  }
+}
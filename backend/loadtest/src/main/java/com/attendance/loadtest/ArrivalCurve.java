@@ -0,0 +1,75 @@
+package com.attendance.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 到着率の曲線(区分線形)
+ * "0:0.1,0.25:1,0.5:1,1:0.1" のように、試験時間に対する位置(0〜1)と相対的な到着率を並べて指定する
+ */
+final class ArrivalCurve {
+
+  private final double[] positions;
+  private final double[] rates;
+  // 各点までの面積(累積の到着数に比例)
+  private final double[] areas;
+
+  private ArrivalCurve(double[] positions, double[] rates) {
+    this.positions = positions;
+    this.rates = rates;
+    this.areas = new double[positions.length];
+    for (int i = 1; i < positions.length; i++) {
+      areas[i] = areas[i - 1] + (rates[i - 1] + rates[i]) / 2 * (positions[i] - positions[i - 1]);
+    }
+    if (areas[areas.length - 1] <= 0) {
+      throw new IllegalArgumentException("到着率がすべて0です");
+    }
+  }
+
+  static ArrivalCurve parse(String spec) {
+    List<double[]> points = new ArrayList<>();
+    for (String point : spec.split(",")) {
+      String[] parts = point.trim().split(":");
+      points.add(new double[] { Double.parseDouble(parts[0]), Double.parseDouble(parts[1]) });
+    }
+    if (points.size() < 2 || points.get(0)[0] != 0.0 || points.get(points.size() - 1)[0] != 1.0) {
+      throw new IllegalArgumentException("到着曲線は位置0から1までを指定してください: " + spec);
+    }
+
+    double[] positions = new double[points.size()];
+    double[] rates = new double[points.size()];
+    for (int i = 0; i < points.size(); i++) {
+      positions[i] = points.get(i)[0];
+      rates[i] = points.get(i)[1];
+      if (rates[i] < 0 || (i > 0 && positions[i] <= positions[i - 1])) {
+        throw new IllegalArgumentException("到着曲線の位置は昇順、到着率は0以上で指定してください: " + spec);
+      }
+    }
+    return new ArrivalCurve(positions, rates);
+  }
+
+  /**
+   * 累積到着数の割合(0〜1)に対応する時刻の位置(0〜1)
+   */
+  double positionAt(double fraction) {
+    double target = fraction * areas[areas.length - 1];
+    int i = 1;
+    while (i < areas.length - 1 && areas[i] < target) {
+      i++;
+    }
+
+    double width = positions[i] - positions[i - 1];
+    double remaining = target - areas[i - 1];
+    double rate = rates[i - 1];
+    double slope = (rates[i] - rates[i - 1]) / width;
+
+    // 区間内の面積 rate*t + slope*t^2/2 = remaining を t について解く
+    double t;
+    if (Math.abs(slope) < 1e-12) {
+      t = rate == 0 ? 0 : remaining / rate;
+    } else {
+      t = (-rate + Math.sqrt(Math.max(0, rate * rate + 2 * slope * remaining))) / slope;
+    }
+    return Math.min(1.0, positions[i - 1] + Math.max(0, Math.min(width, t)));
+  }
+}
@@ -0,0 +1,184 @@
+package com.attendance.loadtest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 合成データの投入
+ * 平日ごとに出退勤・年休・欠勤・退勤打刻漏れを一定の割合で発生させ、JDBCバッチで書き込む
+ * MySQLでは接続URLに rewriteBatchedStatements=true を付けると複数行INSERTにまとめられる
+ */
+final class DataGenerator {
+
+  private static final String INSERT_USER_SQL =
+      "INSERT INTO users (username, email, role) VALUES (?, ?, 'USER')";
+
+  private static final String SELECT_USER_IDS_SQL =
+      "SELECT user_id FROM users WHERE username LIKE ? ORDER BY user_id";
+
+  private static final String INSERT_RECORD_SQL = "INSERT INTO attendance_records "
+      + "(user_id, check_in_time, check_out_time, record_date, work_date, attendance_type, version) "
+      + "VALUES (?, ?, ?, ?, ?, ?, 0)";
+
+  private static final int PROGRESS_INTERVAL = 100_000;
+
+  private final String jdbcUrl;
+  private final String dbUser;
+  private final String dbPassword;
+  private final int users;
+  private final int months;
+  private final YearMonth endMonth;
+  private final int batchSize;
+  private final double leaveRate;
+  private final double absenceRate;
+  private final double missingCheckOutRate;
+  private final String userPrefix;
+  private final Random random;
+
+  DataGenerator(Options options) {
+    this.jdbcUrl = options.get("jdbc-url",
+        "jdbc:h2:file:./data/attendance;MODE=MySQL;DATABASE_TO_LOWER=TRUE;AUTO_SERVER=TRUE");
+    this.dbUser = options.get("db-user", "sa");
+    this.dbPassword = options.get("db-password", "");
+    this.users = options.getInt("users", 1000);
+    this.months = options.getInt("months", 3);
+    this.endMonth = options.has("end-month")
+        ? YearMonth.parse(options.get("end-month", null))
+        : YearMonth.now().minusMonths(1);
+    this.batchSize = options.getInt("batch-size", 1000);
+    this.leaveRate = options.getDouble("leave-rate", 0.05);
+    this.absenceRate = options.getDouble("absence-rate", 0.03);
+    this.missingCheckOutRate = options.getDouble("missing-checkout-rate", 0.02);
+    this.userPrefix = options.get("user-prefix", "load-user-");
+    this.random = new Random(options.getLong("seed", 42));
+  }
+
+  void run() throws SQLException {
+    try (Connection connection = DriverManager.getConnection(jdbcUrl, dbUser, dbPassword)) {
+      connection.setAutoCommit(false);
+
+      long startedAt = System.nanoTime();
+      insertUsers(connection);
+      List<Long> userIds = findUserIds(connection);
+      long rows = insertRecords(connection, userIds);
+      double seconds = (System.nanoTime() - startedAt) / 1e9;
+
+      System.out.printf("ユーザー %d人、勤怠記録 %d件を投入しました (%.1f秒, %.0f件/秒)%n",
+          userIds.size(), rows, seconds, rows / seconds);
+      System.out.printf("ユーザーID: %d 〜 %d%n", userIds.get(0), userIds.get(userIds.size() - 1));
+      System.out.println("集計テーブルは POST /api/attendance/summary/rebuild で作り直してください");
+    }
+  }
+
+  private void insertUsers(Connection connection) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(INSERT_USER_SQL)) {
+      for (int i = 1; i <= users; i++) {
+        statement.setString(1, userPrefix + i);
+        statement.setString(2, userPrefix + i + "@example.com");
+        statement.addBatch();
+        if (i % batchSize == 0) {
+          statement.executeBatch();
+          connection.commit();
+        }
+      }
+      statement.executeBatch();
+      connection.commit();
+    }
+  }
+
+  private List<Long> findUserIds(Connection connection) throws SQLException {
+    List<Long> userIds = new ArrayList<>(users);
+    try (PreparedStatement statement = connection.prepareStatement(SELECT_USER_IDS_SQL)) {
+      statement.setString(1, userPrefix + "%");
+      try (ResultSet resultSet = statement.executeQuery()) {
+        while (resultSet.next()) {
+          userIds.add(resultSet.getLong(1));
+        }
+      }
+    }
+    return userIds;
+  }
+
+  private long insertRecords(Connection connection, List<Long> userIds) throws SQLException {
+    LocalDate firstDate = endMonth.minusMonths(months - 1L).atDay(1);
+    LocalDate lastDate = endMonth.atEndOfMonth();
+    long rows = 0;
+
+    try (PreparedStatement statement = connection.prepareStatement(INSERT_RECORD_SQL)) {
+      for (Long userId : userIds) {
+        for (LocalDate date = firstDate; !date.isAfter(lastDate); date = date.plusDays(1)) {
+          if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            continue;
+          }
+          double dice = random.nextDouble();
+          if (dice < absenceRate) {
+            continue;
+          }
+          if (dice < absenceRate + leaveRate) {
+            setLeave(statement, userId, date);
+          } else {
+            setWork(statement, userId, date);
+          }
+          statement.addBatch();
+          rows++;
+
+          if (rows % batchSize == 0) {
+            statement.executeBatch();
+            connection.commit();
+          }
+          if (rows % PROGRESS_INTERVAL == 0) {
+            System.out.printf("  %d件...%n", rows);
+          }
+        }
+      }
+      statement.executeBatch();
+      connection.commit();
+    }
+    return rows;
+  }
+
+  /**
+   * 年休(出退勤時刻なし)
+   */
+  private void setLeave(PreparedStatement statement, long userId, LocalDate date) throws SQLException {
+    statement.setLong(1, userId);
+    statement.setNull(2, Types.TIMESTAMP);
+    statement.setNull(3, Types.TIMESTAMP);
+    statement.setTimestamp(4, Timestamp.valueOf(date.atTime(8, 0).plusMinutes(random.nextInt(120))));
+    statement.setObject(5, date);
+    statement.setString(6, "ANNUAL_LEAVE");
+  }
+
+  /**
+   * 通常勤務(8:00〜10:00に出勤し8〜10時間勤務、一定の割合で退勤打刻漏れ)
+   */
+  private void setWork(PreparedStatement statement, long userId, LocalDate date) throws SQLException {
+    LocalDateTime checkIn = date.atTime(8, 0).plusSeconds(random.nextInt(2 * 60 * 60));
+    LocalDateTime checkOut = random.nextDouble() < missingCheckOutRate
+        ? null
+        : checkIn.plusHours(8).plusSeconds(random.nextInt(2 * 60 * 60));
+
+    statement.setLong(1, userId);
+    statement.setTimestamp(2, Timestamp.valueOf(checkIn));
+    if (checkOut == null) {
+      statement.setNull(3, Types.TIMESTAMP);
+    } else {
+      statement.setTimestamp(3, Timestamp.valueOf(checkOut));
+    }
+    statement.setTimestamp(4, Timestamp.valueOf(checkIn));
+    statement.setObject(5, date);
+    statement.setString(6, "WORK");
+  }
+}
@@ -0,0 +1,80 @@
+package com.attendance.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 操作ごとの応答時間とステータスコードの集計
+ * 応答時間は予定送信時刻から計測する(送信が遅れた分も含める)
+ */
+final class LatencyRecorder {
+
+  /** 通信エラー(タイムアウト・接続失敗)のステータス */
+  static final int TRANSPORT_ERROR = -1;
+
+  private final String name;
+  private long[] latencies = new long[1024];
+  private int count;
+  private final Map<Integer, Long> statuses = new TreeMap<>();
+
+  LatencyRecorder(String name) {
+    this.name = name;
+  }
+
+  synchronized void record(long latencyNanos, int status) {
+    if (count == latencies.length) {
+      latencies = Arrays.copyOf(latencies, count * 2);
+    }
+    latencies[count++] = latencyNanos;
+    statuses.merge(status, 1L, Long::sum);
+  }
+
+  synchronized int count() {
+    return count;
+  }
+
+  /**
+   * 集計結果
+   */
+  synchronized Result result(double elapsedSeconds) {
+    long[] sorted = Arrays.copyOf(latencies, count);
+    Arrays.sort(sorted);
+
+    long serverErrors = 0;
+    long rejected = 0;
+    for (Map.Entry<Integer, Long> entry : statuses.entrySet()) {
+      int status = entry.getKey();
+      if (status == TRANSPORT_ERROR || status >= 500) {
+        serverErrors += entry.getValue();
+      } else if (status >= 400) {
+        rejected += entry.getValue();
+      }
+    }
+
+    return new Result(name, count, count / elapsedSeconds,
+        count == 0 ? 0 : (double) serverErrors / count,
+        count == 0 ? 0 : (double) rejected / count,
+        percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.95),
+        percentile(sorted, 0.99), percentile(sorted, 0.999),
+        count == 0 ? 0 : sorted[count - 1] / 1e6,
+        new TreeMap<>(statuses));
+  }
+
+  private static double percentile(long[] sorted, double quantile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(quantile * sorted.length) - 1;
+    return sorted[Math.max(0, index)] / 1e6;
+  }
+
+  /**
+   * 操作ごとの結果(応答時間はミリ秒)
+   * errorRate は5xxと通信エラー、rejectRate は4xx(二重打刻などの業務エラー)の割合
+   */
+  record Result(String name, long count, double throughput, double errorRate, double rejectRate,
+      double p50, double p90, double p95, double p99, double p999, double max,
+      Map<Integer, Long> statuses) {
+  }
+}
@@ -0,0 +1,62 @@
+package com.attendance.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * 負荷試験ツール
+ * generate: 合成データをDBに投入する
+ * simulate: 出退勤の集中と管理者の取得・出力を同時に再現する
+ * startup: アプリを起動し、初回の応答までの時間を測る
+ */
+public final class LoadTool {
+
+  private LoadTool() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 0) {
+      printUsage();
+      System.exit(1);
+    }
+
+    Options options = Options.parse(Arrays.copyOfRange(args, 1, args.length));
+    switch (args[0]) {
+      case "generate" -> new DataGenerator(options).run();
+      case "simulate" -> System.exit(new ShiftSurgeSimulator(options).run() ? 0 : 2);
+      case "startup" -> System.exit(new StartupProbe(options).run() ? 0 : 2);
+      default -> {
+        printUsage();
+        System.exit(1);
+      }
+    }
+  }
+
+  private static void printUsage() {
+    System.err.println("""
+        使い方: java -jar attendance-loadtest-1.0.0.jar <generate|simulate|startup> [--key=value ...]
+
+        generate  合成データを投入
+          --jdbc-url=<URL>              投入先 (既定: H2 ./data/attendance)
+          --db-user=<user> --db-password=<password>
+          --users=1000 --months=3 --end-month=<yyyy-MM> --batch-size=1000 --seed=42
+          --leave-rate=0.05 --absence-rate=0.03 --missing-checkout-rate=0.02
+          --user-prefix=load-user-
+
+        simulate  打刻集中を再現
+          --base-url=http://localhost:8080
+          --user-id-from=1 --user-id-to=<id>   打刻するユーザーIDの範囲
+          --duration=10m --curve=0:0.1,0.25:1,0.5:1,0.75:0.3,1:0.1
+          --checkout-ratio=0.3 --max-in-flight=512 --timeout=30s
+          --admin-clients=2 --admin-interval=10s --range-days=7 --export-days=31
+          --max-error-rate=<0.0-1.0>      超えた場合は終了コード2
+          --report=<path>                 結果をJSONで保存
+
+        startup   起動から /api/attendance/today/{userId} が200を返すまでの時間を計測
+          --command="<起動コマンド>"      例: "startup/run.sh", "java -jar target/attendance-backend-1.0.0.jar"
+          --base-url=http://localhost:8080 --user-id=1
+          --runs=5 --timeout=3m           応答しない場合は終了コード2
+          --log=startup-probe.log         アプリの出力の保存先
+          --report=<path>                 結果をJSONで保存
+        """);
+  }
+}
@@ -0,0 +1,69 @@
+package com.attendance.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * --key=value 形式のコマンドライン引数
+ */
+final class Options {
+
+  private final Map<String, String> values;
+
+  private Options(Map<String, String> values) {
+    this.values = values;
+  }
+
+  static Options parse(String[] args) {
+    Map<String, String> values = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+        throw new IllegalArgumentException("引数は --key=value 形式で指定してください: " + arg);
+      }
+      int separator = arg.indexOf('=');
+      values.put(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+    return new Options(values);
+  }
+
+  boolean has(String key) {
+    return values.containsKey(key);
+  }
+
+  String get(String key, String defaultValue) {
+    return values.getOrDefault(key, defaultValue);
+  }
+
+  int getInt(String key, int defaultValue) {
+    return has(key) ? Integer.parseInt(values.get(key)) : defaultValue;
+  }
+
+  long getLong(String key, long defaultValue) {
+    return has(key) ? Long.parseLong(values.get(key)) : defaultValue;
+  }
+
+  double getDouble(String key, double defaultValue) {
+    return has(key) ? Double.parseDouble(values.get(key)) : defaultValue;
+  }
+
+  /**
+   * 期間(500ms, 30s, 10m, 1h)
+   */
+  Duration getDuration(String key, Duration defaultValue) {
+    if (!has(key)) {
+      return defaultValue;
+    }
+    String text = values.get(key).trim();
+    if (text.endsWith("ms")) {
+      return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+    }
+    long amount = Long.parseLong(text.substring(0, text.length() - 1));
+    return switch (text.charAt(text.length() - 1)) {
+      case 's' -> Duration.ofSeconds(amount);
+      case 'm' -> Duration.ofMinutes(amount);
+      case 'h' -> Duration.ofHours(amount);
+      default -> throw new IllegalArgumentException("期間の単位は ms, s, m, h のいずれかです: " + text);
+    };
+  }
+}
@@ -0,0 +1,370 @@
+package com.attendance.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 出退勤の集中の再現
+ * 到着曲線に沿って各ユーザーのCHECK_IN(一部はCHECK_OUTも)を予定時刻に送信し、
+ * 同時に管理者の期間指定取得とExcel出力を一定間隔で実行する
+ * 送信は応答を待たずに行い(オープンモデル)、同時送信数の上限に達した場合のみ待つ
+ */
+final class ShiftSurgeSimulator {
+
+  private static final DateTimeFormatter QUERY_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+  private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(10);
+
+  // Excel出力ジョブの状態を確認する間隔
+  private static final Duration EXPORT_POLL_INTERVAL = Duration.ofMillis(500);
+
+  private final String baseUrl;
+  private final long userIdFrom;
+  private final long userIdTo;
+  private final Duration duration;
+  private final ArrivalCurve curve;
+  private final double checkOutRatio;
+  private final int maxInFlight;
+  private final Duration timeout;
+  private final int adminClients;
+  private final Duration adminInterval;
+  private final int rangeDays;
+  private final int exportDays;
+  private final Double maxErrorRate;
+  private final String reportPath;
+  private final Random random;
+
+  private final LatencyRecorder recordLatencies = new LatencyRecorder("record");
+  private final LatencyRecorder rangeLatencies = new LatencyRecorder("range");
+  private final LatencyRecorder exportLatencies = new LatencyRecorder("export");
+  private final AtomicLong lateStarts = new AtomicLong();
+
+  ShiftSurgeSimulator(Options options) {
+    this.baseUrl = options.get("base-url", "http://localhost:8080");
+    this.userIdFrom = options.getLong("user-id-from", 1);
+    this.userIdTo = options.getLong("user-id-to", userIdFrom + 999);
+    this.duration = options.getDuration("duration", Duration.ofMinutes(10));
+    this.curve = ArrivalCurve.parse(options.get("curve", "0:0.1,0.25:1,0.5:1,0.75:0.3,1:0.1"));
+    this.checkOutRatio = options.getDouble("checkout-ratio", 0.3);
+    this.maxInFlight = options.getInt("max-in-flight", 512);
+    this.timeout = options.getDuration("timeout", Duration.ofSeconds(30));
+    this.adminClients = options.getInt("admin-clients", 2);
+    this.adminInterval = options.getDuration("admin-interval", Duration.ofSeconds(10));
+    this.rangeDays = options.getInt("range-days", 7);
+    this.exportDays = options.getInt("export-days", 31);
+    this.maxErrorRate = options.has("max-error-rate") ? options.getDouble("max-error-rate", 0) : null;
+    this.reportPath = options.get("report", null);
+    this.random = new Random(options.getLong("seed", 42));
+  }
+
+  /**
+   * 実行して結果を出力する(エラー率が上限を超えた場合はfalse)
+   */
+  boolean run() throws InterruptedException, IOException {
+    List<Event> events = planEvents();
+    System.out.printf("打刻 %d件を %d秒間で送信します (ユーザーID %d〜%d, 管理者 %d)%n",
+        events.size(), duration.toSeconds(), userIdFrom, userIdTo, adminClients);
+
+    ExecutorService clientExecutor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+    HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(10))
+        .executor(clientExecutor)
+        .build();
+
+    AtomicBoolean running = new AtomicBoolean(true);
+    List<Thread> adminThreads = startAdminClients(client, running);
+    Thread progress = startProgressReporter(running);
+
+    long startedAt = System.nanoTime();
+    Semaphore inFlight = new Semaphore(maxInFlight);
+    for (Event event : events) {
+      long scheduledAt = startedAt + event.offsetNanos();
+      long wait;
+      while ((wait = scheduledAt - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      inFlight.acquire();
+      if (System.nanoTime() - scheduledAt > TimeUnit.MILLISECONDS.toNanos(100)) {
+        lateStarts.incrementAndGet();
+      }
+      sendRecord(client, event, scheduledAt, inFlight);
+    }
+
+    // 送信済みの打刻の応答を待つ
+    if (!inFlight.tryAcquire(maxInFlight, timeout.toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+      System.out.println("応答待ちのまま終了した打刻があります");
+    }
+    running.set(false);
+    for (Thread thread : adminThreads) {
+      thread.interrupt();
+      thread.join(timeout.toMillis());
+    }
+    progress.interrupt();
+    clientExecutor.shutdownNow();
+
+    double elapsedSeconds = (System.nanoTime() - startedAt) / 1e9;
+    List<LatencyRecorder.Result> results = List.of(
+        recordLatencies.result(elapsedSeconds),
+        rangeLatencies.result(elapsedSeconds),
+        exportLatencies.result(elapsedSeconds));
+    printReport(results, elapsedSeconds);
+    if (reportPath != null) {
+      writeReport(Path.of(reportPath), results, elapsedSeconds);
+    }
+
+    return maxErrorRate == null || results.get(0).errorRate() <= maxErrorRate;
+  }
+
+  /**
+   * 各ユーザーの出勤(と一部の退勤)の予定時刻を決める
+   * 出勤時刻は到着曲線の累積割合を等間隔に区切って求め、ユーザーの順序はランダムにする
+   */
+  private List<Event> planEvents() {
+    int users = (int) (userIdTo - userIdFrom + 1);
+    List<Long> userIds = new ArrayList<>(users);
+    for (long userId = userIdFrom; userId <= userIdTo; userId++) {
+      userIds.add(userId);
+    }
+    Collections.shuffle(userIds, random);
+
+    long durationNanos = duration.toNanos();
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < users; i++) {
+      double checkInAt = curve.positionAt((i + 0.5) / users);
+      events.add(new Event((long) (checkInAt * durationNanos), userIds.get(i), "CHECK_IN"));
+      if (random.nextDouble() < checkOutRatio) {
+        double checkOutAt = checkInAt + random.nextDouble() * (1.0 - checkInAt);
+        events.add(new Event((long) (checkOutAt * durationNanos), userIds.get(i), "CHECK_OUT"));
+      }
+    }
+    events.sort(Comparator.comparingLong(Event::offsetNanos));
+    return events;
+  }
+
+  private void sendRecord(HttpClient client, Event event, long scheduledAt, Semaphore inFlight) {
+    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/attendance/record"))
+        .timeout(timeout)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(
+            "{\"userId\":" + event.userId() + ",\"type\":\"" + event.type() + "\"}"))
+        .build();
+
+    client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+        .whenComplete((response, error) -> {
+          int status = error != null ? LatencyRecorder.TRANSPORT_ERROR : response.statusCode();
+          recordLatencies.record(System.nanoTime() - scheduledAt, status);
+          inFlight.release();
+        });
+  }
+
+  /**
+   * 管理者の期間指定取得とExcel出力を交互に実行するスレッド
+   */
+  private List<Thread> startAdminClients(HttpClient client, AtomicBoolean running) {
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < adminClients; i++) {
+      boolean exportFirst = i % 2 == 1;
+      Thread thread = new Thread(() -> {
+        boolean export = exportFirst;
+        while (running.get()) {
+          LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+          if (export) {
+            export(client, now.minusDays(exportDays), now);
+          } else {
+            get(client, "/api/attendance/range", now.minusDays(rangeDays), now, rangeLatencies);
+          }
+          export = !export;
+          try {
+            Thread.sleep(adminInterval.toMillis());
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+      }, "admin-" + i);
+      thread.setDaemon(true);
+      thread.start();
+      threads.add(thread);
+    }
+    return threads;
+  }
+
+  private void get(HttpClient client, String path, LocalDateTime start, LocalDateTime end, LatencyRecorder recorder) {
+    URI uri = URI.create(baseUrl + path
+        + "?startDate=" + start.format(QUERY_FORMATTER)
+        + "&endDate=" + end.format(QUERY_FORMATTER));
+    HttpRequest request = HttpRequest.newBuilder(uri).timeout(timeout).GET().build();
+
+    long startedAt = System.nanoTime();
+    int status;
+    try {
+      status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    } catch (IOException e) {
+      status = LatencyRecorder.TRANSPORT_ERROR;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    recorder.record(System.nanoTime() - startedAt, status);
+  }
+
+  /**
+   * Excel出力ジョブを登録し、完了まで状態を確認してからファイルをダウンロードする
+   * 登録からダウンロード完了までを1件として記録する(ジョブが失敗した場合は500)
+   */
+  private void export(HttpClient client, LocalDateTime start, LocalDateTime end) {
+    String jobsUrl = baseUrl + "/api/attendance/export/jobs";
+    URI uri = URI.create(jobsUrl
+        + "?startDate=" + start.format(QUERY_FORMATTER)
+        + "&endDate=" + end.format(QUERY_FORMATTER));
+
+    long startedAt = System.nanoTime();
+    int status;
+    try {
+      HttpResponse<String> response = client.send(
+          HttpRequest.newBuilder(uri).timeout(timeout).POST(HttpRequest.BodyPublishers.noBody()).build(),
+          HttpResponse.BodyHandlers.ofString());
+      status = response.statusCode();
+      if (status == 202) {
+        URI jobUri = URI.create(jobsUrl + "/" + jsonField(response.body(), "jobId"));
+        status = awaitJob(client, jobUri);
+        if (status == 200) {
+          status = client.send(
+              HttpRequest.newBuilder(URI.create(jobUri + "/file")).timeout(timeout).GET().build(),
+              HttpResponse.BodyHandlers.discarding()).statusCode();
+        }
+      }
+    } catch (IOException e) {
+      status = LatencyRecorder.TRANSPORT_ERROR;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    exportLatencies.record(System.nanoTime() - startedAt, status);
+  }
+
+  /**
+   * ジョブが終わるまで状態を確認し、完了した場合は200、失敗した場合は500、状態を取得できない場合はその応答のステータスを返す
+   */
+  private int awaitJob(HttpClient client, URI jobUri) throws IOException, InterruptedException {
+    while (true) {
+      Thread.sleep(EXPORT_POLL_INTERVAL.toMillis());
+      HttpResponse<String> response = client.send(
+          HttpRequest.newBuilder(jobUri).timeout(timeout).GET().build(), HttpResponse.BodyHandlers.ofString());
+      if (response.statusCode() != 200) {
+        return response.statusCode();
+      }
+      String jobStatus = jsonField(response.body(), "status");
+      if ("DONE".equals(jobStatus)) {
+        return 200;
+      }
+      if ("FAILED".equals(jobStatus)) {
+        return 500;
+      }
+    }
+  }
+
+  /**
+   * JSONの文字列フィールドの値(ない場合はnull)
+   */
+  private static String jsonField(String json, String name) {
+    Matcher matcher = Pattern.compile("\"" + name + "\"\\s*:\\s*\"([^\"]*)\"").matcher(json);
+    return matcher.find() ? matcher.group(1) : null;
+  }
+
+  /**
+   * 一定間隔で進捗を表示するスレッド
+   */
+  private Thread startProgressReporter(AtomicBoolean running) {
+    Thread thread = new Thread(() -> {
+      long previous = 0;
+      while (running.get()) {
+        try {
+          Thread.sleep(PROGRESS_INTERVAL.toMillis());
+        } catch (InterruptedException e) {
+          return;
+        }
+        long current = recordLatencies.count();
+        System.out.printf("  打刻 %d件完了 (%.1f件/秒)%n",
+            current, (current - previous) / (double) PROGRESS_INTERVAL.toSeconds());
+        previous = current;
+      }
+    }, "progress");
+    thread.setDaemon(true);
+    thread.start();
+    return thread;
+  }
+
+  private void printReport(List<LatencyRecorder.Result> results, double elapsedSeconds) {
+    System.out.printf("%n経過時間 %.1f秒, 予定より100ms以上遅れて送信した打刻 %d件%n", elapsedSeconds, lateStarts.get());
+    System.out.printf("%-8s %8s %9s %8s %8s %9s %9s %9s %9s %9s %9s%n",
+        "操作", "件数", "件/秒", "エラー率", "拒否率", "p50(ms)", "p90", "p95", "p99", "p99.9", "max");
+    for (LatencyRecorder.Result result : results) {
+      System.out.printf(Locale.ROOT, "%-8s %8d %9.1f %7.2f%% %7.2f%% %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+          result.name(), result.count(), result.throughput(), result.errorRate() * 100, result.rejectRate() * 100,
+          result.p50(), result.p90(), result.p95(), result.p99(), result.p999(), result.max());
+      System.out.println("         ステータス: " + formatStatuses(result.statuses()));
+    }
+  }
+
+  private static String formatStatuses(Map<Integer, Long> statuses) {
+    StringBuilder builder = new StringBuilder();
+    statuses.forEach((status, count) -> builder.append(builder.length() == 0 ? "" : ", ")
+        .append(status == LatencyRecorder.TRANSPORT_ERROR ? "通信エラー" : status)
+        .append('=').append(count));
+    return builder.toString();
+  }
+
+  /**
+   * 実行ごとに比較できるよう結果をJSONで保存する
+   */
+  private void writeReport(Path path, List<LatencyRecorder.Result> results, double elapsedSeconds)
+      throws IOException {
+    StringBuilder json = new StringBuilder();
+    json.append("{\n  \"elapsedSeconds\": ").append(String.format(Locale.ROOT, "%.3f", elapsedSeconds))
+        .append(",\n  \"lateStarts\": ").append(lateStarts.get())
+        .append(",\n  \"operations\": [");
+    for (int i = 0; i < results.size(); i++) {
+      LatencyRecorder.Result result = results.get(i);
+      json.append(i == 0 ? "\n" : ",\n").append(String.format(Locale.ROOT,
+          "    {\"name\": \"%s\", \"count\": %d, \"throughput\": %.3f, \"errorRate\": %.6f, "
+              + "\"rejectRate\": %.6f, \"p50Ms\": %.3f, \"p90Ms\": %.3f, \"p95Ms\": %.3f, "
+              + "\"p99Ms\": %.3f, \"p999Ms\": %.3f, \"maxMs\": %.3f}",
+          result.name(), result.count(), result.throughput(), result.errorRate(), result.rejectRate(),
+          result.p50(), result.p90(), result.p95(), result.p99(), result.p999(), result.max()));
+    }
+    json.append("\n  ]\n}\n");
+    Files.writeString(path, json.toString());
+    System.out.println("結果を保存しました: " + path);
+  }
+
+  /**
+   * 打刻1件(offsetNanosは開始からの予定時刻)
+   */
+  private record Event(long offsetNanos, long userId, String type) {
+  }
+}
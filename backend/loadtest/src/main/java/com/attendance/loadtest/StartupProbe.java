@@ -0,0 +1,157 @@
+package com.attendance.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 起動時間の計測
+ * 指定したコマンドでアプリを起動し、/api/attendance/today/{userId} が初めて200を返すまでの時間を測る
+ * 起動と停止を指定回数繰り返し、最小・中央値・最大を出力する
+ */
+final class StartupProbe {
+
+  private static final Duration POLL_INTERVAL = Duration.ofMillis(50);
+  private static final Duration STOP_TIMEOUT = Duration.ofSeconds(30);
+
+  private final List<String> command;
+  private final String baseUrl;
+  private final long userId;
+  private final int runs;
+  private final Duration timeout;
+  private final Path logPath;
+  private final String reportPath;
+
+  StartupProbe(Options options) {
+    if (!options.has("command")) {
+      throw new IllegalArgumentException("--command を指定してください (例: --command=\"startup/run.sh\")");
+    }
+    this.command = Arrays.asList(options.get("command", "").trim().split("\\s+"));
+    this.baseUrl = options.get("base-url", "http://localhost:8080");
+    this.userId = options.getLong("user-id", 1);
+    this.runs = options.getInt("runs", 5);
+    this.timeout = options.getDuration("timeout", Duration.ofMinutes(3));
+    this.logPath = Path.of(options.get("log", "startup-probe.log"));
+    this.reportPath = options.get("report", null);
+  }
+
+  /**
+   * 実行して結果を出力する(いずれかの起動が時間内に応答しなかった場合はfalse)
+   */
+  boolean run() throws IOException, InterruptedException {
+    HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(1))
+        .build();
+    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/attendance/today/" + userId))
+        .timeout(Duration.ofSeconds(5))
+        .GET()
+        .build();
+
+    ensurePortFree(client, request);
+    System.out.printf("起動コマンド: %s (%d回, ログ: %s)%n", String.join(" ", command), runs, logPath);
+
+    double[] millis = new double[runs];
+    for (int i = 0; i < runs; i++) {
+      millis[i] = measure(client, request);
+      if (millis[i] < 0) {
+        System.out.printf("  %d回目: %d秒以内に応答しませんでした%n", i + 1, timeout.toSeconds());
+        return false;
+      }
+      System.out.printf(Locale.ROOT, "  %d回目: %.0f ms%n", i + 1, millis[i]);
+    }
+
+    double[] sorted = millis.clone();
+    Arrays.sort(sorted);
+    double median = runs % 2 == 1
+        ? sorted[runs / 2]
+        : (sorted[runs / 2 - 1] + sorted[runs / 2]) / 2;
+    System.out.printf(Locale.ROOT, "%n初回応答まで: 最小 %.0f ms, 中央値 %.0f ms, 最大 %.0f ms%n",
+        sorted[0], median, sorted[runs - 1]);
+
+    if (reportPath != null) {
+      writeReport(Path.of(reportPath), millis, sorted[0], median, sorted[runs - 1]);
+    }
+    return true;
+  }
+
+  /**
+   * 1回起動して初回応答までのミリ秒を返す(時間切れは-1)
+   */
+  private double measure(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+    File log = logPath.toFile();
+    long startedAt = System.nanoTime();
+    Process process = new ProcessBuilder(command)
+        .redirectErrorStream(true)
+        .redirectOutput(ProcessBuilder.Redirect.appendTo(log))
+        .start();
+    try {
+      long deadline = startedAt + timeout.toNanos();
+      while (System.nanoTime() < deadline) {
+        if (!process.isAlive()) {
+          throw new IllegalStateException("アプリが起動中に終了しました (終了コード " + process.exitValue()
+              + ", ログ: " + logPath + ")");
+        }
+        if (isReady(client, request)) {
+          return (System.nanoTime() - startedAt) / 1e6;
+        }
+        Thread.sleep(POLL_INTERVAL.toMillis());
+      }
+      return -1;
+    } finally {
+      stop(process);
+    }
+  }
+
+  private static boolean isReady(HttpClient client, HttpRequest request) throws InterruptedException {
+    try {
+      return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * 子プロセス(mvn等から起動されたJVM)も含めて停止する
+   */
+  private static void stop(Process process) throws InterruptedException {
+    process.descendants().forEach(ProcessHandle::destroy);
+    process.destroy();
+    if (!process.waitFor(STOP_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+      process.descendants().forEach(ProcessHandle::destroyForcibly);
+      process.destroyForcibly().waitFor();
+    }
+  }
+
+  /**
+   * 既に別のアプリが応答していると計測にならないため確認する
+   */
+  private void ensurePortFree(HttpClient client, HttpRequest request) throws InterruptedException {
+    if (isReady(client, request)) {
+      throw new IllegalStateException(baseUrl + " で既にアプリが応答しています。停止してから実行してください");
+    }
+  }
+
+  private void writeReport(Path path, double[] millis, double min, double median, double max) throws IOException {
+    StringBuilder json = new StringBuilder();
+    json.append("{\n  \"command\": \"").append(String.join(" ", command).replace("\\", "\\\\").replace("\"", "\\\""))
+        .append("\",\n  \"runsMs\": [");
+    for (int i = 0; i < millis.length; i++) {
+      json.append(i == 0 ? "" : ", ").append(String.format(Locale.ROOT, "%.1f", millis[i]));
+    }
+    json.append(String.format(Locale.ROOT, "],\n  \"minMs\": %.1f,\n  \"medianMs\": %.1f,\n  \"maxMs\": %.1f\n}\n",
+        min, median, max));
+    Files.writeString(path, json.toString());
+    System.out.println("結果を保存しました: " + path);
+  }
+}
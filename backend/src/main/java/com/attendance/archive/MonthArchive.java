@@ -0,0 +1,314 @@
+package com.attendance.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32;
+
+import com.attendance.dto.AttendanceResponse;
+
+/**
+ * 1か月分の勤怠記録のアーカイブファイル(読み取り専用、メモリマップ)
+ *
+ * 形式(ビッグエンディアン):
+ * ヘッダー(マジック・版・年月・行数・ユーザー数・各列の定義・勤怠区分の一覧)、
+ * ユーザーIDの一覧と各ユーザーの先頭行、記録ID・記録日時・出勤時刻・退勤時刻・勤怠区分の各列、
+ * 記録日時・ID順の行番号、末尾にそれまでのCRC32
+ * 行はユーザーID・記録日時の順。日時はUTCとみなしたエポックからのマイクロ秒を月初からの差で格納する
+ */
+public final class MonthArchive {
+
+  static final long MAGIC = 0x4154_5441_5243_4856L; // "ATTARCHV"
+  static final int VERSION = 1;
+  static final long MICROS_PER_SECOND = 1_000_000L;
+
+  private final Path file;
+  private final ByteBuffer buffer;
+  private final YearMonth month;
+  private final int rowCount;
+  private final int userCount;
+  private final long checksum;
+
+  private final PackedColumn recordIdColumn;
+  private final PackedColumn recordDateColumn;
+  private final PackedColumn checkInColumn;
+  private final PackedColumn checkOutColumn;
+  private final String[] typeNames;
+
+  private final int userIdsOffset;
+  private final int userStartsOffset;
+  private final int recordIdOffset;
+  private final int recordDateOffset;
+  private final int checkInOffset;
+  private final int checkOutOffset;
+  private final int typeOffset;
+  private final int dateOrderOffset;
+
+  private MonthArchive(Path file, ByteBuffer buffer) {
+    this.file = file;
+    this.buffer = buffer;
+
+    int dataEnd = buffer.capacity() - Long.BYTES;
+    if (dataEnd < 0) {
+      throw new IllegalStateException("アーカイブファイルが壊れています: " + file);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(buffer.duplicate().position(0).limit(dataEnd));
+    this.checksum = buffer.getLong(dataEnd);
+    if (crc.getValue() != checksum) {
+      throw new IllegalStateException("アーカイブファイルのチェックサムが一致しません: " + file);
+    }
+
+    ByteBuffer header = buffer.duplicate();
+    if (header.getLong() != MAGIC || header.getInt() != VERSION) {
+      throw new IllegalStateException("アーカイブファイルの形式が不正です: " + file);
+    }
+    this.month = YearMonth.of(header.getInt(), header.getInt());
+    this.rowCount = header.getInt();
+    this.userCount = header.getInt();
+    this.recordIdColumn = PackedColumn.readDescriptor(header);
+    this.recordDateColumn = PackedColumn.readDescriptor(header);
+    this.checkInColumn = PackedColumn.readDescriptor(header);
+    this.checkOutColumn = PackedColumn.readDescriptor(header);
+    this.typeNames = new String[header.get()];
+    for (int i = 0; i < typeNames.length; i++) {
+      byte[] bytes = new byte[header.getShort()];
+      header.get(bytes);
+      typeNames[i] = new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    this.userIdsOffset = header.position();
+    this.userStartsOffset = userIdsOffset + userCount * Long.BYTES;
+    this.recordIdOffset = userStartsOffset + (userCount + 1) * Integer.BYTES;
+    this.recordDateOffset = recordIdOffset + (int) recordIdColumn.size(rowCount);
+    this.checkInOffset = recordDateOffset + (int) recordDateColumn.size(rowCount);
+    this.checkOutOffset = checkInOffset + (int) checkInColumn.size(rowCount);
+    this.typeOffset = checkOutOffset + (int) checkOutColumn.size(rowCount);
+    this.dateOrderOffset = typeOffset + rowCount;
+    if (dateOrderOffset + rowCount * Integer.BYTES != dataEnd) {
+      throw new IllegalStateException("アーカイブファイルの大きさが不正です: " + file);
+    }
+  }
+
+  /**
+   * ファイルをメモリマップして開く(チャネルを閉じてもマップは有効)
+   * 形式・チェックサムが不正な場合はIllegalStateException
+   */
+  public static MonthArchive open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IllegalStateException("アーカイブファイルが大きすぎます: " + file);
+      }
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      return new MonthArchive(file, mapped);
+    }
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  public YearMonth getMonth() {
+    return month;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public int getUserCount() {
+    return userCount;
+  }
+
+  public long getFileSize() {
+    return buffer.capacity();
+  }
+
+  public long getChecksum() {
+    return checksum;
+  }
+
+  /**
+   * index 番目(ユーザーID順)のユーザーのID
+   */
+  public long userIdAt(int index) {
+    return buffer.getLong(userIdsOffset + index * Long.BYTES);
+  }
+
+  /**
+   * index 番目のユーザーの先頭行(index == getUserCount() の場合は行数)
+   */
+  public int userStart(int index) {
+    return buffer.getInt(userStartsOffset + index * Integer.BYTES);
+  }
+
+  /**
+   * ユーザーの索引上の位置(記録がない場合は -(挿入位置) - 1)
+   */
+  public int findUser(long userId) {
+    int low = 0;
+    int high = userCount - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      long current = userIdAt(middle);
+      if (current < userId) {
+        low = middle + 1;
+      } else if (current > userId) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * 行が属するユーザーの索引上の位置
+   */
+  public int userIndexOfRow(int row) {
+    int low = 0;
+    int high = userCount - 1;
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (userStart(middle) <= row) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  public long recordId(int row) {
+    return recordIdColumn.read(buffer, recordIdOffset, row);
+  }
+
+  /**
+   * 記録日時(エポックからのマイクロ秒)
+   */
+  public long recordDateMicros(int row) {
+    return recordDateColumn.read(buffer, recordDateOffset, row);
+  }
+
+  public LocalDateTime recordDate(int row) {
+    return fromMicros(recordDateMicros(row));
+  }
+
+  public LocalDateTime checkInTime(int row) {
+    return fromMicros(checkInColumn.read(buffer, checkInOffset, row));
+  }
+
+  public LocalDateTime checkOutTime(int row) {
+    return fromMicros(checkOutColumn.read(buffer, checkOutOffset, row));
+  }
+
+  public String attendanceType(int row) {
+    return typeNames[buffer.get(typeOffset + row)];
+  }
+
+  /**
+   * 記録日時・ID順で position 番目の行
+   */
+  public int rowAtDatePosition(int position) {
+    return buffer.getInt(dateOrderOffset + position * Integer.BYTES);
+  }
+
+  /**
+   * 記録日時が from 以降の最初の位置(記録日時・ID順)
+   */
+  public int datePositionFrom(LocalDateTime from) {
+    long micros = ceilMicros(from);
+    int low = 0;
+    int high = rowCount;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (recordDateMicros(rowAtDatePosition(middle)) < micros) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * (記録日時, ID) が (after, afterId) より後の最初の位置(記録日時・ID順)
+   */
+  public int datePositionAfter(LocalDateTime after, long afterId) {
+    if (after.getNano() % 1_000 != 0) {
+      return datePositionFrom(after);
+    }
+    long micros = toMicros(after);
+    int low = 0;
+    int high = rowCount;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      int row = rowAtDatePosition(middle);
+      long current = recordDateMicros(row);
+      if (current < micros || (current == micros && recordId(row) <= afterId)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * 1行をレスポンスDTOに組み立てる(ステータスの判定は AttendanceRecordRepository.RESPONSE_SELECT と同じ)
+   */
+  public AttendanceResponse toResponse(int row, long userId, String username) {
+    String attendanceType = attendanceType(row);
+    LocalDateTime checkOutTime = checkOutTime(row);
+    String status;
+    if ("ANNUAL_LEAVE".equals(attendanceType)) {
+      status = "ANNUAL_LEAVE";
+    } else {
+      status = checkOutTime == null ? "IN_PROGRESS" : "COMPLETED";
+    }
+    return new AttendanceResponse(recordId(row), userId, username, checkInTime(row), checkOutTime,
+        recordDate(row), attendanceType, status);
+  }
+
+  /**
+   * 範囲の下限をマイクロ秒に切り上げる(記録日時 >= from と micros >= ceilMicros(from) が同値)
+   */
+  public static long ceilMicros(LocalDateTime from) {
+    LocalDateTime truncated = from.withNano(from.getNano() / 1_000 * 1_000);
+    return truncated.equals(from) ? toMicros(from) : toMicros(truncated) + 1;
+  }
+
+  /**
+   * 範囲の上限をマイクロ秒に切り捨てる(記録日時 <= to と micros <= floorMicros(to) が同値)
+   */
+  public static long floorMicros(LocalDateTime to) {
+    return toMicros(to.withNano(to.getNano() / 1_000 * 1_000));
+  }
+
+  static long toMicros(LocalDateTime time) {
+    if (time == null) {
+      return PackedColumn.NULL;
+    }
+    if (time.getNano() % 1_000 != 0) {
+      throw new IllegalArgumentException("マイクロ秒より細かい時刻は格納できません: " + time);
+    }
+    return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC), MICROS_PER_SECOND),
+        time.getNano() / 1_000);
+  }
+
+  static LocalDateTime fromMicros(long micros) {
+    if (micros == PackedColumn.NULL) {
+      return null;
+    }
+    return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, MICROS_PER_SECOND),
+        (int) Math.floorMod(micros, MICROS_PER_SECOND) * 1_000, ZoneOffset.UTC);
+  }
+}
@@ -0,0 +1,226 @@
+package com.attendance.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.attendance.dto.AttendanceResponse;
+
+/**
+ * 1か月分の勤怠記録を列指向のアーカイブファイルに書き出す
+ * 行はユーザーID・記録日時の順(期間指定取得と同じ順序)で追加する
+ * 形式は MonthArchive を参照
+ */
+public final class MonthArchiveWriter {
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  // 1ファイルをメモリマップできる大きさに収める
+  private static final int MAX_ROWS = 50_000_000;
+
+  private final YearMonth month;
+  private final long monthStart;
+  private final long monthEnd;
+
+  private long[] userIds = new long[INITIAL_CAPACITY];
+  private long[] recordIds = new long[INITIAL_CAPACITY];
+  private long[] recordDates = new long[INITIAL_CAPACITY];
+  private long[] checkInTimes = new long[INITIAL_CAPACITY];
+  private long[] checkOutTimes = new long[INITIAL_CAPACITY];
+  private byte[] types = new byte[INITIAL_CAPACITY];
+  private final List<String> typeNames = new ArrayList<>();
+  private final Map<String, Integer> typeCodes = new HashMap<>();
+  private int size;
+
+  public MonthArchiveWriter(YearMonth month) {
+    this.month = month;
+    this.monthStart = MonthArchive.toMicros(month.atDay(1).atStartOfDay());
+    this.monthEnd = MonthArchive.toMicros(month.plusMonths(1).atDay(1).atStartOfDay());
+  }
+
+  /**
+   * 1行追加(記録日時が月外・順序が逆の場合はIllegalArgumentException)
+   */
+  public void add(AttendanceResponse response) {
+    long userId = response.getUserId();
+    long recordDate = MonthArchive.toMicros(response.getRecordDate());
+    if (recordDate < monthStart || recordDate >= monthEnd) {
+      throw new IllegalArgumentException(month + " の範囲外の勤怠記録です: recordId=" + response.getRecordId());
+    }
+    if (size > 0 && (userId < userIds[size - 1]
+        || (userId == userIds[size - 1] && recordDate < recordDates[size - 1]))) {
+      throw new IllegalArgumentException("勤怠記録がユーザーID・記録日時の順ではありません: recordId="
+          + response.getRecordId());
+    }
+    if (size == MAX_ROWS) {
+      throw new IllegalStateException("1か月の勤怠記録が上限(" + MAX_ROWS + "件)を超えています");
+    }
+    ensureCapacity(size + 1);
+
+    userIds[size] = userId;
+    recordIds[size] = response.getRecordId();
+    recordDates[size] = recordDate;
+    checkInTimes[size] = MonthArchive.toMicros(response.getCheckInTime());
+    checkOutTimes[size] = MonthArchive.toMicros(response.getCheckOutTime());
+    types[size] = typeCode(response.getAttendanceType());
+    size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * ファイルに書き出し、チェックサム(CRC32)を返す
+   */
+  public long writeTo(Path file) throws IOException {
+    int userCount = 0;
+    for (int i = 0; i < size; i++) {
+      if (i == 0 || userIds[i] != userIds[i - 1]) {
+        userCount++;
+      }
+    }
+
+    long minRecordId = size == 0 ? 0 : Arrays.stream(recordIds, 0, size).min().getAsLong();
+    PackedColumn recordIdColumn = PackedColumn.fit(recordIds, size, minRecordId, 1);
+    PackedColumn recordDateColumn = PackedColumn.fit(recordDates, size, monthStart, MonthArchive.MICROS_PER_SECOND);
+    PackedColumn checkInColumn = PackedColumn.fit(checkInTimes, size, monthStart, MonthArchive.MICROS_PER_SECOND);
+    PackedColumn checkOutColumn = PackedColumn.fit(checkOutTimes, size, monthStart, MonthArchive.MICROS_PER_SECOND);
+    int[] dateOrder = dateOrder();
+
+    CRC32 crc = new CRC32();
+    try (OutputStream fileStream = Files.newOutputStream(file);
+        DataOutputStream out = new DataOutputStream(
+            new CheckedOutputStream(new BufferedOutputStream(fileStream, 1 << 16), crc))) {
+      out.writeLong(MonthArchive.MAGIC);
+      out.writeInt(MonthArchive.VERSION);
+      out.writeInt(month.getYear());
+      out.writeInt(month.getMonthValue());
+      out.writeInt(size);
+      out.writeInt(userCount);
+      recordIdColumn.writeDescriptor(out);
+      recordDateColumn.writeDescriptor(out);
+      checkInColumn.writeDescriptor(out);
+      checkOutColumn.writeDescriptor(out);
+      out.writeByte(typeNames.size());
+      for (String typeName : typeNames) {
+        byte[] bytes = typeName.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+      }
+
+      // ユーザーごとの索引(ユーザーIDと先頭行。末尾に行数を置く)
+      for (int i = 0; i < size; i++) {
+        if (i == 0 || userIds[i] != userIds[i - 1]) {
+          out.writeLong(userIds[i]);
+        }
+      }
+      for (int i = 0; i < size; i++) {
+        if (i == 0 || userIds[i] != userIds[i - 1]) {
+          out.writeInt(i);
+        }
+      }
+      out.writeInt(size);
+
+      for (int i = 0; i < size; i++) {
+        recordIdColumn.write(out, recordIds[i]);
+      }
+      for (int i = 0; i < size; i++) {
+        recordDateColumn.write(out, recordDates[i]);
+      }
+      for (int i = 0; i < size; i++) {
+        checkInColumn.write(out, checkInTimes[i]);
+      }
+      for (int i = 0; i < size; i++) {
+        checkOutColumn.write(out, checkOutTimes[i]);
+      }
+      out.write(types, 0, size);
+      for (int row : dateOrder) {
+        out.writeInt(row);
+      }
+
+      out.flush();
+      long checksum = crc.getValue();
+      out.writeLong(checksum);
+      return checksum;
+    }
+  }
+
+  private byte typeCode(String attendanceType) {
+    Integer code = typeCodes.get(attendanceType);
+    if (code == null) {
+      if (attendanceType == null || typeNames.size() == Byte.MAX_VALUE) {
+        throw new IllegalArgumentException("勤怠区分を格納できません: " + attendanceType);
+      }
+      code = typeNames.size();
+      typeNames.add(attendanceType);
+      typeCodes.put(attendanceType, code);
+    }
+    return code.byteValue();
+  }
+
+  /**
+   * 記録日時・IDの順に並べた行番号(期間指定のページ取得用)
+   */
+  private int[] dateOrder() {
+    int[] order = new int[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+    int[] buffer = new int[size];
+    mergeSort(order, buffer, 0, size);
+    return order;
+  }
+
+  private void mergeSort(int[] rows, int[] buffer, int from, int to) {
+    if (to - from < 2) {
+      return;
+    }
+    int middle = (from + to) >>> 1;
+    mergeSort(rows, buffer, from, middle);
+    mergeSort(rows, buffer, middle, to);
+    if (compareByDate(rows[middle - 1], rows[middle]) <= 0) {
+      return;
+    }
+    System.arraycopy(rows, from, buffer, from, to - from);
+    int left = from;
+    int right = middle;
+    for (int i = from; i < to; i++) {
+      if (right >= to || (left < middle && compareByDate(buffer[left], buffer[right]) <= 0)) {
+        rows[i] = buffer[left++];
+      } else {
+        rows[i] = buffer[right++];
+      }
+    }
+  }
+
+  private int compareByDate(int a, int b) {
+    int result = Long.compare(recordDates[a], recordDates[b]);
+    return result != 0 ? result : Long.compare(recordIds[a], recordIds[b]);
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= userIds.length) {
+      return;
+    }
+    int newCapacity = (int) Math.min((long) userIds.length * 2, MAX_ROWS);
+    userIds = Arrays.copyOf(userIds, newCapacity);
+    recordIds = Arrays.copyOf(recordIds, newCapacity);
+    recordDates = Arrays.copyOf(recordDates, newCapacity);
+    checkInTimes = Arrays.copyOf(checkInTimes, newCapacity);
+    checkOutTimes = Arrays.copyOf(checkOutTimes, newCapacity);
+    types = Arrays.copyOf(types, newCapacity);
+  }
+}
@@ -0,0 +1,96 @@
+package com.attendance.archive;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 数値列の固定長の符号化(基準値からの差を単位で割った値を4バイトまたは8バイトで格納する)
+ * 月初からの秒数や月内の最小IDからの差は4バイトに収まるため、元の値(8バイト)の半分になる
+ * 固定長のため、メモリマップしたファイルから任意の行を直接読める
+ */
+final class PackedColumn {
+
+  /** 値なし(null)を表す値 */
+  static final long NULL = Long.MIN_VALUE;
+
+  /** ヘッダーに書き出す列の定義のバイト数 */
+  static final int DESCRIPTOR_BYTES = Long.BYTES * 2 + 1;
+
+  private final long base;
+  private final long unit;
+  private final int width;
+
+  private PackedColumn(long base, long unit, int width) {
+    if (unit <= 0 || (width != Integer.BYTES && width != Long.BYTES)) {
+      throw new IllegalArgumentException("列の定義が不正です: unit=" + unit + ", width=" + width);
+    }
+    this.base = base;
+    this.unit = unit;
+    this.width = width;
+  }
+
+  /**
+   * 値に合わせて単位と幅を選ぶ(いずれかの値が unit で割り切れない場合は単位を1にする)
+   */
+  static PackedColumn fit(long[] values, int count, long base, long unit) {
+    long chosenUnit = unit;
+    for (int i = 0; i < count && chosenUnit != 1; i++) {
+      if (values[i] != NULL && Math.floorMod(values[i] - base, chosenUnit) != 0) {
+        chosenUnit = 1;
+      }
+    }
+    int width = Integer.BYTES;
+    for (int i = 0; i < count; i++) {
+      if (values[i] == NULL) {
+        continue;
+      }
+      long stored = Math.floorDiv(Math.subtractExact(values[i], base), chosenUnit);
+      if (stored <= Integer.MIN_VALUE || stored > Integer.MAX_VALUE) {
+        width = Long.BYTES;
+        break;
+      }
+    }
+    return new PackedColumn(base, chosenUnit, width);
+  }
+
+  static PackedColumn readDescriptor(ByteBuffer buffer) {
+    long base = buffer.getLong();
+    long unit = buffer.getLong();
+    int width = buffer.get();
+    return new PackedColumn(base, unit, width);
+  }
+
+  void writeDescriptor(DataOutput out) throws IOException {
+    out.writeLong(base);
+    out.writeLong(unit);
+    out.writeByte(width);
+  }
+
+  void write(DataOutput out, long value) throws IOException {
+    if (width == Integer.BYTES) {
+      out.writeInt(value == NULL ? Integer.MIN_VALUE : (int) ((value - base) / unit));
+    } else {
+      out.writeLong(value == NULL ? Long.MIN_VALUE : (value - base) / unit);
+    }
+  }
+
+  /**
+   * offset から始まる列の row 行目の値
+   */
+  long read(ByteBuffer buffer, int offset, int row) {
+    if (width == Integer.BYTES) {
+      int stored = buffer.getInt(offset + row * Integer.BYTES);
+      return stored == Integer.MIN_VALUE ? NULL : base + stored * unit;
+    }
+    long stored = buffer.getLong(offset + row * Long.BYTES);
+    return stored == Long.MIN_VALUE ? NULL : base + stored * unit;
+  }
+
+  /**
+   * rows 行分の列のバイト数
+   */
+  long size(int rows) {
+    return (long) rows * width;
+  }
+}
@@ -0,0 +1,82 @@
+package com.attendance.command;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import com.attendance.dto.ImportResult;
+import com.attendance.importer.ImportFormat;
+import com.attendance.service.AttendanceImportService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 起動引数 --import-attendance=<ファイル> が指定された場合に勤怠記録を取り込んで終了する
+ * --import-errors=<ファイル> を指定すると除外した行をCSVで書き出す
+ * 終了コードは全行を登録できた場合0、除外した行がある場合1
+ */
+@Component
+@RequiredArgsConstructor
+public class AttendanceImportCommand implements ApplicationRunner {
+
+  static final String OPTION = "import-attendance";
+  static final String ERRORS_OPTION = "import-errors";
+
+  private final AttendanceImportService attendanceImportService;
+  private final ConfigurableApplicationContext context;
+
+  @Override
+  public void run(ApplicationArguments args) throws IOException {
+    if (!args.containsOption(OPTION)) {
+      return;
+    }
+
+    Path file = Path.of(singleValue(args, OPTION));
+    ImportFormat format = ImportFormat.fromFilename(file.getFileName().toString());
+    List<String> errorFiles = args.getOptionValues(ERRORS_OPTION);
+
+    ImportResult result;
+    if (errorFiles == null || errorFiles.isEmpty()) {
+      result = attendanceImportService.importFile(file, format, error -> { });
+    } else {
+      try (Writer writer = Files.newBufferedWriter(Path.of(errorFiles.get(0)), StandardCharsets.UTF_8)) {
+        writer.write("rowNumber,username,message\r\n");
+        result = attendanceImportService.importFile(file, format, error -> writeError(writer, error.getRowNumber(),
+            error.getUsername(), error.getMessage()));
+      }
+    }
+
+    int exitCode = result.getRejected() == 0 ? 0 : 1;
+    System.exit(SpringApplication.exit(context, () -> exitCode));
+  }
+
+  private static String singleValue(ApplicationArguments args, String option) {
+    List<String> values = args.getOptionValues(option);
+    if (values == null || values.isEmpty() || values.get(0).isBlank()) {
+      throw new IllegalArgumentException("--" + option + "=<ファイル> を指定してください");
+    }
+    return values.get(0);
+  }
+
+  private static void writeError(Writer writer, long rowNumber, String username, String message) {
+    try {
+      writer.write(rowNumber + "," + quote(username) + "," + quote(message) + "\r\n");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static String quote(String value) {
+    return "\"" + (value == null ? "" : value.replace("\"", "\"\"")) + "\"";
+  }
+}
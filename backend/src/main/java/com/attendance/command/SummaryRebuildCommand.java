@@ -0,0 +1,34 @@
+package com.attendance.command;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import com.attendance.service.AttendanceSummaryService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 起動引数 --rebuild-summaries が指定された場合に集計テーブルを作り直して終了する
+ */
+@Component
+@RequiredArgsConstructor
+public class SummaryRebuildCommand implements ApplicationRunner {
+
+  static final String OPTION = "rebuild-summaries";
+
+  private final AttendanceSummaryService attendanceSummaryService;
+  private final ConfigurableApplicationContext context;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!args.containsOption(OPTION)) {
+      return;
+    }
+
+    attendanceSummaryService.rebuild();
+    System.exit(SpringApplication.exit(context, () -> 0));
+  }
+}
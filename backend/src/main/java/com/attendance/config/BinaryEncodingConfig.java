@@ -0,0 +1,84 @@
+package com.attendance.config;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * サービス間連携向けのバイナリ形式
+ * Accept: application/x-jackson-smile または application/cbor で CompactEncodingModule の表現を返す
+ * (JSONの表現は変えない)
+ */
+@Configuration
+public class BinaryEncodingConfig implements WebMvcConfigurer {
+
+  public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    // 既定で登録されるSmile/CBORの変換器を置き換える
+    converters.removeIf(converter -> converter instanceof MappingJackson2SmileHttpMessageConverter
+        || converter instanceof MappingJackson2CborHttpMessageConverter);
+    converters.add(new MappingJackson2SmileHttpMessageConverter(smileObjectMapper()));
+    converters.add(new MappingJackson2CborHttpMessageConverter(cborObjectMapper()));
+  }
+
+  public static ObjectMapper smileObjectMapper() {
+    return configure(Jackson2ObjectMapperBuilder.smile());
+  }
+
+  public static ObjectMapper cborObjectMapper() {
+    return configure(Jackson2ObjectMapperBuilder.cbor());
+  }
+
+  /**
+   * Acceptヘッダーで選ばれる表現をETagに付ける接尾辞で返す(JSONは空文字、Smileは"-smile"、CBORは"-cbor")
+   * 表現ごとに本文が異なるため、同じETagを共有しないようにする
+   */
+  public static String etagSuffix(String accept) {
+    if (accept == null || accept.isBlank()) {
+      return "";
+    }
+    // 品質値と具体性の順に見て、最初に一致した表現を使う(ワイルドカードは先に登録されたJSONになる)
+    List<MediaType> mediaTypes;
+    try {
+      mediaTypes = MediaType.parseMediaTypes(accept);
+      MimeTypeUtils.sortBySpecificity(mediaTypes);
+    } catch (IllegalArgumentException e) {
+      return "";
+    }
+    for (MediaType mediaType : mediaTypes) {
+      if (mediaType.getQualityValue() == 0) {
+        continue;
+      }
+      if (mediaType.isWildcardType() || mediaType.isWildcardSubtype()
+          || MediaType.APPLICATION_JSON.isCompatibleWith(mediaType)) {
+        return "";
+      }
+      if (APPLICATION_SMILE.isCompatibleWith(mediaType)) {
+        return "-smile";
+      }
+      if (MediaType.APPLICATION_CBOR.isCompatibleWith(mediaType)) {
+        return "-cbor";
+      }
+    }
+    return "";
+  }
+
+  private static ObjectMapper configure(Jackson2ObjectMapperBuilder builder) {
+    return builder
+        .modulesToInstall(new CompactEncodingModule())
+        .serializationInclusion(JsonInclude.Include.NON_NULL)
+        .build();
+  }
+}
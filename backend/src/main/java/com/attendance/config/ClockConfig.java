@@ -0,0 +1,25 @@
+package com.attendance.config;
+
+import java.time.Clock;
+import java.time.ZoneId;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 勤務日・「今日」の判定に使う時計
+ * JVMのタイムゾーン(App ServiceではUTC)に関わらず、日付は Asia/Tokyo で切り替える
+ */
+@Configuration
+public class ClockConfig {
+
+  /** 勤務日の基準タイムゾーン(DB接続の serverTimezone・日付の切り替わりのcronと同じ) */
+  public static final String ZONE_ID = "Asia/Tokyo";
+
+  public static final ZoneId ZONE = ZoneId.of(ZONE_ID);
+
+  @Bean
+  public Clock clock() {
+    return Clock.system(ZONE);
+  }
+}
@@ -0,0 +1,120 @@
+package com.attendance.config;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import com.attendance.dto.AttendanceCodes;
+import com.attendance.dto.AttendanceResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * バイナリ形式(Smile/CBOR)用のJacksonモジュール
+ * 日時はエポックミリ秒(Asia/Tokyo)、日付はエポック日、勤怠区分・ステータスは AttendanceCodes の数値で表す
+ * 値がnullの項目は出力しない
+ */
+public class CompactEncodingModule extends SimpleModule {
+
+  /** 日時の基準タイムゾーン(DB接続の serverTimezone と同じ) */
+  public static final ZoneId ZONE = ClockConfig.ZONE;
+
+  public CompactEncodingModule() {
+    super("CompactEncodingModule");
+    addSerializer(LocalDateTime.class, new EpochMillisSerializer());
+    addDeserializer(LocalDateTime.class, new EpochMillisDeserializer());
+    addSerializer(LocalDate.class, new EpochDaySerializer());
+    addSerializer(AttendanceResponse.class, new CompactAttendanceResponseSerializer());
+  }
+
+  static long toEpochMillis(LocalDateTime value) {
+    return value.atZone(ZONE).toInstant().toEpochMilli();
+  }
+
+  private static final class EpochMillisSerializer extends StdSerializer<LocalDateTime> {
+
+    EpochMillisSerializer() {
+      super(LocalDateTime.class);
+    }
+
+    @Override
+    public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+      gen.writeNumber(toEpochMillis(value));
+    }
+  }
+
+  /**
+   * エポックミリ秒に加え、ISO形式の文字列も受け付ける
+   */
+  private static final class EpochMillisDeserializer extends StdDeserializer<LocalDateTime> {
+
+    EpochMillisDeserializer() {
+      super(LocalDateTime.class);
+    }
+
+    @Override
+    public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+      if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(parser.getLongValue()), ZONE);
+      }
+      return LocalDateTime.parse(parser.getValueAsString());
+    }
+  }
+
+  private static final class EpochDaySerializer extends StdSerializer<LocalDate> {
+
+    EpochDaySerializer() {
+      super(LocalDate.class);
+    }
+
+    @Override
+    public void serialize(LocalDate value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+      gen.writeNumber(value.toEpochDay());
+    }
+  }
+
+  /**
+   * 勤怠記録は件数が多いため、リフレクションを使わずに項目を直接書き出す
+   */
+  private static final class CompactAttendanceResponseSerializer extends StdSerializer<AttendanceResponse> {
+
+    CompactAttendanceResponseSerializer() {
+      super(AttendanceResponse.class);
+    }
+
+    @Override
+    public void serialize(AttendanceResponse value, JsonGenerator gen, SerializerProvider provider)
+        throws IOException {
+      gen.writeStartObject(value);
+      if (value.getRecordId() != null) {
+        gen.writeNumberField("recordId", value.getRecordId());
+      }
+      if (value.getUserId() != null) {
+        gen.writeNumberField("userId", value.getUserId());
+      }
+      if (value.getUsername() != null) {
+        gen.writeStringField("username", value.getUsername());
+      }
+      writeEpochMillis(gen, "checkInTime", value.getCheckInTime());
+      writeEpochMillis(gen, "checkOutTime", value.getCheckOutTime());
+      writeEpochMillis(gen, "recordDate", value.getRecordDate());
+      gen.writeNumberField("attendanceType", AttendanceCodes.typeCode(value.getAttendanceType()));
+      gen.writeNumberField("status", AttendanceCodes.statusCode(value.getStatus()));
+      gen.writeEndObject();
+    }
+
+    private static void writeEpochMillis(JsonGenerator gen, String name, LocalDateTime value) throws IOException {
+      if (value != null) {
+        gen.writeNumberField(name, toEpochMillis(value));
+      }
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.attendance.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExportJobConfig {
+
+  @Value("${attendance.export.workers:2}")
+  private int workers;
+
+  @Value("${attendance.export.queue-capacity:10}")
+  private int queueCapacity;
+
+  /**
+   * エクスポートジョブ専用のワーカー(リクエストスレッドとは分離し、同時実行数を制限する)
+   */
+  @Bean
+  public ThreadPoolTaskExecutor exportJobExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(workers);
+    executor.setMaxPoolSize(workers);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("export-");
+    executor.setWaitForTasksToCompleteOnShutdown(false);
+    executor.initialize();
+    return executor;
+  }
+}
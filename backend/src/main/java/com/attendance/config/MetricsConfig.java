@@ -0,0 +1,177 @@
+package com.attendance.config;
+
+import java.util.function.ToDoubleFunction;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.attendance.metrics.StatementCountFilter;
+import com.attendance.metrics.StatementCountingDataSource;
+import com.attendance.service.AttendanceArchiveCatalog;
+import com.attendance.service.AttendanceStreamService;
+import com.attendance.service.IdempotencyKeyStore;
+import com.attendance.service.TieredAttendanceReader;
+import com.attendance.service.TodayAttendanceCache;
+import com.attendance.service.UserService;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+@Configuration
+public class MetricsConfig {
+
+  /**
+   * アプリケーションが使うDataSourceを、実行したSQL文を数えるDataSourceで包む
+   * (Hibernate・JdbcTemplate のどちらで発行した文も1リクエストあたりの文数に含める)
+   */
+  @Bean
+  public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        return "dataSource".equals(beanName) && bean instanceof DataSource dataSource
+            ? new StatementCountingDataSource(dataSource)
+            : bean;
+      }
+    };
+  }
+
+  /**
+   * 1リクエストあたりのSQL文の数を記録するフィルター(/api配下のみ)
+   */
+  @Bean
+  public FilterRegistrationBean<StatementCountFilter> statementCountFilter(MeterRegistry meterRegistry) {
+    FilterRegistrationBean<StatementCountFilter> registration =
+        new FilterRegistrationBean<>(new StatementCountFilter(meterRegistry));
+    registration.addUrlPatterns("/api/*");
+    return registration;
+  }
+
+  /**
+   * 今日の勤怠キャッシュの件数とヒット率
+   */
+  @Bean
+  public MeterBinder todayAttendanceCacheMetrics(TodayAttendanceCache todayAttendanceCache) {
+    return registry -> {
+      Gauge.builder("attendance.today_cache.size", todayAttendanceCache, cache -> cache.getStats().getSize())
+          .description("今日の勤怠キャッシュの件数")
+          .register(registry);
+      FunctionCounter.builder("attendance.today_cache.requests", todayAttendanceCache,
+          cache -> cache.getStats().getHits())
+          .description("今日の勤怠キャッシュの参照回数")
+          .tag("result", "hit")
+          .register(registry);
+      FunctionCounter.builder("attendance.today_cache.requests", todayAttendanceCache,
+          cache -> cache.getStats().getMisses())
+          .description("今日の勤怠キャッシュの参照回数")
+          .tag("result", "miss")
+          .register(registry);
+      FunctionCounter.builder("attendance.today_cache.evictions", todayAttendanceCache,
+          cache -> cache.getStats().getEvictions())
+          .description("今日の勤怠キャッシュの破棄件数")
+          .register(registry);
+    };
+  }
+
+  /**
+   * ユーザーの二次キャッシュの領域ごとの参照回数とヒット率
+   */
+  @Bean
+  public MeterBinder userCacheMetrics(UserService userService) {
+    return registry -> {
+      for (String region : UserCacheConfig.USER_REGIONS) {
+        FunctionCounter.builder("attendance.user_cache.requests", userService,
+            service -> service.getCacheStats(region).getHits())
+            .description("ユーザーの二次キャッシュの参照回数")
+            .tags("region", region, "result", "hit")
+            .register(registry);
+        FunctionCounter.builder("attendance.user_cache.requests", userService,
+            service -> service.getCacheStats(region).getMisses())
+            .description("ユーザーの二次キャッシュの参照回数")
+            .tags("region", region, "result", "miss")
+            .register(registry);
+        Gauge.builder("attendance.user_cache.hit_ratio", userService,
+            service -> service.getCacheStats(region).getHitRatio())
+            .description("ユーザーの二次キャッシュのヒット率(起動からの累計)")
+            .tag("region", region)
+            .register(registry);
+      }
+    };
+  }
+
+  /**
+   * Idempotency-Key の保持件数と、新規実行・再送・キーの使い回し・上限超過の回数
+   */
+  @Bean
+  public MeterBinder idempotencyKeyMetrics(IdempotencyKeyStore idempotencyKeyStore) {
+    return registry -> {
+      Gauge.builder("attendance.idempotency.size", idempotencyKeyStore, IdempotencyKeyStore::size)
+          .description("保持しているIdempotency-Keyの件数")
+          .register(registry);
+      registerIdempotencyCounter(registry, idempotencyKeyStore, "executed", IdempotencyKeyStore::getExecutions);
+      registerIdempotencyCounter(registry, idempotencyKeyStore, "replayed", IdempotencyKeyStore::getReplays);
+      registerIdempotencyCounter(registry, idempotencyKeyStore, "mismatched", IdempotencyKeyStore::getMismatches);
+      registerIdempotencyCounter(registry, idempotencyKeyStore, "bypassed", IdempotencyKeyStore::getBypasses);
+    };
+  }
+
+  /**
+   * Server-Sent Events の接続数(本人向け・管理者向け)
+   */
+  @Bean
+  public MeterBinder streamMetrics(AttendanceStreamService attendanceStreamService) {
+    return registry -> {
+      Gauge.builder("attendance.stream.connections", attendanceStreamService,
+          AttendanceStreamService::getUserConnections)
+          .description("Server-Sent Eventsの接続数")
+          .tag("type", "user")
+          .register(registry);
+      Gauge.builder("attendance.stream.connections", attendanceStreamService,
+          AttendanceStreamService::getAdminConnections)
+          .description("Server-Sent Eventsの接続数")
+          .tag("type", "admin")
+          .register(registry);
+    };
+  }
+
+  /**
+   * このインスタンスで読めるアーカイブの月数・行数・ファイルの合計サイズと、アーカイブから読んだ行数
+   */
+  @Bean
+  public MeterBinder archiveMetrics(AttendanceArchiveCatalog attendanceArchiveCatalog,
+      TieredAttendanceReader tieredAttendanceReader) {
+    return registry -> {
+      Gauge.builder("attendance.archive.months", attendanceArchiveCatalog,
+          catalog -> catalog.getSnapshot().months().size())
+          .description("アーカイブから読める月数")
+          .register(registry);
+      Gauge.builder("attendance.archive.rows", attendanceArchiveCatalog,
+          catalog -> catalog.getSnapshot().getRowCount())
+          .description("アーカイブの勤怠記録の件数")
+          .register(registry);
+      Gauge.builder("attendance.archive.size", attendanceArchiveCatalog,
+          catalog -> catalog.getSnapshot().getFileSize())
+          .description("アーカイブファイルの合計サイズ")
+          .baseUnit("bytes")
+          .register(registry);
+      FunctionCounter.builder("attendance.archive.rows_read", tieredAttendanceReader,
+          TieredAttendanceReader::getArchivedRowsRead)
+          .description("アーカイブから読んだ勤怠記録の件数")
+          .register(registry);
+    };
+  }
+
+  private static void registerIdempotencyCounter(MeterRegistry registry, IdempotencyKeyStore store, String result,
+      ToDoubleFunction<IdempotencyKeyStore> count) {
+    FunctionCounter.builder("attendance.idempotency.requests", store, count)
+        .description("Idempotency-Key付きの打刻の件数")
+        .tag("result", result)
+        .register(registry);
+  }
+}
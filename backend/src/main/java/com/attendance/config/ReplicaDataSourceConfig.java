@@ -0,0 +1,80 @@
+package com.attendance.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 読み取りレプリカへの振り分け(attendance.replica.enabled=true のときのみ)
+ * プライマリとレプリカはそれぞれ別のHikariプールを持つ
+ */
+@Configuration
+@ConditionalOnProperty(name = "attendance.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+  /**
+   * プライマリ(spring.datasource.* の設定をそのまま使う)
+   */
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+
+  /**
+   * レプリカ(attendance.replica.datasource.* にHikariの設定名で指定する)
+   */
+  @Bean
+  @ConfigurationProperties("attendance.replica.datasource")
+  public HikariDataSource replicaDataSource() {
+    return new HikariDataSource();
+  }
+
+  @Bean
+  public ReplicaHealthMonitor replicaHealthMonitor(
+      @Qualifier("primaryDataSource") DataSource primaryDataSource,
+      @Qualifier("replicaDataSource") DataSource replicaDataSource,
+      @Value("${attendance.replica.lag-query}") String lagQuery,
+      @Value("${attendance.replica.max-lag:10s}") Duration maxLag,
+      @Value("${attendance.replica.heartbeat:true}") boolean heartbeat,
+      MeterRegistry meterRegistry) {
+    ReplicaHealthMonitor monitor = new ReplicaHealthMonitor(
+        primaryDataSource, replicaDataSource, lagQuery, maxLag, heartbeat, meterRegistry);
+    // 起動直後から振り分けられるよう一度確認しておく
+    monitor.check();
+    return monitor;
+  }
+
+  /**
+   * アプリケーションが使うDataSource
+   */
+  @Bean
+  @Primary
+  public DataSource dataSource(
+      @Qualifier("primaryDataSource") DataSource primaryDataSource,
+      @Qualifier("replicaDataSource") DataSource replicaDataSource,
+      ReplicaHealthMonitor replicaHealthMonitor) {
+    ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicaHealthMonitor);
+    routing.setTargetDataSources(Map.<Object, Object>of(
+        ReplicaRoutingDataSource.PRIMARY, primaryDataSource,
+        ReplicaRoutingDataSource.REPLICA, replicaDataSource));
+    routing.setDefaultTargetDataSource(primaryDataSource);
+    routing.afterPropertiesSet();
+    return new LazyConnectionDataSourceProxy(routing);
+  }
+}
@@ -0,0 +1,96 @@
+package com.attendance.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * レプリカの死活と遅延を定期的に確認する
+ * 遅延は lag-query(遅延秒数を返すSQL)で測定する。既定ではプライマリが書き込む
+ * replication_heartbeat の時刻とレプリカの現在時刻の差を使う
+ */
+@Slf4j
+public class ReplicaHealthMonitor {
+
+  private static final String HEARTBEAT_SQL = "INSERT INTO replication_heartbeat (id, beat_at) "
+      + "VALUES (1, CURRENT_TIMESTAMP(6)) ON DUPLICATE KEY UPDATE beat_at = VALUES(beat_at)";
+
+  private final JdbcTemplate primaryJdbcTemplate;
+  private final JdbcTemplate replicaJdbcTemplate;
+  private final String lagQuery;
+  private final Duration maxLag;
+  private final boolean heartbeat;
+
+  private volatile boolean available;
+  private volatile double lagSeconds = Double.NaN;
+
+  public ReplicaHealthMonitor(DataSource primaryDataSource, DataSource replicaDataSource, String lagQuery,
+      Duration maxLag, boolean heartbeat, MeterRegistry meterRegistry) {
+    this.primaryJdbcTemplate = new JdbcTemplate(primaryDataSource);
+    this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+    this.replicaJdbcTemplate.setQueryTimeout(2);
+    this.lagQuery = lagQuery;
+    this.maxLag = maxLag;
+    this.heartbeat = heartbeat;
+
+    Gauge.builder("attendance.replica.available", this, monitor -> monitor.available ? 1 : 0)
+        .description("レプリカへの振り分けが有効か")
+        .register(meterRegistry);
+    Gauge.builder("attendance.replica.lag", this, monitor -> monitor.lagSeconds)
+        .description("レプリカの遅延")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+  }
+
+  public boolean isAvailable() {
+    return available;
+  }
+
+  /**
+   * プライマリにハートビートを書き込む
+   */
+  @Scheduled(fixedDelayString = "${attendance.replica.check-interval:5000}")
+  public void writeHeartbeat() {
+    if (!heartbeat) {
+      return;
+    }
+    try {
+      primaryJdbcTemplate.update(HEARTBEAT_SQL);
+    } catch (RuntimeException e) {
+      log.warn("ハートビートの書き込みに失敗しました: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * レプリカの遅延を測定し、振り分けの可否を更新する
+   */
+  @Scheduled(fixedDelayString = "${attendance.replica.check-interval:5000}")
+  public void check() {
+    boolean nowAvailable;
+    try {
+      Double lag = replicaJdbcTemplate.queryForObject(lagQuery, Double.class);
+      lagSeconds = lag == null ? Double.NaN : lag;
+      nowAvailable = lag != null && lag <= maxLag.toSeconds();
+    } catch (RuntimeException e) {
+      lagSeconds = Double.NaN;
+      nowAvailable = false;
+      if (available) {
+        log.warn("レプリカに接続できません: {}", e.getMessage());
+      }
+    }
+
+    if (nowAvailable != available) {
+      log.info(nowAvailable
+          ? "レプリカへの読み取りを再開します (遅延 {}秒)"
+          : "レプリカの遅延が上限を超えたため読み取りをプライマリに切り替えます (遅延 {}秒)", lagSeconds);
+    }
+    available = nowAvailable;
+  }
+}
@@ -0,0 +1,29 @@
+package com.attendance.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 読み取り専用トランザクションをレプリカへ、それ以外をプライマリへ振り分けるDataSource
+ * トランザクション開始後に接続を取得させるため LazyConnectionDataSourceProxy で包んで使う
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+  static final String PRIMARY = "primary";
+  static final String REPLICA = "replica";
+
+  private final ReplicaHealthMonitor replicaHealthMonitor;
+
+  public ReplicaRoutingDataSource(ReplicaHealthMonitor replicaHealthMonitor) {
+    this.replicaHealthMonitor = replicaHealthMonitor;
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    // レプリカが停止中または遅延が上限を超えている場合はプライマリで読む
+    if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaHealthMonitor.isAvailable()) {
+      return REPLICA;
+    }
+    return PRIMARY;
+  }
+}
@@ -0,0 +1,31 @@
+package com.attendance.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class StreamConfig {
+
+  @Value("${attendance.stream.send-threads:2}")
+  private int sendThreads;
+
+  @Value("${attendance.stream.queue-capacity:10000}")
+  private int queueCapacity;
+
+  /**
+   * Server-Sent Events の送信専用のワーカー(打刻のリクエストスレッドで送信しない)
+   */
+  @Bean
+  public ThreadPoolTaskExecutor streamExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(sendThreads);
+    executor.setMaxPoolSize(sendThreads);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("stream-");
+    executor.setWaitForTasksToCompleteOnShutdown(false);
+    executor.initialize();
+    return executor;
+  }
+}
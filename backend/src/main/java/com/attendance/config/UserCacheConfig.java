@@ -0,0 +1,97 @@
+package com.attendance.config;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+/**
+ * Hibernateの二次キャッシュ(Caffeine)
+ * ユーザーのエンティティとユーザー名・メールアドレスでの検索結果をインスタンスのメモリに保持する
+ * UserRepository 経由の書き込みはHibernateが無効化する。JDBCで users を直接更新する場合は
+ * エンティティに対応付けた列を変更しないこと(change_version は対応付けていないため対象外)
+ */
+@Configuration
+public class UserCacheConfig {
+
+  /** ユーザーのエンティティ */
+  public static final String USER_REGION = "user";
+
+  /** ユーザー名・メールアドレスでの検索結果(ユーザーIDのみ保持し、エンティティは USER_REGION から読む) */
+  public static final String USER_LOOKUP_REGION = "user-lookup";
+
+  /** 統計情報を公開する領域 */
+  public static final List<String> USER_REGIONS = List.of(USER_REGION, USER_LOOKUP_REGION);
+
+  /** 領域を指定しない検索結果(Hibernateが起動時に必ず作成する) */
+  private static final String DEFAULT_QUERY_REGION = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+
+  /** テーブルごとの最終更新時刻(検索結果の無効化に使うため破棄してはいけない) */
+  private static final String UPDATE_TIMESTAMPS_REGION = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+
+  private static final URI CACHE_MANAGER_URI = URI.create("attendance-hibernate-cache");
+
+  /**
+   * 各領域を作成したキャッシュマネージャー
+   * 件数の上限と有効期限はDBを直接変更した場合の反映までの時間も兼ねる
+   */
+  @Bean(destroyMethod = "close")
+  public CacheManager hibernateCacheManager(
+      @Value("${attendance.user-cache.max-entries:100000}") long maxEntries,
+      @Value("${attendance.user-cache.ttl:1h}") Duration ttl) {
+    CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+    CacheManager cacheManager = provider.getCacheManager(CACHE_MANAGER_URI, UserCacheConfig.class.getClassLoader());
+
+    createCache(cacheManager, USER_REGION, OptionalLong.of(maxEntries), OptionalLong.of(ttl.toNanos()));
+    createCache(cacheManager, USER_LOOKUP_REGION, OptionalLong.of(maxEntries), OptionalLong.of(ttl.toNanos()));
+    createCache(cacheManager, DEFAULT_QUERY_REGION, OptionalLong.of(maxEntries), OptionalLong.of(ttl.toNanos()));
+    createCache(cacheManager, UPDATE_TIMESTAMPS_REGION, OptionalLong.empty(), OptionalLong.empty());
+    return cacheManager;
+  }
+
+  /**
+   * 二次キャッシュと検索結果のキャッシュを有効にする
+   * @Cacheable を付けたエンティティのみが対象(既定の ENABLE_SELECTIVE)
+   */
+  @Bean
+  public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+    return properties -> {
+      properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+      properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+      properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+      properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+      // 上で作成していない領域を暗黙に(上限なしで)作らない
+      properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+    };
+  }
+
+  private static void createCache(CacheManager cacheManager, String name, OptionalLong maximumSize,
+      OptionalLong expireAfterWriteNanos) {
+    // 前のアプリケーションコンテキストが残した領域は作り直す(ベンチマークで繰り返し起動する場合)
+    if (cacheManager.getCache(name) != null) {
+      cacheManager.destroyCache(name);
+    }
+    CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+    // Hibernateのキャッシュエントリは不変のため、格納時のシリアライズによる複製を行わない
+    configuration.setStoreByValue(false);
+    configuration.setStatisticsEnabled(true);
+    configuration.setMaximumSize(maximumSize);
+    configuration.setExpireAfterWrite(expireAfterWriteNanos);
+    cacheManager.createCache(name, configuration);
+  }
+}
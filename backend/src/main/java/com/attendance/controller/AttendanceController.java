@@ -1,10 +1,22 @@
 package com.attendance.controller;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Locale;
 
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -12,14 +24,38 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.attendance.config.BinaryEncodingConfig;
+import com.attendance.dto.ArchiveMonthResponse;
+import com.attendance.dto.AttendanceBatchResponse;
+import com.attendance.dto.AttendanceErrorResponse;
 import com.attendance.dto.AttendanceRequest;
 import com.attendance.dto.AttendanceResponse;
+import com.attendance.dto.CacheStatsResponse;
+import com.attendance.dto.ChangeFeedPage;
+import com.attendance.dto.CursorPage;
+import com.attendance.dto.ImportResult;
+import com.attendance.dto.MonthlySummaryResponse;
+import com.attendance.dto.PayrollResult;
+import com.attendance.importer.ImportFormat;
+import com.attendance.service.AttendanceArchiveService;
+import com.attendance.service.AttendanceBatchService;
+import com.attendance.service.AttendanceChangeFeedService;
+import com.attendance.service.AttendanceHistory;
+import com.attendance.service.AttendanceImportService;
+import com.attendance.service.AttendanceResult;
 import com.attendance.service.AttendanceService;
-import com.attendance.service.ExcelExportService;
+import com.attendance.service.AttendanceSummaryService;
+import com.attendance.service.IdempotencyKeyStore;
+import com.attendance.service.PayrollService;
+import com.attendance.service.RecordStreamExportService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -29,18 +65,56 @@ import lombok.RequiredArgsConstructor;
 @CrossOrigin
 public class AttendanceController {
 
+  private static final String NDJSON_VALUE = "application/x-ndjson";
+  private static final String CSV_VALUE = "text/csv";
+  private static final MediaType CSV_TYPE = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
   private final AttendanceService attendanceService;
-  private final ExcelExportService excelExportService;
+  private final AttendanceBatchService attendanceBatchService;
+  private final AttendanceSummaryService attendanceSummaryService;
+  private final AttendanceChangeFeedService attendanceChangeFeedService;
+  private final PayrollService payrollService;
+  private final AttendanceImportService attendanceImportService;
+  private final RecordStreamExportService recordStreamExportService;
+  private final AttendanceArchiveService attendanceArchiveService;
+  private final Clock clock;
 
   /**
    * 出勤・退勤を記録
+   * Idempotency-Key を指定した再送には最初の結果と同じ応答を返す
    */
   @PostMapping("/record")
-  public ResponseEntity<AttendanceResponse> recordAttendance(@RequestBody AttendanceRequest request) {
+  public ResponseEntity<?> recordAttendance(
+      @RequestBody AttendanceRequest request,
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+
+    if (idempotencyKey != null
+        && (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyKeyStore.MAX_KEY_LENGTH)) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    AttendanceResult result = attendanceService.recordAttendance(request, idempotencyKey);
+    if (result.isSuccess()) {
+      return ResponseEntity.ok(result.getResponse());
+    }
+
+    HttpStatus status = switch (result.getError()) {
+      case CONCURRENT_UPDATE -> HttpStatus.CONFLICT;
+      case IDEMPOTENCY_KEY_REUSED -> HttpStatus.UNPROCESSABLE_ENTITY;
+      default -> HttpStatus.BAD_REQUEST;
+    };
+    return ResponseEntity.status(status).body(AttendanceErrorResponse.of(result.getError()));
+  }
+
+  /**
+   * 打刻端末からの打刻をまとめて記録
+   */
+  @PostMapping("/records:batch")
+  public ResponseEntity<AttendanceBatchResponse> recordAttendanceBatch(
+      @RequestBody List<AttendanceRequest> requests) {
     try {
-      AttendanceResponse response = attendanceService.recordAttendance(request);
-      return ResponseEntity.ok(response);
-    } catch (RuntimeException e) {
+      return ResponseEntity.ok(attendanceBatchService.recordBatch(requests));
+    } catch (IllegalArgumentException e) {
       return ResponseEntity.badRequest().build();
     }
   }
@@ -49,21 +123,79 @@ public class AttendanceController {
    * ユーザーの勤怠記録を取得
    */
   @GetMapping("/user/{userId}")
-  public ResponseEntity<List<AttendanceResponse>> getUserAttendanceRecords(@PathVariable Long userId) {
-    List<AttendanceResponse> records = attendanceService.getUserAttendanceRecords(userId);
-    return ResponseEntity.ok(records);
+  public ResponseEntity<List<AttendanceResponse>> getUserAttendanceRecords(
+      @PathVariable Long userId,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+      ServletWebRequest webRequest) {
+
+    // 変更バージョンが一致すれば勤怠記録を読まずに304を返す
+    String suffix = varyByAccept(webRequest, accept);
+    Long version = attendanceService.getChangeVersion(userId);
+    String etag = version == null ? null : "\"" + userId + "-" + version + suffix + "\"";
+    if (etag != null && webRequest.checkNotModified(etag)) {
+      return null;
+    }
+
+    // 内容と同じ時点のバージョンでETagを付け直す(レプリカから読んだ場合は古いことがある)
+    AttendanceHistory history = attendanceService.getUserAttendanceHistory(userId);
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.noCache())
+        .eTag("\"" + userId + "-" + history.getChangeVersion() + suffix + "\"")
+        .body(history.getRecords());
+  }
+
+  /**
+   * ユーザーの勤怠記録をページ単位で取得
+   */
+  @GetMapping("/user/{userId}/page")
+  public ResponseEntity<CursorPage<AttendanceResponse>> getUserAttendancePage(
+      @PathVariable Long userId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit) {
+
+    try {
+      return ResponseEntity.ok(attendanceService.getUserAttendancePage(userId, cursor, limit));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();
+    }
   }
 
   /**
    * 今日の勤怠状況を取得
    */
   @GetMapping("/today/{userId}")
-  public ResponseEntity<AttendanceResponse> getTodayAttendance(@PathVariable Long userId) {
+  public ResponseEntity<AttendanceResponse> getTodayAttendance(
+      @PathVariable Long userId,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+      ServletWebRequest webRequest) {
+    // 日付が変わると内容が変わるためETagに日付を含める
+    String suffix = varyByAccept(webRequest, accept);
+    Long version = attendanceService.getChangeVersion(userId);
+    String etag = version == null ? null
+        : "\"" + userId + "-" + version + "-" + LocalDate.now(clock) + suffix + "\"";
+    if (etag != null && webRequest.checkNotModified(etag)) {
+      return null;
+    }
+
     AttendanceResponse response = attendanceService.getTodayAttendance(userId);
     if (response == null) {
-      return ResponseEntity.noContent().build();
+      return ResponseEntity.noContent()
+          .cacheControl(CacheControl.noCache())
+          .eTag(etag)
+          .build();
     }
-    return ResponseEntity.ok(response);
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.noCache())
+        .eTag(etag)
+        .body(response);
+  }
+
+  /**
+   * 今日の勤怠状況キャッシュの統計情報を取得
+   */
+  @GetMapping("/today-cache/stats")
+  public ResponseEntity<CacheStatsResponse> getTodayCacheStats() {
+    return ResponseEntity.ok(attendanceService.getTodayCacheStats());
   }
 
   /**
@@ -79,29 +211,189 @@ public class AttendanceController {
   }
 
   /**
-   * 勤怠記録をExcelでエクスポート(管理者用)
+   * 期間指定で勤怠記録をNDJSONで逐次取得(給与・BI連携用)
+   */
+  @GetMapping(value = "/range", produces = NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamAttendanceByDateRangeAsNdjson(
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+        .body(outputStream -> recordStreamExportService.writeNdjson(startDate, endDate, outputStream));
+  }
+
+  /**
+   * 期間指定で勤怠記録をCSVで逐次取得(給与・BI連携用)
    */
-  @GetMapping("/export")
-  public ResponseEntity<byte[]> exportToExcel(
+  @GetMapping(value = "/range", produces = CSV_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamAttendanceByDateRangeAsCsv(
       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
 
+    return ResponseEntity.ok()
+        .contentType(CSV_TYPE)
+        .body(outputStream -> recordStreamExportService.writeCsv(startDate, endDate, outputStream));
+  }
+
+  /**
+   * 期間指定で勤怠記録をページ単位で取得(管理者用)
+   */
+  @GetMapping("/range/page")
+  public ResponseEntity<CursorPage<AttendanceResponse>> getAttendancePageByDateRange(
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit) {
+
     try {
-      byte[] excelData = excelExportService.exportToExcel(startDate, endDate);
+      return ResponseEntity.ok(attendanceService.getAttendancePageByDateRange(startDate, endDate, cursor, limit));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();
+    }
+  }
 
-      String filename = String.format("attendance_%s_to_%s.xlsx",
-          startDate.format(DateTimeFormatter.ofPattern("yyyyMMdd")),
-          endDate.format(DateTimeFormatter.ofPattern("yyyyMMdd")));
+  /**
+   * ウォーターマーク以降に追加・更新された勤怠記録を取得(下流システムの差分同期用)
+   */
+  @GetMapping("/changes")
+  public ResponseEntity<ChangeFeedPage> getChanges(
+      @RequestParam(required = false) String since,
+      @RequestParam(required = false) Integer limit) {
 
-      org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-      headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-      headers.setContentDispositionFormData("attachment", filename);
+    try {
+      return ResponseEntity.ok(attendanceChangeFeedService.getChanges(since, limit));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();
+    }
+  }
 
-      return ResponseEntity.ok()
-          .headers(headers)
-          .body(excelData);
-    } catch (Exception e) {
-      return ResponseEntity.internalServerError().build();
+  /**
+   * 他システムの勤怠記録(xlsx・CSV)を一括で取り込む(管理者用)
+   * 列はExcel出力と同じ。除外した行は応答の errors に含める
+   */
+  @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  public ResponseEntity<ImportResult> importAttendance(@RequestParam("file") MultipartFile file) throws IOException {
+    ImportFormat format;
+    try {
+      format = ImportFormat.fromFilename(file.getOriginalFilename());
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    // xlsxはファイルから開かないと全体がメモリに読み込まれるため、一時ファイルに書き出してから読む
+    Path tempFile = Files.createTempFile("attendance-import-", "." + format.name().toLowerCase(Locale.ROOT));
+    try {
+      file.transferTo(tempFile);
+      return ResponseEntity.ok(attendanceImportService.importFile(tempFile, format, error -> { }));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  /**
+   * 期間内のユーザーごとの残業・深夜・遅刻・年休を計算(管理者用)
+   */
+  @GetMapping("/payroll")
+  public ResponseEntity<List<PayrollResult>> calculatePayroll(
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+
+    return ResponseEntity.ok(payrollService.calculate(startDate, endDate));
+  }
+
+  /**
+   * 月次の勤務時間集計を取得(管理者用)
+   */
+  @GetMapping("/summary")
+  public ResponseEntity<List<MonthlySummaryResponse>> getMonthlySummary(@RequestParam String month) {
+    YearMonth yearMonth;
+    try {
+      yearMonth = YearMonth.parse(month);
+    } catch (DateTimeParseException e) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(attendanceSummaryService.getMonthlySummary(yearMonth));
+  }
+
+  /**
+   * 勤務時間集計を勤怠記録から作り直す(管理者用)
+   */
+  @PostMapping("/summary/rebuild")
+  public ResponseEntity<Void> rebuildSummary() {
+    attendanceSummaryService.rebuild();
+    return ResponseEntity.noContent().build();
+  }
+
+  /**
+   * アーカイブ済みの月の一覧(管理者用)
+   */
+  @GetMapping("/archive")
+  public ResponseEntity<List<ArchiveMonthResponse>> getArchiveStatus() {
+    return ResponseEntity.ok(attendanceArchiveService.getStatus());
+  }
+
+  /**
+   * 締めた月のアーカイブを実行する(管理者用、実行中の場合は409)
+   */
+  @PostMapping("/archive/run")
+  public ResponseEntity<List<ArchiveMonthResponse>> runArchive() {
+    if (attendanceArchiveService.run() == null) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+    return ResponseEntity.ok(attendanceArchiveService.getStatus());
+  }
+
+  /**
+   * 勤怠記録をNDJSONでエクスポート(管理者用)
+   */
+  @GetMapping(value = "/export", produces = NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportToNdjson(
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.parseMediaType(NDJSON_VALUE));
+    headers.setContentDispositionFormData("attachment", exportFilename(startDate, endDate, "ndjson"));
+
+    return ResponseEntity.ok()
+        .headers(headers)
+        .body(outputStream -> recordStreamExportService.writeNdjson(startDate, endDate, outputStream));
+  }
+
+  /**
+   * 勤怠記録をCSVでエクスポート(管理者用)
+   */
+  @GetMapping(value = "/export", produces = CSV_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportToCsv(
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(CSV_TYPE);
+    headers.setContentDispositionFormData("attachment", exportFilename(startDate, endDate, "csv"));
+
+    return ResponseEntity.ok()
+        .headers(headers)
+        .body(outputStream -> recordStreamExportService.writeCsv(startDate, endDate, outputStream));
+  }
+
+  private static String exportFilename(LocalDateTime startDate, LocalDateTime endDate, String extension) {
+    return String.format("attendance_%s_to_%s.%s",
+        startDate.format(DateTimeFormatter.ofPattern("yyyyMMdd")),
+        endDate.format(DateTimeFormatter.ofPattern("yyyyMMdd")),
+        extension);
+  }
+
+  /**
+   * Acceptで表現が変わることを304を含む応答に示し、ETagの接尾辞を返す
+   */
+  private static String varyByAccept(ServletWebRequest webRequest, String accept) {
+    if (webRequest.getResponse() != null) {
+      webRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
     }
+    return BinaryEncodingConfig.etagSuffix(accept);
   }
 }
@@ -0,0 +1,69 @@
+package com.attendance.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.attendance.dto.PresenceBoard;
+import com.attendance.service.AttendanceService;
+import com.attendance.service.AttendanceStreamService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/attendance")
+@RequiredArgsConstructor
+@CrossOrigin
+public class AttendanceStreamController {
+
+  private final AttendanceService attendanceService;
+  private final AttendanceStreamService attendanceStreamService;
+
+  /**
+   * 今日の勤怠状況を購読(Server-Sent Events)
+   */
+  @GetMapping(value = "/today/{userId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> streamTodayAttendance(@PathVariable Long userId) {
+    if (attendanceService.getChangeVersion(userId) == null) {
+      return ResponseEntity.notFound().build();
+    }
+    return stream(attendanceStreamService.subscribeToday(userId));
+  }
+
+  /**
+   * 在席状況ボードを取得(管理者用)
+   */
+  @GetMapping("/presence")
+  public ResponseEntity<PresenceBoard> getPresence() {
+    return ResponseEntity.ok(attendanceStreamService.getPresenceBoard());
+  }
+
+  /**
+   * 在席状況ボードを購読(管理者用、Server-Sent Events)
+   */
+  @GetMapping(value = "/presence/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> streamPresence() {
+    return stream(attendanceStreamService.subscribePresence());
+  }
+
+  /**
+   * 接続数が上限に達している場合は503(クライアントは再接続を待つ)
+   */
+  private static ResponseEntity<SseEmitter> stream(SseEmitter emitter) {
+    if (emitter == null) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+    // プロキシでのバッファリングを止める
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.noCache())
+        .header("X-Accel-Buffering", "no")
+        .body(emitter);
+  }
+}
@@ -0,0 +1,118 @@
+package com.attendance.controller;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.attendance.dto.ExportJobResponse;
+import com.attendance.service.ExportJob;
+import com.attendance.service.ExportJobService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/attendance/export")
+@RequiredArgsConstructor
+@CrossOrigin
+public class ExportJobController {
+
+  private final ExportJobService exportJobService;
+
+  /**
+   * エクスポートジョブを登録(管理者用、payroll の場合は給与計算のシートを含める)
+   */
+  @PostMapping("/jobs")
+  public ResponseEntity<ExportJobResponse> createJob(
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+      @RequestParam(defaultValue = "false") boolean payroll) {
+
+    ExportJob job;
+    try {
+      job = exportJobService.submit(startDate, endDate, payroll);
+    } catch (TaskRejectedException | RejectedExecutionException e) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    return ResponseEntity.accepted()
+        .location(URI.create("/api/attendance/export/jobs/" + job.getJobId()))
+        .body(toResponse(job));
+  }
+
+  /**
+   * Excelエクスポート(管理者用、旧API)
+   * ワークブックはリクエストのスレッドで生成せず、ジョブとして登録して202を返す
+   * (NDJSON・CSVは AttendanceController が逐次出力する)
+   */
+  @GetMapping
+  public ResponseEntity<ExportJobResponse> exportToExcel(
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+      @RequestParam(defaultValue = "false") boolean payroll) {
+    return createJob(startDate, endDate, payroll);
+  }
+
+  /**
+   * エクスポートジョブの状態を取得
+   */
+  @GetMapping("/jobs/{jobId}")
+  public ResponseEntity<ExportJobResponse> getJob(@PathVariable String jobId) {
+    ExportJob job = exportJobService.getJob(jobId);
+    if (job == null) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.ok(toResponse(job));
+  }
+
+  /**
+   * 完了したエクスポートファイルをダウンロード
+   */
+  @GetMapping("/jobs/{jobId}/file")
+  public ResponseEntity<Resource> downloadFile(@PathVariable String jobId) {
+    ExportJob job = exportJobService.getJob(jobId);
+    if (job == null) {
+      return ResponseEntity.notFound().build();
+    }
+    if (job.getStatus() != ExportJob.Status.DONE) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    String filename = String.format("attendance_%s_to_%s.xlsx",
+        job.getStartDate().format(DateTimeFormatter.ofPattern("yyyyMMdd")),
+        job.getEndDate().format(DateTimeFormatter.ofPattern("yyyyMMdd")));
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+    headers.setContentDispositionFormData("attachment", filename);
+
+    // ファイルをResourceとして返し、Content-Lengthの設定とファイルからの転送をSpringに任せる(メモリ上にバッファしない)
+    return ResponseEntity.ok()
+        .headers(headers)
+        .body(new FileSystemResource(job.getFile()));
+  }
+
+  private ExportJobResponse toResponse(ExportJob job) {
+    String downloadUrl = job.getStatus() == ExportJob.Status.DONE
+        ? "/api/attendance/export/jobs/" + job.getJobId() + "/file"
+        : null;
+    return new ExportJobResponse(job.getJobId(), job.getStatus().name(),
+        job.getStartDate(), job.getEndDate(), downloadUrl, job.getError());
+  }
+}
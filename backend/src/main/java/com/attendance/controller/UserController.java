@@ -9,10 +9,14 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.attendance.dto.CacheRegionStatsResponse;
+import com.attendance.dto.CursorPage;
+import com.attendance.dto.UserSummary;
 import com.attendance.model.User;
-import com.attendance.repository.UserRepository;
+import com.attendance.service.UserService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -22,23 +26,46 @@ import lombok.RequiredArgsConstructor;
 @CrossOrigin
 public class UserController {
 
-  private final UserRepository userRepository;
+  private final UserService userService;
 
   /**
    * 全ユーザーを取得
    */
   @GetMapping
-  public ResponseEntity<List<User>> getAllUsers() {
-    List<User> users = userRepository.findAll();
-    return ResponseEntity.ok(users);
+  public ResponseEntity<List<UserSummary>> getAllUsers() {
+    return ResponseEntity.ok(userService.getAllUsers());
+  }
+
+  /**
+   * ユーザー名の前方一致でユーザーをページ単位で取得
+   */
+  @GetMapping("/page")
+  public ResponseEntity<CursorPage<UserSummary>> getUserPage(
+      @RequestParam(required = false) String prefix,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit) {
+
+    try {
+      return ResponseEntity.ok(userService.getUserPage(prefix, cursor, limit));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();
+    }
+  }
+
+  /**
+   * ユーザーの二次キャッシュの統計情報を取得
+   */
+  @GetMapping("/cache/stats")
+  public ResponseEntity<List<CacheRegionStatsResponse>> getCacheStats() {
+    return ResponseEntity.ok(userService.getCacheStats());
   }
 
   /**
    * ユーザーIDでユーザーを取得
    */
   @GetMapping("/{userId}")
-  public ResponseEntity<User> getUserById(@PathVariable Long userId) {
-    return userRepository.findById(userId)
+  public ResponseEntity<UserSummary> getUserById(@PathVariable Long userId) {
+    return userService.getUser(userId)
         .map(ResponseEntity::ok)
         .orElse(ResponseEntity.notFound().build());
   }
@@ -47,8 +74,7 @@ public class UserController {
    * ユーザーを作成
    */
   @PostMapping
-  public ResponseEntity<User> createUser(@RequestBody User user) {
-    User savedUser = userRepository.save(user);
-    return ResponseEntity.ok(savedUser);
+  public ResponseEntity<UserSummary> createUser(@RequestBody User user) {
+    return ResponseEntity.ok(userService.createUser(user));
   }
 }
@@ -0,0 +1,19 @@
+package com.attendance.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveMonthResponse {
+  private String month; // yyyy-MM
+  private int rowCount;
+  private long fileSize; // アーカイブファイルのバイト数
+  private LocalDateTime archivedAt;
+  private LocalDateTime purgedAt; // MySQLから削除した日時(未削除はnull)
+  private boolean available; // このインスタンスでファイルから読めるか
+}
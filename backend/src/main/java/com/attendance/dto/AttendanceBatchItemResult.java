@@ -0,0 +1,16 @@
+package com.attendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceBatchItemResult {
+  private int index; // リクエスト内の位置
+  private boolean success;
+  private AttendanceErrorCode errorCode;
+  private String error;
+  private AttendanceResponse record;
+}
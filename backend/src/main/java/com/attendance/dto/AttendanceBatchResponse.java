@@ -0,0 +1,16 @@
+package com.attendance.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceBatchResponse {
+  private int accepted;
+  private int rejected;
+  private List<AttendanceBatchItemResult> results; // リクエストと同じ順序
+}
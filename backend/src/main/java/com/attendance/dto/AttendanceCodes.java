@@ -0,0 +1,37 @@
+package com.attendance.dto;
+
+/**
+ * バイナリ形式(Smile/CBOR)で勤怠区分・ステータスの代わりに送る数値コード
+ * 未知の値は -1
+ */
+public final class AttendanceCodes {
+
+  private static final String[] TYPES = { "WORK", "ANNUAL_LEAVE" };
+  private static final String[] STATUSES = { "IN_PROGRESS", "COMPLETED", "ANNUAL_LEAVE" };
+
+  private AttendanceCodes() {
+  }
+
+  /**
+   * 勤怠区分のコード(WORK=0, ANNUAL_LEAVE=1)
+   */
+  public static int typeCode(String attendanceType) {
+    return indexOf(TYPES, attendanceType);
+  }
+
+  /**
+   * ステータスのコード(IN_PROGRESS=0, COMPLETED=1, ANNUAL_LEAVE=2)
+   */
+  public static int statusCode(String status) {
+    return indexOf(STATUSES, status);
+  }
+
+  private static int indexOf(String[] values, String value) {
+    for (int i = 0; i < values.length; i++) {
+      if (values[i].equals(value)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,27 @@
+package com.attendance.dto;
+
+/**
+ * 打刻を受け付けられなかった理由
+ */
+public enum AttendanceErrorCode {
+  USER_NOT_FOUND("ユーザーが見つかりません"),
+  ALREADY_CHECKED_IN("既に出勤記録が存在します"),
+  CHECK_IN_NOT_FOUND("出勤記録が見つかりません"),
+  ALREADY_CHECKED_OUT("既に退勤記録が存在します"),
+  ALREADY_RECORDED("既に本日の勤怠記録が存在します"),
+  INVALID_TYPE("無効なタイプです"),
+  INVALID_TIMESTAMP("打刻時刻が不正です"),
+  CONCURRENT_UPDATE("他の操作と競合しました。再度お試しください"),
+  IDEMPOTENCY_KEY_REUSED("同じIdempotency-Keyが別の内容の打刻に使われています"),
+  MONTH_ARCHIVED("アーカイブ済みの月の勤怠記録は変更できません");
+
+  private final String message;
+
+  AttendanceErrorCode(String message) {
+    this.message = message;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+}
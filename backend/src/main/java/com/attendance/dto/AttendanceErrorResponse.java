@@ -0,0 +1,17 @@
+package com.attendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceErrorResponse {
+  private AttendanceErrorCode code;
+  private String message;
+
+  public static AttendanceErrorResponse of(AttendanceErrorCode code) {
+    return new AttendanceErrorResponse(code, code.getMessage());
+  }
+}
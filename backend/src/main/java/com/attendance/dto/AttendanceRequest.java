@@ -1,5 +1,7 @@
 package com.attendance.dto;
 
+import java.time.LocalDateTime;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,4 +12,5 @@ import lombok.NoArgsConstructor;
 public class AttendanceRequest {
   private Long userId;
   private String type; // CHECK_IN, CHECK_OUT, ANNUAL_LEAVE
+  private LocalDateTime timestamp; // 打刻時刻(バッチ取込のみ使用、省略時は受信時刻)
 }
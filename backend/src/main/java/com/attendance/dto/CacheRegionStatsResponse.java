@@ -0,0 +1,19 @@
+package com.attendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 二次キャッシュの領域ごとの統計情報
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheRegionStatsResponse {
+  private String region;
+  private long hits;
+  private long misses;
+  private long puts;
+  private double hitRatio;
+}
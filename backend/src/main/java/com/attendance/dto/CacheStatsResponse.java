@@ -0,0 +1,16 @@
+package com.attendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsResponse {
+  private long size;
+  private long hits;
+  private long misses;
+  private long evictions;
+  private double hitRatio;
+}
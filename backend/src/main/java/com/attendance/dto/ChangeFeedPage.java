@@ -0,0 +1,16 @@
+package com.attendance.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedPage {
+  private List<AttendanceChange> items;
+  private String watermark; // 次回の since に渡す値(変更がない場合も返す)
+  private boolean hasMore; // trueの場合は続けて取得できる
+}
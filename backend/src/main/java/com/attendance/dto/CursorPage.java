@@ -0,0 +1,15 @@
+package com.attendance.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+  private List<T> items;
+  private String nextCursor; // 次ページがない場合はnull
+}
@@ -0,0 +1,19 @@
+package com.attendance.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobResponse {
+  private String jobId;
+  private String status; // PENDING, RUNNING, DONE, FAILED
+  private LocalDateTime startDate;
+  private LocalDateTime endDate;
+  private String downloadUrl; // DONEの場合のみ
+  private String error;
+}
@@ -0,0 +1,18 @@
+package com.attendance.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResult {
+  private long totalRows; // ヘッダー行を除く
+  private long imported;
+  private long rejected;
+  private List<ImportRowError> errors; // 先頭から上限件数まで
+  private boolean errorsTruncated; // 上限を超えたエラーを省略した場合true
+}
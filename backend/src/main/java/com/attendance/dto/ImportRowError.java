@@ -0,0 +1,14 @@
+package com.attendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportRowError {
+  private long rowNumber; // ファイル上の行番号(ヘッダー行が1)
+  private String username;
+  private String message;
+}
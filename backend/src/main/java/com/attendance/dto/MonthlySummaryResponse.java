@@ -0,0 +1,17 @@
+package com.attendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlySummaryResponse {
+  private Long userId;
+  private String username;
+  private String month; // yyyy-MM
+  private long workedMinutes;
+  private int leaveDays;
+  private int openSessions; // 退勤が記録されていない勤務
+}
@@ -0,0 +1,24 @@
+package com.attendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayrollResult {
+  private Long userId;
+  private String username;
+  private int workDays;
+  private long workedMinutes; // 休憩を差し引いた実労働時間
+  private long overtimeMinutes; // 所定労働時間を超えた時間(日ごとの合計)
+  private long excessOvertimeMinutes; // 期間内の残業のうち割増対象の時間
+  private long nightMinutes; // 深夜時間帯の労働時間
+  private int lateCount;
+  private long lateMinutes;
+  private int leaveDays; // 期間内の年休日数
+  private long leaveDaysYearToDate; // 年度初めから期間末までの年休日数
+  private long leaveBalance; // 年休の残日数
+  private int openSessions; // 退勤が記録されていない勤務
+}
@@ -0,0 +1,20 @@
+package com.attendance.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 在席状況ボードの全体(接続時と日付の切り替わり時に送る)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceBoard {
+  private LocalDate date;
+  private PresenceCounts counts;
+  private List<PresenceEntry> entries;
+}
@@ -0,0 +1,17 @@
+package com.attendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 在席状況ごとの人数
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceCounts {
+  private int checkedIn;
+  private int checkedOut;
+  private int onLeave;
+}
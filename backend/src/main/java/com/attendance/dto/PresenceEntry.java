@@ -0,0 +1,26 @@
+package com.attendance.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 在席状況ボードの1ユーザー分
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceEntry {
+  private Long userId;
+  private String username;
+  private PresenceStatus status;
+  private LocalDateTime checkInTime;
+  private LocalDateTime checkOutTime;
+
+  public static PresenceEntry of(AttendanceResponse response) {
+    return new PresenceEntry(response.getUserId(), response.getUsername(), PresenceStatus.of(response),
+        response.getCheckInTime(), response.getCheckOutTime());
+  }
+}
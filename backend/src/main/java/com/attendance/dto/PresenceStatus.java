@@ -0,0 +1,20 @@
+package com.attendance.dto;
+
+/**
+ * 今日の在席状況
+ */
+public enum PresenceStatus {
+  CHECKED_IN,
+  CHECKED_OUT,
+  ON_LEAVE;
+
+  /**
+   * 今日の勤怠記録から判定する
+   */
+  public static PresenceStatus of(AttendanceResponse response) {
+    if ("ANNUAL_LEAVE".equals(response.getAttendanceType())) {
+      return ON_LEAVE;
+    }
+    return response.getCheckOutTime() == null ? CHECKED_IN : CHECKED_OUT;
+  }
+}
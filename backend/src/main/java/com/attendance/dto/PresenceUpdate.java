@@ -0,0 +1,16 @@
+package com.attendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 在席状況ボードの差分(1ユーザー分の変更と変更後の人数)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceUpdate {
+  private PresenceEntry entry;
+  private PresenceCounts counts;
+}
@@ -0,0 +1,18 @@
+package com.attendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ユーザー一覧・詳細のレスポンス(勤怠記録は含まない)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummary {
+  private Long userId;
+  private String username;
+  private String email;
+  private String role; // USER, ADMIN
+}
@@ -0,0 +1,147 @@
+package com.attendance.importer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * ヘッダー行から列の位置を決め、データ行を検証して ImportedRow に変換する
+ * ExcelExportService の列(ユーザー名・日付・勤怠区分・出勤時刻・退勤時刻)と
+ * RecordStreamExportService のCSVの列(username, recordDate, attendanceType, checkInTime, checkOutTime)に対応する
+ */
+public final class AttendanceRowParser {
+
+  private static final DateTimeFormatter SLASH_DATE = DateTimeFormatter.ofPattern("uuuu/M/d");
+  private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("H:mm[:ss]");
+
+  private final int usernameColumn;
+  private final int dateColumn;
+  private final int typeColumn;
+  private final int checkInColumn;
+  private final int checkOutColumn;
+
+  private AttendanceRowParser(List<String> header) {
+    usernameColumn = indexOf(header, "ユーザー名", "username");
+    dateColumn = indexOf(header, "日付", "recordDate");
+    typeColumn = indexOf(header, "勤怠区分", "attendanceType");
+    checkInColumn = indexOf(header, "出勤時刻", "checkInTime");
+    checkOutColumn = indexOf(header, "退勤時刻", "checkOutTime");
+  }
+
+  /**
+   * ヘッダー行から作成(必須の列がない場合はIllegalArgumentException)
+   */
+  public static AttendanceRowParser fromHeader(List<String> header) {
+    AttendanceRowParser parser = new AttendanceRowParser(header);
+    if (parser.usernameColumn < 0 || parser.dateColumn < 0 || parser.typeColumn < 0) {
+      throw new IllegalArgumentException("ヘッダー行にユーザー名・日付・勤怠区分の列がありません");
+    }
+    return parser;
+  }
+
+  /**
+   * 1行を検証して変換(不正な場合はIllegalArgumentException)
+   */
+  public ImportedRow parse(long rowNumber, List<String> cells) {
+    String username = cell(cells, usernameColumn);
+    if (username.isEmpty()) {
+      throw new IllegalArgumentException("ユーザー名がありません");
+    }
+    LocalDate workDate = parseDate(cell(cells, dateColumn));
+    String attendanceType = parseType(cell(cells, typeColumn));
+
+    if ("ANNUAL_LEAVE".equals(attendanceType)) {
+      // 年休の時刻列("-")は使わない
+      return new ImportedRow(rowNumber, username, workDate, attendanceType, null, null);
+    }
+
+    LocalDateTime checkIn = parseTime(cell(cells, checkInColumn), workDate);
+    if (checkIn == null) {
+      throw new IllegalArgumentException("出勤時刻がありません");
+    }
+    LocalDateTime checkOut = parseTime(cell(cells, checkOutColumn), workDate);
+    if (checkOut != null && !checkOut.isAfter(checkIn)) {
+      if (!isTimeOnly(cell(cells, checkOutColumn))) {
+        throw new IllegalArgumentException("退勤時刻が出勤時刻より前です");
+      }
+      // 時刻のみの場合は日付をまたいだ勤務とみなす
+      checkOut = checkOut.plusDays(1);
+    }
+    return new ImportedRow(rowNumber, username, workDate, attendanceType, checkIn, checkOut);
+  }
+
+  /**
+   * エラー報告用のユーザー名(列がない場合は空文字)
+   */
+  public String username(List<String> cells) {
+    return cell(cells, usernameColumn);
+  }
+
+  private static LocalDate parseDate(String text) {
+    try {
+      if (text.indexOf('T') >= 0) {
+        return LocalDateTime.parse(text).toLocalDate();
+      }
+      if (text.indexOf('/') >= 0) {
+        return LocalDate.parse(text, SLASH_DATE);
+      }
+      return LocalDate.parse(text);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("日付の形式が不正です: " + text);
+    }
+  }
+
+  private static String parseType(String text) {
+    switch (text) {
+      case "通常勤務":
+      case "WORK":
+        return "WORK";
+      case "年休":
+      case "ANNUAL_LEAVE":
+        return "ANNUAL_LEAVE";
+      default:
+        throw new IllegalArgumentException("勤怠区分が不正です: " + text);
+    }
+  }
+
+  /**
+   * 時刻(HH:mm)または日時(ISO形式)を読む。空または "-" の場合はnull
+   */
+  private static LocalDateTime parseTime(String text, LocalDate workDate) {
+    if (text.isEmpty() || "-".equals(text)) {
+      return null;
+    }
+    try {
+      if (isTimeOnly(text)) {
+        return workDate.atTime(LocalTime.parse(text, TIME));
+      }
+      return LocalDateTime.parse(text);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("時刻の形式が不正です: " + text);
+    }
+  }
+
+  private static boolean isTimeOnly(String text) {
+    return text.indexOf('T') < 0;
+  }
+
+  private static String cell(List<String> cells, int column) {
+    if (column < 0 || column >= cells.size()) {
+      return "";
+    }
+    return cells.get(column).trim();
+  }
+
+  private static int indexOf(List<String> header, String japanese, String english) {
+    for (int i = 0; i < header.size(); i++) {
+      String name = header.get(i).trim();
+      if (name.equals(japanese) || name.equalsIgnoreCase(english)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
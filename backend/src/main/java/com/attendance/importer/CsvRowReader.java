@@ -0,0 +1,94 @@
+package com.attendance.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV(UTF-8、BOM可)を1行ずつ読む
+ * 引用符で囲まれた項目(区切り文字・改行・""を含む)に対応する
+ * 1行が MAX_ROW_LENGTH 文字を超える場合(閉じていない引用符など)はIllegalArgumentException
+ */
+final class CsvRowReader {
+
+  private static final int BOM = '\uFEFF';
+
+  // 勤怠記録の1行としては十分に大きく、閉じていない引用符でファイルの残りを読み込まない長さ
+  static final int MAX_ROW_LENGTH = 64 * 1024;
+
+  private CsvRowReader() {
+  }
+
+  static void read(InputStream inputStream, RowHandler handler) throws IOException {
+    Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    List<String> cells = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    boolean rowStarted = false;
+    int rowLength = 0;
+    long rowNumber = 0;
+
+    int c = reader.read();
+    if (c == BOM) {
+      c = reader.read();
+    }
+    for (; c != -1; c = reader.read()) {
+      if (++rowLength > MAX_ROW_LENGTH) {
+        throw new IllegalArgumentException(String.format("%d行目が%d文字を超えています(引用符が閉じていない可能性があります)",
+            rowNumber + 1, MAX_ROW_LENGTH));
+      }
+      if (quoted) {
+        if (c != '"') {
+          field.append((char) c);
+          continue;
+        }
+        reader.mark(1);
+        if (reader.read() == '"') {
+          field.append('"');
+        } else {
+          reader.reset();
+          quoted = false;
+        }
+        continue;
+      }
+
+      if (c == '"') {
+        quoted = true;
+        rowStarted = true;
+      } else if (c == ',') {
+        cells.add(field.toString());
+        field.setLength(0);
+        rowStarted = true;
+      } else if (c == '\r' || c == '\n') {
+        if (c == '\r') {
+          reader.mark(1);
+          if (reader.read() != '\n') {
+            reader.reset();
+          }
+        }
+        rowNumber++;
+        if (rowStarted || field.length() > 0) {
+          cells.add(field.toString());
+          handler.handle(rowNumber, cells);
+        }
+        cells.clear();
+        field.setLength(0);
+        rowStarted = false;
+        rowLength = 0;
+      } else {
+        field.append((char) c);
+        rowStarted = true;
+      }
+    }
+
+    if (rowStarted || field.length() > 0) {
+      cells.add(field.toString());
+      handler.handle(rowNumber + 1, cells);
+    }
+  }
+}
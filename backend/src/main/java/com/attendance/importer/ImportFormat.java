@@ -0,0 +1,42 @@
+package com.attendance.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * 取込ファイルの形式
+ */
+public enum ImportFormat {
+  XLSX,
+  CSV;
+
+  /**
+   * ファイル名の拡張子から形式を判定(対応しない場合はIllegalArgumentException)
+   */
+  public static ImportFormat fromFilename(String filename) {
+    String name = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+    if (name.endsWith(".xlsx")) {
+      return XLSX;
+    }
+    if (name.endsWith(".csv")) {
+      return CSV;
+    }
+    throw new IllegalArgumentException("対応していないファイル形式です(.xlsx または .csv)");
+  }
+
+  /**
+   * ファイルを1行ずつ読み、handler に渡す
+   */
+  public void read(Path file, RowHandler handler) throws IOException {
+    if (this == XLSX) {
+      XlsxRowReader.read(file, handler);
+      return;
+    }
+    try (InputStream inputStream = Files.newInputStream(file)) {
+      CsvRowReader.read(inputStream, handler);
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.attendance.importer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 検証済みの取込行(ユーザーは未解決)
+ */
+public record ImportedRow(
+    long rowNumber,
+    String username,
+    LocalDate workDate,
+    String attendanceType,
+    LocalDateTime checkInTime,
+    LocalDateTime checkOutTime) {
+}
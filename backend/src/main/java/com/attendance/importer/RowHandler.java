@@ -0,0 +1,16 @@
+package com.attendance.importer;
+
+import java.util.List;
+
+/**
+ * 取込ファイルの1行を受け取る
+ */
+@FunctionalInterface
+public interface RowHandler {
+
+  /**
+   * @param rowNumber ファイル上の行番号(1始まり、ヘッダー行を含む)
+   * @param cells 各列の文字列(空のセルは空文字。呼び出し後に再利用されるため保持しないこと)
+   */
+  void handle(long rowNumber, List<String> cells);
+}
@@ -0,0 +1,93 @@
+package com.attendance.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * xlsxの先頭シートをSAXで1行ずつ読む
+ * XSSFWorkbook と異なりシート全体をメモリに展開しないため、行数に関わらずメモリ使用量は一定
+ * (共有文字列テーブルのみ読み込まれる。SXSSFで書き出したファイルはインライン文字列のため小さい)
+ */
+final class XlsxRowReader {
+
+  private XlsxRowReader() {
+  }
+
+  static void read(Path file, RowHandler handler) throws IOException {
+    // ファイルから開くとZIPを必要な部分だけ読む(InputStreamから開くと全体をメモリに読み込む)
+    try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+      XSSFReader reader = new XSSFReader(pkg);
+      ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+      StylesTable styles = reader.getStylesTable();
+
+      Iterator<InputStream> sheets = reader.getSheetsData();
+      if (!sheets.hasNext()) {
+        throw new IllegalArgumentException("シートがありません");
+      }
+      try (InputStream sheet = sheets.next()) {
+        XMLReader xmlReader = XMLHelper.newXMLReader();
+        xmlReader.setContentHandler(new XSSFSheetXMLHandler(
+            styles, null, strings, new RowCollector(handler), new DataFormatter(), false));
+        xmlReader.parse(new InputSource(sheet));
+      }
+    } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+      throw new IOException("xlsxファイルを読み込めません", e);
+    }
+  }
+
+  /**
+   * セルを列位置に並べて1行分にまとめる(空のセルは出現しないため空文字で埋める)
+   */
+  private static final class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+    private final RowHandler handler;
+    private final List<String> cells = new ArrayList<>();
+    private int nextColumn;
+
+    RowCollector(RowHandler handler) {
+      this.handler = handler;
+    }
+
+    @Override
+    public void startRow(int rowNum) {
+      cells.clear();
+      nextColumn = 0;
+    }
+
+    @Override
+    public void endRow(int rowNum) {
+      handler.handle(rowNum + 1L, cells);
+    }
+
+    @Override
+    public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+      int column = cellReference == null ? nextColumn : new CellReference(cellReference).getCol();
+      while (cells.size() < column) {
+        cells.add("");
+      }
+      cells.add(formattedValue == null ? "" : formattedValue);
+      nextColumn = column + 1;
+    }
+  }
+}
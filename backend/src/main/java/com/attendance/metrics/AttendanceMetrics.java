@@ -0,0 +1,93 @@
+package com.attendance.metrics;
+
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 勤怠処理のメトリクス
+ * タグの値は固定の集合に丸め、系列数が増えないようにする
+ */
+@Component
+@RequiredArgsConstructor
+public class AttendanceMetrics {
+
+  public static final String OUTCOME_SUCCESS = "SUCCESS";
+  public static final String OUTCOME_ERROR = "ERROR";
+
+  private static final Set<String> RECORD_TYPES = Set.of("CHECK_IN", "CHECK_OUT", "ANNUAL_LEAVE");
+
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * 計測を開始
+   */
+  public Timer.Sample start() {
+    return Timer.start(meterRegistry);
+  }
+
+  /**
+   * 打刻1件の処理時間(区分・結果別)
+   * outcomeは成功時SUCCESS、拒否時はエラーコード、例外時はERROR
+   */
+  public void recordAttendance(Timer.Sample sample, String type, String outcome) {
+    sample.stop(Timer.builder("attendance.record")
+        .description("打刻の処理時間")
+        .tag("type", type != null && RECORD_TYPES.contains(type) ? type : "OTHER")
+        .tag("outcome", outcome)
+        .register(meterRegistry));
+  }
+
+  /**
+   * 今日の勤怠状況の取得時間(キャッシュヒット・ミス別)
+   */
+  public void todayAttendance(Timer.Sample sample, boolean cacheHit) {
+    sample.stop(Timer.builder("attendance.today")
+        .description("今日の勤怠状況の取得時間")
+        .tag("cache", cacheHit ? "hit" : "miss")
+        .register(meterRegistry));
+  }
+
+  /**
+   * 期間指定取得の処理時間と件数(一括・ページ別)
+   */
+  public void rangeQuery(Timer.Sample sample, String mode, int rows) {
+    sample.stop(Timer.builder("attendance.range")
+        .description("期間指定取得の処理時間")
+        .tag("mode", mode)
+        .register(meterRegistry));
+    DistributionSummary.builder("attendance.range.rows")
+        .description("期間指定取得の件数")
+        .tag("mode", mode)
+        .register(meterRegistry)
+        .record(rows);
+  }
+
+  /**
+   * エクスポート1回の処理時間・行数・出力バイト数(形式・結果別)
+   * バイト数は圧縮前の値
+   */
+  public void export(Timer.Sample sample, String format, String outcome, long rows, long bytes) {
+    sample.stop(Timer.builder("attendance.export")
+        .description("エクスポートの処理時間")
+        .tag("format", format)
+        .tag("outcome", outcome)
+        .register(meterRegistry));
+    DistributionSummary.builder("attendance.export.rows")
+        .description("エクスポートした行数")
+        .tag("format", format)
+        .register(meterRegistry)
+        .record(rows);
+    DistributionSummary.builder("attendance.export.bytes")
+        .description("エクスポートの出力サイズ")
+        .baseUnit("bytes")
+        .tag("format", format)
+        .register(meterRegistry)
+        .record(bytes);
+  }
+}
@@ -0,0 +1,36 @@
+package com.attendance.metrics;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 書き込んだバイト数を数える出力ストリーム
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+  private long count;
+
+  public CountingOutputStream(OutputStream out) {
+    super(out);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    out.write(b);
+    count++;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    out.write(b, off, len);
+    count += len;
+  }
+
+  /**
+   * これまでに書き込んだバイト数
+   */
+  public long getCount() {
+    return count;
+  }
+}
@@ -0,0 +1,34 @@
+package com.attendance.metrics;
+
+/**
+ * 実行したSQL文の数をスレッドごとに数える
+ * StatementCountingDataSource が文の実行ごとに加算し、StatementCountFilter がリクエストの開始時にリセットして終了時に読み出す
+ */
+public final class SqlStatementCounter {
+
+  private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+  private SqlStatementCounter() {
+  }
+
+  /**
+   * 現在のスレッドの件数に1を加える
+   */
+  public static void increment() {
+    COUNT.get()[0]++;
+  }
+
+  /**
+   * 現在のスレッドの件数を0に戻す
+   */
+  public static void reset() {
+    COUNT.get()[0] = 0;
+  }
+
+  /**
+   * 現在のスレッドの件数
+   */
+  public static int current() {
+    return COUNT.get()[0];
+  }
+}
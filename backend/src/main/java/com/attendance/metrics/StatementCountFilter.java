@@ -0,0 +1,42 @@
+package com.attendance.metrics;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 1リクエストあたりのSQL文の数を記録する(N+1の検出用)
+ * StreamingResponseBody など別スレッドで実行される部分は含まない
+ */
+@RequiredArgsConstructor
+public class StatementCountFilter extends OncePerRequestFilter {
+
+  private final MeterRegistry meterRegistry;
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    SqlStatementCounter.reset();
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      // URIはテンプレート(/api/attendance/user/{userId} など)で集計する
+      Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+      DistributionSummary.builder("attendance.http.statements")
+          .description("1リクエストあたりのSQL文の数")
+          .tag("method", request.getMethod())
+          .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+          .register(meterRegistry)
+          .record(SqlStatementCounter.current());
+    }
+  }
+}
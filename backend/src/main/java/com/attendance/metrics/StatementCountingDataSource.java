@@ -0,0 +1,105 @@
+package com.attendance.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * 実行したSQL文を SqlStatementCounter に数えるDataSource
+ * JPA(Hibernate)・JdbcTemplate のどちらの経路も数える(JDBCバッチは executeBatch 1回を1文とする)
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+  public StatementCountingDataSource(DataSource targetDataSource) {
+    super(targetDataSource);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return proxy(Connection.class, super.getConnection(), new ConnectionHandler());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return proxy(Connection.class, super.getConnection(username, password), new ConnectionHandler());
+  }
+
+  private static <T> T proxy(Class<T> type, T target, ForwardingHandler handler) {
+    handler.target = target;
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+  }
+
+  /**
+   * 呼び出しを元のオブジェクトに転送する(equals・hashCode はプロキシ自身の同一性で判定する)
+   */
+  private abstract static class ForwardingHandler implements InvocationHandler {
+
+    Object target;
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if ("equals".equals(method.getName()) && args != null && args.length == 1) {
+        return proxy == args[0];
+      }
+      if ("hashCode".equals(method.getName()) && args == null) {
+        return System.identityHashCode(proxy);
+      }
+      try {
+        return handle(method, method.invoke(target, args));
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+
+    abstract Object handle(Method method, Object result);
+  }
+
+  /**
+   * 作成した文を数える文で包む
+   */
+  private static final class ConnectionHandler extends ForwardingHandler {
+
+    @Override
+    Object handle(Method method, Object result) {
+      if (result instanceof CallableStatement statement) {
+        return proxy(CallableStatement.class, statement, new StatementHandler());
+      }
+      if (result instanceof PreparedStatement statement) {
+        return proxy(PreparedStatement.class, statement, new StatementHandler());
+      }
+      if (result instanceof Statement statement) {
+        return proxy(Statement.class, statement, new StatementHandler());
+      }
+      return result;
+    }
+  }
+
+  /**
+   * execute・executeQuery・executeUpdate・executeBatch などの実行を数える
+   */
+  private static final class StatementHandler extends ForwardingHandler {
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (method.getName().startsWith("execute")) {
+        SqlStatementCounter.increment();
+      }
+      return super.invoke(proxy, method, args);
+    }
+
+    @Override
+    Object handle(Method method, Object result) {
+      return result;
+    }
+  }
+}
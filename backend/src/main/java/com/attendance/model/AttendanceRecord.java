@@ -1,5 +1,6 @@
 package com.attendance.model;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 import jakarta.persistence.Column;
@@ -11,12 +12,16 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "attendance_records")
+@Table(name = "attendance_records", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_user_work_date", columnNames = { "user_id", "work_date" })
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -39,9 +44,23 @@ public class AttendanceRecord {
   @Column(nullable = false)
   private LocalDateTime recordDate;
 
+  @Column(nullable = false)
+  private LocalDate workDate; // 勤務日 (ユーザーごとに1日1件)
+
   @Column(nullable = false, length = 20)
   private String attendanceType; // WORK, ANNUAL_LEAVE
 
   @Column(length = 500)
   private String googleCalendarEventId;
+
+  @Version
+  @Column(nullable = false)
+  private Long version; // 楽観的ロック用
+
+  // 作成・更新日時はDBが設定する(保存後のエンティティには反映されない)
+  @Column(insertable = false, updatable = false)
+  private LocalDateTime createdAt;
+
+  @Column(insertable = false, updatable = false)
+  private LocalDateTime updatedAt; // 変更フィードの順序キー
 }
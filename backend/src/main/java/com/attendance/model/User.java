@@ -2,13 +2,24 @@ package com.attendance.model;
 
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.attendance.config.UserCacheConfig;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
 @Table(name = "users")
+// 打刻のたびに主キーで読むため二次キャッシュに載せる(勤怠記録のコレクションは対象外)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = UserCacheConfig.USER_REGION)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -27,6 +38,10 @@ public class User {
   @Column(nullable = false, length = 20)
   private String role; // USER, ADMIN
 
+  // 遅延ロードを誘発しないよう、シリアライズ・toString・equals/hashCodeの対象から外す
+  @JsonIgnore
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
   @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
   private List<AttendanceRecord> attendanceRecords;
 }
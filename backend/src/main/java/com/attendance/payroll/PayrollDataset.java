@@ -0,0 +1,164 @@
+package com.attendance.payroll;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.attendance.dto.AttendanceResponse;
+
+/**
+ * 給与計算の入力(勤怠記録を列ごとのプリミティブ配列で保持する)
+ * 記録は読み出し順に追加し、計算前にユーザーごとに連続するよう並べ替える
+ * 時刻はタイムゾーンを持たない壁時計の秒(epoch second, UTC換算)で扱う
+ */
+public final class PayrollDataset {
+
+  static final long NONE = Long.MIN_VALUE;
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final Map<Long, Integer> userIndexes = new HashMap<>();
+  private final List<Long> userIds = new ArrayList<>();
+  private final List<String> usernames = new ArrayList<>();
+
+  private int size;
+  private int[] users = new int[INITIAL_CAPACITY];
+  private long[] checkIns = new long[INITIAL_CAPACITY];
+  private long[] checkOuts = new long[INITIAL_CAPACITY];
+  private boolean[] leaves = new boolean[INITIAL_CAPACITY];
+
+  // group() 後に有効: ユーザー u の記録は [userStarts[u], userStarts[u + 1])
+  private int[] userStarts;
+
+  PayrollDataset() {
+  }
+
+  /**
+   * 勤怠記録を1件追加
+   */
+  public void add(AttendanceResponse record) {
+    if (userStarts != null) {
+      throw new IllegalStateException("計算済みのデータには追加できません");
+    }
+    if (size == users.length) {
+      grow();
+    }
+    Integer index = userIndexes.get(record.getUserId());
+    if (index == null) {
+      index = userIds.size();
+      userIndexes.put(record.getUserId(), index);
+      userIds.add(record.getUserId());
+      usernames.add(record.getUsername());
+    }
+    users[size] = index;
+    checkIns[size] = toSecond(record.getCheckInTime());
+    checkOuts[size] = toSecond(record.getCheckOutTime());
+    leaves[size] = "ANNUAL_LEAVE".equals(record.getAttendanceType());
+    size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * 追加した記録を破棄して再利用できる状態に戻す(配列は確保したまま)
+   */
+  public void clear() {
+    userIndexes.clear();
+    userIds.clear();
+    usernames.clear();
+    size = 0;
+    userStarts = null;
+  }
+
+  int userCount() {
+    return userIds.size();
+  }
+
+  Long userId(int user) {
+    return userIds.get(user);
+  }
+
+  String username(int user) {
+    return usernames.get(user);
+  }
+
+  int userStart(int user) {
+    return userStarts[user];
+  }
+
+  int userEnd(int user) {
+    return userStarts[user + 1];
+  }
+
+  long checkIn(int record) {
+    return checkIns[record];
+  }
+
+  long checkOut(int record) {
+    return checkOuts[record];
+  }
+
+  boolean isLeave(int record) {
+    return leaves[record];
+  }
+
+  /**
+   * 記録をユーザーごとに連続するよう並べ替える(計数ソート)
+   * 読み出し順がユーザー順の場合は並べ替えを省く
+   */
+  void group() {
+    if (userStarts != null) {
+      return;
+    }
+    int userCount = userIds.size();
+    int[] starts = new int[userCount + 1];
+    boolean grouped = true;
+    for (int i = 0; i < size; i++) {
+      starts[users[i] + 1]++;
+      if (i > 0 && users[i] < users[i - 1]) {
+        grouped = false;
+      }
+    }
+    for (int u = 0; u < userCount; u++) {
+      starts[u + 1] += starts[u];
+    }
+
+    if (!grouped) {
+      int[] next = Arrays.copyOf(starts, userCount);
+      int[] sortedUsers = new int[size];
+      long[] sortedCheckIns = new long[size];
+      long[] sortedCheckOuts = new long[size];
+      boolean[] sortedLeaves = new boolean[size];
+      for (int i = 0; i < size; i++) {
+        int position = next[users[i]]++;
+        sortedUsers[position] = users[i];
+        sortedCheckIns[position] = checkIns[i];
+        sortedCheckOuts[position] = checkOuts[i];
+        sortedLeaves[position] = leaves[i];
+      }
+      users = sortedUsers;
+      checkIns = sortedCheckIns;
+      checkOuts = sortedCheckOuts;
+      leaves = sortedLeaves;
+    }
+    userStarts = starts;
+  }
+
+  private void grow() {
+    int capacity = users.length * 2;
+    users = Arrays.copyOf(users, capacity);
+    checkIns = Arrays.copyOf(checkIns, capacity);
+    checkOuts = Arrays.copyOf(checkOuts, capacity);
+    leaves = Arrays.copyOf(leaves, capacity);
+  }
+
+  private static long toSecond(LocalDateTime value) {
+    return value == null ? NONE : value.toEpochSecond(ZoneOffset.UTC);
+  }
+}
@@ -0,0 +1,250 @@
+package com.attendance.payroll;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.springframework.stereotype.Component;
+
+import com.attendance.dto.PayrollResult;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 勤怠記録から残業・深夜・遅刻・年休を計算する
+ * ユーザー単位に分割してFork/Joinで並列に計算し、結果は列ごとの配列に書き込む
+ */
+@Component
+public class PayrollEngine {
+
+  // これ以下のユーザー数になるまでタスクを分割する
+  private static final int USERS_PER_TASK = 512;
+
+  private static final long SECONDS_PER_DAY = 86_400;
+
+  private final PayrollRules rules;
+  private final ForkJoinPool pool;
+
+  public PayrollEngine(PayrollRules rules) {
+    this.rules = rules;
+    int parallelism = rules.getParallelism() > 0
+        ? rules.getParallelism()
+        : Runtime.getRuntime().availableProcessors();
+    this.pool = new ForkJoinPool(parallelism);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  /**
+   * 入力データを作成(勤怠記録を add で追加してから calculate に渡す)
+   */
+  public PayrollDataset newDataset() {
+    return new PayrollDataset();
+  }
+
+  /**
+   * ユーザーごとの計算結果を返す(読み出し順にユーザーが最初に現れた順)
+   *
+   * @param leaveDaysYearToDate ユーザーIDごとの年度初めから期間末までの年休日数(ない場合は期間内の日数を使う)
+   */
+  public List<PayrollResult> calculate(PayrollDataset dataset, Map<Long, Long> leaveDaysYearToDate) {
+    dataset.group();
+    int userCount = dataset.userCount();
+    Totals totals = new Totals(userCount);
+    Parameters parameters = new Parameters(rules);
+    pool.invoke(new UserRangeTask(dataset, parameters, totals, 0, userCount));
+
+    List<PayrollResult> results = new ArrayList<>(userCount);
+    for (int u = 0; u < userCount; u++) {
+      results.add(toResult(dataset, totals, u, leaveDaysYearToDate));
+    }
+    return results;
+  }
+
+  /**
+   * 1ユーザー分の記録だけを追加したデータを呼び出し元のスレッドで計算する
+   * ユーザー順に読み出しながら1人ずつ計算する場合に使う(計算後は clear して次のユーザーに再利用できる)
+   */
+  public PayrollResult calculateSingleUser(PayrollDataset dataset, Map<Long, Long> leaveDaysYearToDate) {
+    dataset.group();
+    if (dataset.userCount() != 1) {
+      throw new IllegalArgumentException("1ユーザー分の記録のみ計算できます: " + dataset.userCount() + "ユーザー");
+    }
+    Totals totals = new Totals(1);
+    calculateUser(dataset, new Parameters(rules), totals, 0);
+    return toResult(dataset, totals, 0, leaveDaysYearToDate);
+  }
+
+  private PayrollResult toResult(PayrollDataset dataset, Totals totals, int u, Map<Long, Long> leaveDaysYearToDate) {
+    Long userId = dataset.userId(u);
+    long leaveYearToDate = leaveDaysYearToDate.getOrDefault(userId, (long) totals.leaveDays[u]);
+    long excessThreshold = rules.getExcessOvertimeThreshold().toSeconds();
+    return new PayrollResult(
+        userId,
+        dataset.username(u),
+        totals.workDays[u],
+        totals.worked[u] / 60,
+        totals.overtime[u] / 60,
+        Math.max(0, totals.overtime[u] - excessThreshold) / 60,
+        totals.night[u] / 60,
+        totals.lateCount[u],
+        totals.late[u] / 60,
+        totals.leaveDays[u],
+        leaveYearToDate,
+        rules.getAnnualLeaveDays() - leaveYearToDate,
+        totals.openSessions[u]);
+  }
+
+  /**
+   * 1ユーザー分の記録を集計する
+   */
+  static void calculateUser(PayrollDataset dataset, Parameters parameters, Totals totals, int user) {
+    long worked = 0;
+    long overtime = 0;
+    long night = 0;
+    long late = 0;
+    int workDays = 0;
+    int lateCount = 0;
+    int leaveDays = 0;
+    int openSessions = 0;
+
+    for (int r = dataset.userStart(user), end = dataset.userEnd(user); r < end; r++) {
+      if (dataset.isLeave(r)) {
+        leaveDays++;
+        continue;
+      }
+      long checkIn = dataset.checkIn(r);
+      if (checkIn == PayrollDataset.NONE) {
+        continue;
+      }
+      workDays++;
+
+      long lateSeconds = Math.floorMod(checkIn, SECONDS_PER_DAY) - parameters.workStart;
+      if (lateSeconds > 0) {
+        lateCount++;
+        late += lateSeconds;
+      }
+
+      long checkOut = dataset.checkOut(r);
+      if (checkOut == PayrollDataset.NONE) {
+        openSessions++;
+        continue;
+      }
+      long span = checkOut - checkIn;
+      if (span <= 0) {
+        continue;
+      }
+      long net = span >= parameters.breakThreshold ? Math.max(0, span - parameters.breakDuration) : span;
+      worked += net;
+      overtime += Math.max(0, net - parameters.standardDaily);
+      night += nightOverlap(checkIn, checkOut, parameters.nightStart, parameters.nightEnd);
+    }
+
+    totals.worked[user] = worked;
+    totals.overtime[user] = overtime;
+    totals.night[user] = night;
+    totals.late[user] = late;
+    totals.workDays[user] = workDays;
+    totals.lateCount[user] = lateCount;
+    totals.leaveDays[user] = leaveDays;
+    totals.openSessions[user] = openSessions;
+  }
+
+  /**
+   * [from, to) と深夜時間帯が重なる秒数
+   * 深夜時間帯は日ごとに [nightStart, nightEnd) とし、nightStart > nightEnd の場合は翌日にまたがる
+   */
+  static long nightOverlap(long from, long to, long nightStart, long nightEnd) {
+    long length = nightStart < nightEnd ? nightEnd - nightStart : SECONDS_PER_DAY - nightStart + nightEnd;
+    long overlap = 0;
+    // 前日に始まる時間帯も含めて走査する
+    for (long day = Math.floorDiv(from, SECONDS_PER_DAY) - 1; day * SECONDS_PER_DAY < to; day++) {
+      long windowStart = day * SECONDS_PER_DAY + nightStart;
+      long windowEnd = windowStart + length;
+      overlap += Math.max(0, Math.min(to, windowEnd) - Math.max(from, windowStart));
+    }
+    return overlap;
+  }
+
+  /**
+   * ルールを秒単位に変換したもの
+   */
+  static final class Parameters {
+    final long standardDaily;
+    final long breakThreshold;
+    final long breakDuration;
+    final long nightStart;
+    final long nightEnd;
+    final long workStart;
+
+    Parameters(PayrollRules rules) {
+      this.standardDaily = rules.getStandardDaily().toSeconds();
+      this.breakThreshold = rules.getBreakThreshold().toSeconds();
+      this.breakDuration = rules.getBreakDuration().toSeconds();
+      this.nightStart = rules.getNightStart().toSecondOfDay();
+      this.nightEnd = rules.getNightEnd().toSecondOfDay();
+      this.workStart = rules.getWorkStart().toSecondOfDay();
+    }
+  }
+
+  /**
+   * ユーザーごとの集計値(秒・回数)。各タスクは担当ユーザーの要素だけに書き込む
+   */
+  static final class Totals {
+    final long[] worked;
+    final long[] overtime;
+    final long[] night;
+    final long[] late;
+    final int[] workDays;
+    final int[] lateCount;
+    final int[] leaveDays;
+    final int[] openSessions;
+
+    Totals(int users) {
+      worked = new long[users];
+      overtime = new long[users];
+      night = new long[users];
+      late = new long[users];
+      workDays = new int[users];
+      lateCount = new int[users];
+      leaveDays = new int[users];
+      openSessions = new int[users];
+    }
+  }
+
+  private static final class UserRangeTask extends RecursiveAction {
+
+    private final transient PayrollDataset dataset;
+    private final transient Parameters parameters;
+    private final transient Totals totals;
+    private final int from;
+    private final int to;
+
+    UserRangeTask(PayrollDataset dataset, Parameters parameters, Totals totals, int from, int to) {
+      this.dataset = dataset;
+      this.parameters = parameters;
+      this.totals = totals;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= USERS_PER_TASK) {
+        for (int u = from; u < to; u++) {
+          calculateUser(dataset, parameters, totals, u);
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(
+          new UserRangeTask(dataset, parameters, totals, from, middle),
+          new UserRangeTask(dataset, parameters, totals, middle, to));
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package com.attendance.payroll;
+
+import java.time.Duration;
+import java.time.LocalTime;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * 給与計算のルール(attendance.payroll.*)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "attendance.payroll")
+public class PayrollRules {
+
+  /** 所定労働時間(1日)。超えた分を残業とする */
+  private Duration standardDaily = Duration.ofHours(8);
+
+  /** 休憩を差し引く拘束時間の下限と、差し引く休憩時間 */
+  private Duration breakThreshold = Duration.ofHours(6);
+  private Duration breakDuration = Duration.ofMinutes(60);
+
+  /** 期間内の残業がこれを超えた分を割増対象(超過残業)とする */
+  private Duration excessOvertimeThreshold = Duration.ofHours(60);
+
+  /** 深夜時間帯(日をまたいでよい) */
+  private LocalTime nightStart = LocalTime.of(22, 0);
+  private LocalTime nightEnd = LocalTime.of(5, 0);
+
+  /** 始業時刻。これより遅い出勤を遅刻とする */
+  private LocalTime workStart = LocalTime.of(9, 0);
+
+  /** 年休の年間付与日数と年度の開始月 */
+  private int annualLeaveDays = 20;
+  private int fiscalYearStartMonth = 4;
+
+  /** 計算の並列度(0の場合はCPU数) */
+  private int parallelism = 0;
+}
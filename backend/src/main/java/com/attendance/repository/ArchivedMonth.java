@@ -0,0 +1,25 @@
+package com.attendance.repository;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * アーカイブ済みの月(attendance_archive_months の1行)
+ */
+@Data
+@AllArgsConstructor
+public class ArchivedMonth {
+  private YearMonth month;
+  private int rowCount;
+  private long fileSize;
+  private long checksum; // ファイルのCRC32
+  private LocalDateTime archivedAt;
+  private LocalDateTime purgedAt; // MySQLから削除した日時(未削除はnull)
+
+  public boolean isPurged() {
+    return purgedAt != null;
+  }
+}
@@ -0,0 +1,108 @@
+package com.attendance.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 勤怠記録のアーカイブの管理テーブルと、アーカイブ対象の月の勤怠記録の件数・削除
+ */
+@Repository
+@RequiredArgsConstructor
+public class AttendanceArchiveJdbcRepository {
+
+  private static final String SELECT_MONTHS_SQL = "SELECT archive_month, row_count, file_size, checksum, "
+      + "archived_at, purged_at FROM attendance_archive_months ORDER BY archive_month";
+
+  private static final String INSERT_MONTH_SQL = "INSERT INTO attendance_archive_months "
+      + "(archive_month, row_count, file_size, checksum) VALUES (?, ?, ?, ?)";
+
+  private static final String LOCK_STATE_SQL =
+      "SELECT sealed_before FROM attendance_archive_state WHERE id = 1 FOR UPDATE";
+
+  private static final String COUNT_RECORDS_SQL =
+      "SELECT COUNT(*) FROM attendance_records WHERE record_date >= ? AND record_date < ?";
+
+  private static final String DELETE_RECORDS_SQL =
+      "DELETE FROM attendance_records WHERE record_date >= ? AND record_date < ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * アーカイブ済みの月(古い順)
+   */
+  public List<ArchivedMonth> findMonths() {
+    return jdbcTemplate.query(SELECT_MONTHS_SQL, (rs, rowNum) -> {
+      Timestamp purgedAt = rs.getTimestamp("purged_at");
+      return new ArchivedMonth(
+          YearMonth.from(rs.getDate("archive_month").toLocalDate()),
+          rs.getInt("row_count"),
+          rs.getLong("file_size"),
+          rs.getLong("checksum"),
+          rs.getTimestamp("archived_at").toLocalDateTime(),
+          purgedAt == null ? null : purgedAt.toLocalDateTime());
+    });
+  }
+
+  public void insertMonth(YearMonth month, int rowCount, long fileSize, long checksum) {
+    jdbcTemplate.update(INSERT_MONTH_SQL, month.atDay(1), rowCount, fileSize, checksum);
+  }
+
+  public void markPurged(YearMonth month) {
+    jdbcTemplate.update("UPDATE attendance_archive_months SET purged_at = CURRENT_TIMESTAMP(6) "
+        + "WHERE archive_month = ?", month.atDay(1));
+  }
+
+  /**
+   * 変更を受け付けない月の境界を行ロックして取得(未設定はnull)
+   * トランザクション内で呼び出すこと。コミットまで境界の変更を待たせる
+   */
+  public LocalDate lockSealedBefore() {
+    return jdbcTemplate.queryForObject(LOCK_STATE_SQL, LocalDate.class);
+  }
+
+  /**
+   * 変更を受け付けない月の境界を更新(lockSealedBefore と同じトランザクション内で呼び出すこと)
+   */
+  public void updateSealedBefore(LocalDate sealedBefore) {
+    jdbcTemplate.update("UPDATE attendance_archive_state SET sealed_before = ? WHERE id = 1", sealedBefore);
+  }
+
+  /**
+   * MySQLから削除済みの最後の月の翌月初日(削除済みの月がない場合はnull)
+   * 月は古い順に削除するため、これより前の勤怠記録はMySQLに残っていない
+   */
+  public LocalDate findPurgedBefore() {
+    LocalDate lastPurged = jdbcTemplate.queryForObject(
+        "SELECT MAX(archive_month) FROM attendance_archive_months WHERE purged_at IS NOT NULL", LocalDate.class);
+    return lastPurged == null ? null : lastPurged.plusMonths(1);
+  }
+
+  /**
+   * 最も古い勤怠記録の記録日時(記録がない場合はnull)
+   */
+  public LocalDateTime findFirstRecordDate() {
+    return jdbcTemplate.queryForObject("SELECT MIN(record_date) FROM attendance_records", LocalDateTime.class);
+  }
+
+  /**
+   * 記録日時が [from, to) の勤怠記録の件数(idx_record_date の範囲を読む)
+   */
+  public long countRecords(LocalDateTime from, LocalDateTime to) {
+    return jdbcTemplate.queryForObject(COUNT_RECORDS_SQL, Long.class, from, to);
+  }
+
+  /**
+   * 記録日時が [from, to) の勤怠記録を削除
+   */
+  public int deleteRecords(LocalDateTime from, LocalDateTime to) {
+    return jdbcTemplate.update(DELETE_RECORDS_SQL, from, to);
+  }
+}
@@ -0,0 +1,117 @@
+package com.attendance.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import com.attendance.model.AttendanceRecord;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 勤怠記録のJDBCバッチ書き込み
+ * IDENTITY採番ではHibernateのINSERTバッチが無効になるため、大量書き込みはこちらを使う
+ * (MySQLでは接続URLに rewriteBatchedStatements=true を指定すると複数行INSERTにまとめられる)
+ */
+@Repository
+@RequiredArgsConstructor
+public class AttendanceRecordJdbcRepository {
+
+  private static final String INSERT_SQL = "INSERT INTO attendance_records "
+      + "(user_id, check_in_time, check_out_time, record_date, work_date, attendance_type, version) "
+      + "VALUES (?, ?, ?, ?, ?, ?, 0)";
+
+  private static final String UPDATE_CHECK_OUT_SQL = "UPDATE attendance_records "
+      + "SET check_out_time = ?, version = version + 1 WHERE record_id = ? AND version = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * 勤怠記録を一括登録し、採番されたIDを各記録に設定
+   */
+  public void batchInsert(List<AttendanceRecord> records) {
+    if (records.isEmpty()) {
+      return;
+    }
+
+    KeyHolder keyHolder = new GeneratedKeyHolder();
+    jdbcTemplate.batchUpdate(
+        con -> con.prepareStatement(INSERT_SQL, new String[] { "record_id" }),
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement ps, int i) throws SQLException {
+            AttendanceRecord record = records.get(i);
+            ps.setLong(1, record.getUser().getUserId());
+            setDateTime(ps, 2, record.getCheckInTime());
+            setDateTime(ps, 3, record.getCheckOutTime());
+            setDateTime(ps, 4, record.getRecordDate());
+            ps.setObject(5, record.getWorkDate());
+            ps.setString(6, record.getAttendanceType());
+          }
+
+          @Override
+          public int getBatchSize() {
+            return records.size();
+          }
+        },
+        keyHolder);
+
+    List<Map<String, Object>> keys = keyHolder.getKeyList();
+    for (int i = 0; i < records.size(); i++) {
+      Number key = (Number) keys.get(i).values().iterator().next();
+      records.get(i).setRecordId(key.longValue());
+      records.get(i).setVersion(0L);
+    }
+  }
+
+  /**
+   * 退勤時刻を一括更新
+   * 読み込み後に他で更新されていた場合はOptimisticLockingFailureException
+   */
+  public void batchUpdateCheckOut(List<AttendanceRecord> records) {
+    if (records.isEmpty()) {
+      return;
+    }
+
+    int[] counts = jdbcTemplate.batchUpdate(UPDATE_CHECK_OUT_SQL, new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        AttendanceRecord record = records.get(i);
+        setDateTime(ps, 1, record.getCheckOutTime());
+        ps.setLong(2, record.getRecordId());
+        ps.setLong(3, record.getVersion());
+      }
+
+      @Override
+      public int getBatchSize() {
+        return records.size();
+      }
+    });
+
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] == 0) {
+        throw new OptimisticLockingFailureException(
+            "勤怠記録が他の操作で更新されています: recordId=" + records.get(i).getRecordId());
+      }
+      records.get(i).setVersion(records.get(i).getVersion() + 1);
+    }
+  }
+
+  private static void setDateTime(PreparedStatement ps, int index, LocalDateTime value) throws SQLException {
+    if (value == null) {
+      ps.setNull(index, Types.TIMESTAMP);
+    } else {
+      ps.setObject(index, value);
+    }
+  }
+}
@@ -1,26 +1,36 @@
 package com.attendance.repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.attendance.dto.AttendanceChange;
+import com.attendance.dto.AttendanceResponse;
 import com.attendance.model.AttendanceRecord;
 import com.attendance.model.User;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
-public interface AttendanceRecordRepository extends JpaRepository<AttendanceRecord, Long> {
+public interface AttendanceRecordRepository
+        extends JpaRepository<AttendanceRecord, Long>, AttendanceRecordStreamRepository {
 
     List<AttendanceRecord> findByUserOrderByRecordDateDesc(User user);
 
-    Optional<AttendanceRecord> findFirstByUserAndRecordDateBetween(
-            User user,
-            LocalDateTime startOfDay,
-            LocalDateTime endOfDay);
+    /**
+     * 勤務日の勤怠記録を取得 (user_id, work_date) のユニークインデックスで1行を読む
+     */
+    Optional<AttendanceRecord> findByUserAndWorkDate(User user, LocalDate workDate);
 
     @Query("SELECT a FROM AttendanceRecord a WHERE " +
             "a.recordDate >= :startDate AND a.recordDate <= :endDate " +
@@ -29,6 +39,171 @@ public interface AttendanceRecordRepository extends JpaRepository<AttendanceReco
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
 
+    /**
+     * usersを結合し、レスポンスDTOを1クエリで組み立てるSELECT句
+     * (ステータスの判定はAttendanceService.mapToResponseと同じ)
+     */
+    String RESPONSE_SELECT = "SELECT new com.attendance.dto.AttendanceResponse(" +
+            "a.recordId, u.userId, u.username, a.checkInTime, a.checkOutTime, a.recordDate, a.attendanceType, " +
+            "CASE WHEN a.attendanceType = 'ANNUAL_LEAVE' THEN 'ANNUAL_LEAVE' " +
+            "WHEN a.checkOutTime IS NULL THEN 'IN_PROGRESS' ELSE 'COMPLETED' END) " +
+            "FROM AttendanceRecord a JOIN a.user u ";
+
+    @Query(RESPONSE_SELECT +
+            "WHERE u.userId = :userId " +
+            "ORDER BY a.recordDate DESC")
+    List<AttendanceResponse> findResponsesByUserId(@Param("userId") Long userId);
+
+    @Query(RESPONSE_SELECT +
+            "WHERE a.recordDate >= :startDate AND a.recordDate <= :endDate " +
+            "ORDER BY u.userId, a.recordDate")
+    List<AttendanceResponse> findResponsesByDateRange(
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * ユーザーの勤怠記録の先頭ページ(新しい順)
+     * (user_id, record_date) のインデックスをシークする
+     */
+    @Query(RESPONSE_SELECT +
+            "WHERE u.userId = :userId " +
+            "ORDER BY a.recordDate DESC, a.recordId DESC")
+    List<AttendanceResponse> findUserPage(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * カーソル位置より後ろのユーザーの勤怠記録(新しい順)
+     */
+    @Query(RESPONSE_SELECT +
+            "WHERE u.userId = :userId " +
+            "AND (a.recordDate < :cursorDate OR (a.recordDate = :cursorDate AND a.recordId < :cursorId)) " +
+            "ORDER BY a.recordDate DESC, a.recordId DESC")
+    List<AttendanceResponse> findUserPageAfter(
+            @Param("userId") Long userId,
+            @Param("cursorDate") LocalDateTime cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable pageable);
+
+    /**
+     * アーカイブの境界(since)以降のユーザーの勤怠記録(新しい順)
+     * 境界より前は TieredAttendanceReader がアーカイブから読む
+     */
+    @Query(RESPONSE_SELECT +
+            "WHERE u.userId = :userId AND a.recordDate >= :since " +
+            "ORDER BY a.recordDate DESC")
+    List<AttendanceResponse> findResponsesByUserIdSince(
+            @Param("userId") Long userId,
+            @Param("since") LocalDateTime since);
+
+    @Query(RESPONSE_SELECT +
+            "WHERE u.userId = :userId AND a.recordDate >= :since " +
+            "ORDER BY a.recordDate DESC, a.recordId DESC")
+    List<AttendanceResponse> findUserPageSince(
+            @Param("userId") Long userId,
+            @Param("since") LocalDateTime since,
+            Pageable pageable);
+
+    @Query(RESPONSE_SELECT +
+            "WHERE u.userId = :userId AND a.recordDate >= :since " +
+            "AND (a.recordDate < :cursorDate OR (a.recordDate = :cursorDate AND a.recordId < :cursorId)) " +
+            "ORDER BY a.recordDate DESC, a.recordId DESC")
+    List<AttendanceResponse> findUserPageAfterSince(
+            @Param("userId") Long userId,
+            @Param("since") LocalDateTime since,
+            @Param("cursorDate") LocalDateTime cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable pageable);
+
+    /**
+     * 期間指定の勤怠記録の先頭ページ(古い順)
+     * (record_date, record_id) のインデックスをシークする
+     */
+    @Query(RESPONSE_SELECT +
+            "WHERE a.recordDate >= :startDate AND a.recordDate <= :endDate " +
+            "ORDER BY a.recordDate, a.recordId")
+    List<AttendanceResponse> findRangePage(
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            Pageable pageable);
+
+    /**
+     * カーソル位置より後ろの期間指定の勤怠記録(古い順)
+     */
+    @Query(RESPONSE_SELECT +
+            "WHERE a.recordDate <= :endDate " +
+            "AND (a.recordDate > :cursorDate OR (a.recordDate = :cursorDate AND a.recordId > :cursorId)) " +
+            "ORDER BY a.recordDate, a.recordId")
+    List<AttendanceResponse> findRangePageAfter(
+            @Param("endDate") LocalDateTime endDate,
+            @Param("cursorDate") LocalDateTime cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable pageable);
+
+    /**
+     * 変更フィード用のSELECT句(RESPONSE_SELECT に更新日時を加えたもの)
+     */
+    String CHANGE_SELECT = "SELECT new com.attendance.dto.AttendanceChange(" +
+            "a.recordId, u.userId, u.username, a.checkInTime, a.checkOutTime, a.recordDate, a.attendanceType, " +
+            "CASE WHEN a.attendanceType = 'ANNUAL_LEAVE' THEN 'ANNUAL_LEAVE' " +
+            "WHEN a.checkOutTime IS NULL THEN 'IN_PROGRESS' ELSE 'COMPLETED' END, a.updatedAt) " +
+            "FROM AttendanceRecord a JOIN a.user u ";
+
+    /**
+     * 確定時刻より前に追加・更新された勤怠記録の先頭から(更新順)
+     * (updated_at, record_id) のインデックスをシークする
+     */
+    @Query(CHANGE_SELECT +
+            "WHERE a.updatedAt < :settledBefore " +
+            "ORDER BY a.updatedAt, a.recordId")
+    List<AttendanceChange> findChanges(
+            @Param("settledBefore") LocalDateTime settledBefore,
+            Pageable pageable);
+
+    /**
+     * ウォーターマークより後、確定時刻より前に追加・更新された勤怠記録(更新順)
+     */
+    @Query(CHANGE_SELECT +
+            "WHERE a.updatedAt < :settledBefore " +
+            "AND (a.updatedAt > :afterTime OR (a.updatedAt = :afterTime AND a.recordId > :afterId)) " +
+            "ORDER BY a.updatedAt, a.recordId")
+    List<AttendanceChange> findChangesAfter(
+            @Param("afterTime") LocalDateTime afterTime,
+            @Param("afterId") Long afterId,
+            @Param("settledBefore") LocalDateTime settledBefore,
+            Pageable pageable);
+
+    /**
+     * 複数ユーザーの勤務日範囲内の勤怠記録を取得(バッチ取込用)
+     * 取得したエンティティは変更検知の対象外とし、更新はJDBCバッチで行う
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT a FROM AttendanceRecord a WHERE " +
+            "a.user.userId IN :userIds AND a.workDate >= :firstDay AND a.workDate <= :lastDay")
+    List<AttendanceRecord> findAllByUserIdsAndWorkDateBetween(
+            @Param("userIds") Collection<Long> userIds,
+            @Param("firstDay") LocalDate firstDay,
+            @Param("lastDay") LocalDate lastDay);
+
+    /**
+     * 複数ユーザーの勤務日範囲内で記録がある (userId, workDate) の一覧(取込時の重複確認用)
+     * (user_id, work_date) のユニークインデックスだけを読む
+     */
+    @Query("SELECT a.user.userId, a.workDate FROM AttendanceRecord a WHERE " +
+            "a.user.userId IN :userIds AND a.workDate >= :firstDay AND a.workDate <= :lastDay")
+    List<Object[]> findWorkDays(
+            @Param("userIds") Collection<Long> userIds,
+            @Param("firstDay") LocalDate firstDay,
+            @Param("lastDay") LocalDate lastDay);
+
+    /**
+     * 勤務日範囲内のユーザーごとの年休日数 [userId, 日数]
+     */
+    @Query("SELECT a.user.userId, COUNT(a) FROM AttendanceRecord a WHERE " +
+            "a.attendanceType = 'ANNUAL_LEAVE' AND a.workDate >= :firstDay AND a.workDate <= :lastDay " +
+            "GROUP BY a.user.userId")
+    List<Object[]> countLeaveDaysByUser(
+            @Param("firstDay") LocalDate firstDay,
+            @Param("lastDay") LocalDate lastDay);
+
     List<AttendanceRecord> findAllByUserAndRecordDateBetween(
             User user,
             LocalDateTime startDate,
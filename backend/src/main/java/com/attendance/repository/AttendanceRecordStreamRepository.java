@@ -0,0 +1,18 @@
+package com.attendance.repository;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import com.attendance.dto.AttendanceResponse;
+
+/**
+ * 勤怠記録をカーソルで逐次読み出すクエリ(エクスポート用)
+ */
+public interface AttendanceRecordStreamRepository {
+
+    /**
+     * 期間指定で勤怠記録をストリームで取得
+     * 呼び出し側はトランザクション内で使用し、読み終えたら閉じること
+     */
+    Stream<AttendanceResponse> streamResponsesByDateRange(LocalDateTime startDate, LocalDateTime endDate);
+}
@@ -0,0 +1,40 @@
+package com.attendance.repository;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.attendance.dto.AttendanceResponse;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * フェッチサイズを設定で切り替えられるようにするため、クエリを直接組み立てる
+ * MySQLではInteger.MIN_VALUEを指定すると1行ずつ読み出すカーソルになるが、
+ * H2などは負の値を受け付けないため正の値を指定する
+ */
+public class AttendanceRecordStreamRepositoryImpl implements AttendanceRecordStreamRepository {
+
+    private static final String STREAM_BY_DATE_RANGE = AttendanceRecordRepository.RESPONSE_SELECT +
+            "WHERE a.recordDate >= :startDate AND a.recordDate <= :endDate " +
+            "ORDER BY u.userId, a.recordDate";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${attendance.export.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSize;
+
+    @Override
+    public Stream<AttendanceResponse> streamResponsesByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        return entityManager.createQuery(STREAM_BY_DATE_RANGE, AttendanceResponse.class)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
@@ -0,0 +1,19 @@
+package com.attendance.repository;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 1件の打刻による集計テーブルへの加算量
+ */
+@Data
+@AllArgsConstructor
+public class AttendanceSummaryDelta {
+  private Long userId;
+  private LocalDate workDate;
+  private long workedMinutes;
+  private int leaveDays;
+  private int openSessions; // 出勤で+1、退勤で-1
+}
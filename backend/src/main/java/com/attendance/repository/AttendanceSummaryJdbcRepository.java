@@ -0,0 +1,147 @@
+package com.attendance.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.attendance.dto.MonthlySummaryResponse;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 日次・月次の勤務時間集計テーブル
+ * 打刻ごとに加算し、集計が必要なときに生データを読み直さずに済むようにする
+ */
+@Repository
+@RequiredArgsConstructor
+public class AttendanceSummaryJdbcRepository {
+
+  private static final String UPSERT_DAILY_SQL = "INSERT INTO attendance_daily_summary "
+      + "(user_id, work_date, worked_minutes, leave_days, open_sessions) VALUES (?, ?, ?, ?, ?) "
+      + "ON DUPLICATE KEY UPDATE "
+      + "worked_minutes = worked_minutes + VALUES(worked_minutes), "
+      + "leave_days = leave_days + VALUES(leave_days), "
+      + "open_sessions = open_sessions + VALUES(open_sessions)";
+
+  private static final String UPSERT_MONTHLY_SQL = "INSERT INTO attendance_monthly_summary "
+      + "(summary_month, user_id, worked_minutes, leave_days, open_sessions) VALUES (?, ?, ?, ?, ?) "
+      + "ON DUPLICATE KEY UPDATE "
+      + "worked_minutes = worked_minutes + VALUES(worked_minutes), "
+      + "leave_days = leave_days + VALUES(leave_days), "
+      + "open_sessions = open_sessions + VALUES(open_sessions)";
+
+  private static final String SELECT_MONTHLY_SQL = "SELECT m.user_id, u.username, "
+      + "m.worked_minutes, m.leave_days, m.open_sessions "
+      + "FROM attendance_monthly_summary m JOIN users u ON u.user_id = m.user_id "
+      + "WHERE m.summary_month = ? ORDER BY m.user_id";
+
+  private static final String REBUILD_DAILY_SQL = "INSERT INTO attendance_daily_summary "
+      + "(user_id, work_date, worked_minutes, leave_days, open_sessions) "
+      + "SELECT user_id, work_date, "
+      + "SUM(CASE WHEN attendance_type = 'WORK' AND check_in_time IS NOT NULL AND check_out_time IS NOT NULL "
+      + "THEN TIMESTAMPDIFF(MINUTE, check_in_time, check_out_time) ELSE 0 END), "
+      + "SUM(CASE WHEN attendance_type = 'ANNUAL_LEAVE' THEN 1 ELSE 0 END), "
+      + "SUM(CASE WHEN attendance_type = 'WORK' AND check_in_time IS NOT NULL AND check_out_time IS NULL "
+      + "THEN 1 ELSE 0 END) "
+      + "FROM attendance_records ";
+
+  private static final String REBUILD_MONTHLY_SQL = "INSERT INTO attendance_monthly_summary "
+      + "(summary_month, user_id, worked_minutes, leave_days, open_sessions) "
+      + "SELECT YEAR(work_date) * 100 + MONTH(work_date), user_id, "
+      + "SUM(worked_minutes), SUM(leave_days), SUM(open_sessions) "
+      + "FROM attendance_daily_summary ";
+
+  private static final String REBUILD_DAILY_GROUP_BY = "GROUP BY user_id, work_date";
+
+  private static final String REBUILD_MONTHLY_GROUP_BY = "GROUP BY YEAR(work_date) * 100 + MONTH(work_date), user_id";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * 打刻による加算量を日次・月次の集計にまとめて反映
+   */
+  public void applyDeltas(List<AttendanceSummaryDelta> deltas) {
+    if (deltas.isEmpty()) {
+      return;
+    }
+
+    jdbcTemplate.batchUpdate(UPSERT_DAILY_SQL, new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        AttendanceSummaryDelta delta = deltas.get(i);
+        ps.setLong(1, delta.getUserId());
+        ps.setObject(2, delta.getWorkDate());
+        ps.setLong(3, delta.getWorkedMinutes());
+        ps.setInt(4, delta.getLeaveDays());
+        ps.setInt(5, delta.getOpenSessions());
+      }
+
+      @Override
+      public int getBatchSize() {
+        return deltas.size();
+      }
+    });
+
+    jdbcTemplate.batchUpdate(UPSERT_MONTHLY_SQL, new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        AttendanceSummaryDelta delta = deltas.get(i);
+        ps.setInt(1, toSummaryMonth(delta.getWorkDate()));
+        ps.setLong(2, delta.getUserId());
+        ps.setLong(3, delta.getWorkedMinutes());
+        ps.setInt(4, delta.getLeaveDays());
+        ps.setInt(5, delta.getOpenSessions());
+      }
+
+      @Override
+      public int getBatchSize() {
+        return deltas.size();
+      }
+    });
+  }
+
+  /**
+   * 月次集計を取得(月の主キー範囲を読むためユーザー数に比例)
+   */
+  public List<MonthlySummaryResponse> findMonthly(YearMonth month) {
+    String monthText = month.toString();
+    return jdbcTemplate.query(SELECT_MONTHLY_SQL,
+        (rs, rowNum) -> new MonthlySummaryResponse(
+            rs.getLong("user_id"),
+            rs.getString("username"),
+            monthText,
+            rs.getLong("worked_minutes"),
+            rs.getInt("leave_days"),
+            rs.getInt("open_sessions")),
+        month.getYear() * 100 + month.getMonthValue());
+  }
+
+  /**
+   * 集計テーブルを勤怠記録から作り直す
+   * from が null でなければ勤務日が from 以降の分だけを作り直す(from は月初日)
+   */
+  public void rebuild(LocalDate from) {
+    if (from == null) {
+      jdbcTemplate.update("DELETE FROM attendance_monthly_summary");
+      jdbcTemplate.update("DELETE FROM attendance_daily_summary");
+      jdbcTemplate.update(REBUILD_DAILY_SQL + REBUILD_DAILY_GROUP_BY);
+      jdbcTemplate.update(REBUILD_MONTHLY_SQL + REBUILD_MONTHLY_GROUP_BY);
+      return;
+    }
+
+    jdbcTemplate.update("DELETE FROM attendance_monthly_summary WHERE summary_month >= ?", toSummaryMonth(from));
+    jdbcTemplate.update("DELETE FROM attendance_daily_summary WHERE work_date >= ?", from);
+    jdbcTemplate.update(REBUILD_DAILY_SQL + "WHERE work_date >= ? " + REBUILD_DAILY_GROUP_BY, from);
+    jdbcTemplate.update(REBUILD_MONTHLY_SQL + "WHERE work_date >= ? " + REBUILD_MONTHLY_GROUP_BY, from);
+  }
+
+  private static int toSummaryMonth(LocalDate date) {
+    return date.getYear() * 100 + date.getMonthValue();
+  }
+}
@@ -0,0 +1,23 @@
+package com.attendance.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * DBサーバーの現在時刻
+ * updated_at はDBの時刻で設定されるため、比較にはアプリケーションサーバーの時計を使わない
+ */
+@Repository
+@RequiredArgsConstructor
+public class DatabaseClockJdbcRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public LocalDateTime now() {
+    return jdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP(6)", LocalDateTime.class);
+  }
+}
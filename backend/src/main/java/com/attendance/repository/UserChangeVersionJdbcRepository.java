@@ -0,0 +1,56 @@
+package com.attendance.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * ユーザーごとの勤怠記録の変更バージョン(users.change_version)
+ * 勤怠記録を変更する処理は同じトランザクション内で必ず加算すること
+ * 条件付きGET(ETag)はこの値だけを見て304を返す
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserChangeVersionJdbcRepository {
+
+  private static final String SELECT_SQL = "SELECT change_version FROM users WHERE user_id = ?";
+
+  private static final String INCREMENT_SQL =
+      "UPDATE users SET change_version = change_version + 1 WHERE user_id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * 変更バージョンを取得(ユーザーが存在しない場合はnull)
+   */
+  public Long find(Long userId) {
+    List<Long> versions = jdbcTemplate.queryForList(SELECT_SQL, Long.class, userId);
+    return versions.isEmpty() ? null : versions.get(0);
+  }
+
+  /**
+   * 変更バージョンを加算
+   */
+  public void increment(Long userId) {
+    jdbcTemplate.update(INCREMENT_SQL, userId);
+  }
+
+  /**
+   * 複数ユーザーの変更バージョンを加算
+   * 行ロックの取得順を揃えるためユーザーIDの昇順で更新する
+   */
+  public void incrementAll(Collection<Long> userIds) {
+    if (userIds.isEmpty()) {
+      return;
+    }
+    List<Object[]> args = userIds.stream()
+        .sorted()
+        .map(userId -> new Object[] { userId })
+        .toList();
+    jdbcTemplate.batchUpdate(INCREMENT_SQL, args);
+  }
+}
@@ -1,15 +1,74 @@
 package com.attendance.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.attendance.config.UserCacheConfig;
+import com.attendance.dto.UserSummary;
 import com.attendance.model.User;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+  /**
+   * ユーザー名で取得(検索結果をキャッシュし、users の更新時に無効化される)
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+      @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = UserCacheConfig.USER_LOOKUP_REGION) })
   Optional<User> findByUsername(String username);
 
+  /**
+   * メールアドレスで取得(検索結果をキャッシュし、users の更新時に無効化される)
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+      @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = UserCacheConfig.USER_LOOKUP_REGION) })
   Optional<User> findByEmail(String email);
+
+  /**
+   * 一覧用のSELECT句(勤怠記録は読み込まない)
+   */
+  String SUMMARY_SELECT = "SELECT new com.attendance.dto.UserSummary(u.userId, u.username, u.email, u.role) " +
+      "FROM User u ";
+
+  @Query(SUMMARY_SELECT + "ORDER BY u.userId")
+  List<UserSummary> findAllSummaries();
+
+  @Query(SUMMARY_SELECT + "WHERE u.userId = :userId")
+  Optional<UserSummary> findSummaryById(@Param("userId") Long userId);
+
+  /**
+   * ユーザー名からまとめて取得(取込時のユーザー解決用)
+   */
+  @Query(SUMMARY_SELECT + "WHERE u.username IN :usernames")
+  List<UserSummary> findSummariesByUsernames(@Param("usernames") Collection<String> usernames);
+
+  /**
+   * ユーザーIDからまとめて取得(アーカイブから読んだ勤怠記録のユーザー名の解決用)
+   */
+  @Query(SUMMARY_SELECT + "WHERE u.userId IN :userIds")
+  List<UserSummary> findSummariesByIds(@Param("userIds") Collection<Long> userIds);
+
+  /**
+   * ユーザー名の前方一致とカーソル(直前のページの末尾のユーザー名)で1ページ分を取得
+   * idx_username をユーザー名の範囲でシークする
+   */
+  @Query(SUMMARY_SELECT +
+      "WHERE u.username LIKE :pattern ESCAPE '\\' AND u.username > :after " +
+      "ORDER BY u.username")
+  List<UserSummary> findSummaryPage(
+      @Param("pattern") String pattern,
+      @Param("after") String after,
+      Pageable pageable);
 }
@@ -0,0 +1,204 @@
+package com.attendance.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.attendance.archive.MonthArchive;
+import com.attendance.repository.ArchivedMonth;
+import com.attendance.repository.AttendanceArchiveJdbcRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * アーカイブ済みの月とファイルの対応
+ * 管理テーブルを定期的に読み直し、このインスタンスで開けた月までをアーカイブから読む範囲とする
+ * ファイルは一度書いたら変更しないため、開いたマップは破棄せずに使い続ける
+ */
+@Component
+@Slf4j
+public class AttendanceArchiveCatalog {
+
+  private final AttendanceArchiveJdbcRepository attendanceArchiveJdbcRepository;
+  private final Path directory;
+  private final Clock clock;
+
+  private final Map<YearMonth, MonthArchive> opened = new ConcurrentHashMap<>();
+  private volatile Snapshot snapshot;
+
+  public AttendanceArchiveCatalog(
+      AttendanceArchiveJdbcRepository attendanceArchiveJdbcRepository,
+      @Value("${attendance.archive.dir:archive}") String directory,
+      Clock clock) {
+    this.attendanceArchiveJdbcRepository = attendanceArchiveJdbcRepository;
+    this.directory = Path.of(directory);
+    this.clock = clock;
+  }
+
+  /**
+   * 現在のアーカイブの範囲(初回は管理テーブルを読む)
+   */
+  public Snapshot getSnapshot() {
+    Snapshot current = snapshot;
+    if (current == null) {
+      synchronized (this) {
+        current = snapshot;
+        if (current == null) {
+          current = refresh();
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * 管理テーブルを読み直し、新しい月のファイルを開く
+   * ファイルを開けない月は、MySQLから削除済みならその月を読めない状態とし、
+   * 削除前ならその月以降をMySQLから読む
+   */
+  @Scheduled(fixedDelayString = "${attendance.archive.refresh-interval:60000}")
+  public synchronized Snapshot refresh() {
+    List<ArchivedMonth> months = attendanceArchiveJdbcRepository.findMonths();
+    NavigableMap<YearMonth, MonthArchive> available = new TreeMap<>();
+    Set<YearMonth> unavailable = new TreeSet<>();
+    YearMonth archivedBefore = null;
+    for (ArchivedMonth month : months) {
+      if (archivedBefore != null && !month.getMonth().equals(archivedBefore)) {
+        log.error("アーカイブ済みの月が連続していません: {} の次が {}", archivedBefore.minusMonths(1), month.getMonth());
+        break;
+      }
+      MonthArchive archive = open(month);
+      if (archive != null) {
+        available.put(month.getMonth(), archive);
+      } else if (month.isPurged()) {
+        unavailable.add(month.getMonth());
+      } else {
+        break;
+      }
+      archivedBefore = month.getMonth().plusMonths(1);
+    }
+
+    if (!unavailable.isEmpty()) {
+      log.error("MySQLから削除済みの月のアーカイブファイルを開けません: {} (ディレクトリ: {})",
+          unavailable, directory.toAbsolutePath());
+    }
+    Snapshot refreshed = new Snapshot(
+        archivedBefore == null ? null : archivedBefore.atDay(1).atStartOfDay(),
+        Collections.unmodifiableNavigableMap(available),
+        Collections.unmodifiableSet(unavailable));
+    snapshot = refreshed;
+    return refreshed;
+  }
+
+  /**
+   * 過去の月へ書き込む前に、変更を受け付けない月の境界を行ロックして返す
+   * firstDay が当月なら(アーカイブの対象にならないため)ロックせずnull
+   * トランザクション内で呼び出し、境界より前の日の書き込みは行わないこと
+   */
+  public LocalDate lockSealedBefore(LocalDate firstDay) {
+    if (!firstDay.isBefore(LocalDate.now(clock).withDayOfMonth(1))) {
+      return null;
+    }
+    return attendanceArchiveJdbcRepository.lockSealedBefore();
+  }
+
+  /**
+   * 月のアーカイブファイルのパス
+   */
+  public Path pathOf(YearMonth month) {
+    return directory.resolve("attendance-" + month + ".arc");
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * 月のファイルを開く(開けない場合・管理テーブルと一致しない場合はnull)
+   */
+  private MonthArchive open(ArchivedMonth month) {
+    MonthArchive archive = opened.get(month.getMonth());
+    if (archive != null) {
+      return archive;
+    }
+    Path file = pathOf(month.getMonth());
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try {
+      archive = MonthArchive.open(file);
+    } catch (IOException | IllegalStateException e) {
+      log.error("アーカイブファイルを開けません: {}", file, e);
+      return null;
+    }
+    if (archive.getChecksum() != month.getChecksum() || archive.getRowCount() != month.getRowCount()
+        || !archive.getMonth().equals(month.getMonth())) {
+      log.error("アーカイブファイルが管理テーブルと一致しません: {}", file);
+      return null;
+    }
+    opened.put(month.getMonth(), archive);
+    return archive;
+  }
+
+  /**
+   * アーカイブの範囲
+   * archivedBefore より前の勤怠記録はアーカイブから読む(null の場合はアーカイブなし)
+   * unavailable はMySQLから削除済みでファイルを開けない月(読もうとするとIllegalStateException)
+   */
+  public record Snapshot(
+      LocalDateTime archivedBefore,
+      NavigableMap<YearMonth, MonthArchive> months,
+      Set<YearMonth> unavailable) {
+
+    /**
+     * 記録日時が [from, to] の範囲にかかるアーカイブ(古い順)
+     */
+    public List<MonthArchive> covering(LocalDateTime from, LocalDateTime to) {
+      if (archivedBefore == null || !from.isBefore(archivedBefore) || to.isBefore(from)) {
+        return List.of();
+      }
+      YearMonth first = YearMonth.from(from);
+      YearMonth last = YearMonth.from(to.isBefore(archivedBefore) ? to : archivedBefore.minusNanos(1));
+      for (YearMonth month : unavailable) {
+        if (!month.isBefore(first) && !month.isAfter(last)) {
+          throw new IllegalStateException(month + " の勤怠記録はMySQLから削除済みで、アーカイブファイルを開けません");
+        }
+      }
+      return List.copyOf(months.subMap(first, true, last, true).values());
+    }
+
+    /**
+     * すべてのアーカイブ(MySQLから削除済みで開けない月がある場合はIllegalStateException)
+     */
+    public NavigableMap<YearMonth, MonthArchive> all() {
+      if (!unavailable.isEmpty()) {
+        throw new IllegalStateException(unavailable + " の勤怠記録はMySQLから削除済みで、アーカイブファイルを開けません");
+      }
+      return months;
+    }
+
+    public long getRowCount() {
+      return months.values().stream().mapToLong(MonthArchive::getRowCount).sum();
+    }
+
+    public long getFileSize() {
+      return months.values().stream().mapToLong(MonthArchive::getFileSize).sum();
+    }
+  }
+}
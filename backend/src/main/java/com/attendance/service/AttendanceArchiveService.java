@@ -0,0 +1,268 @@
+package com.attendance.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.attendance.archive.MonthArchive;
+import com.attendance.archive.MonthArchiveWriter;
+import com.attendance.config.ClockConfig;
+import com.attendance.dto.ArchiveMonthResponse;
+import com.attendance.dto.AttendanceResponse;
+import com.attendance.repository.ArchivedMonth;
+import com.attendance.repository.AttendanceArchiveJdbcRepository;
+import com.attendance.repository.AttendanceRecordRepository;
+import com.attendance.repository.DatabaseClockJdbcRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 締めた月の勤怠記録を列指向のアーカイブファイルに移す
+ * 直近 keep-months か月より前の月を古い順にファイルへ書き出し、件数を確かめてから管理テーブルに登録する
+ * purge が有効な場合、登録から purge-delay 経過し、このインスタンスでファイルを読めることを確認した月をMySQLから削除する
+ */
+@Service
+@Slf4j
+public class AttendanceArchiveService {
+
+  private final AttendanceArchiveJdbcRepository attendanceArchiveJdbcRepository;
+  private final AttendanceArchiveCatalog attendanceArchiveCatalog;
+  private final AttendanceRecordRepository attendanceRecordRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final DatabaseClockJdbcRepository databaseClockJdbcRepository;
+  private final Clock clock;
+  private final boolean enabled;
+  private final int keepMonths;
+  private final boolean purge;
+  private final Duration purgeDelay;
+
+  private final ReentrantLock running = new ReentrantLock();
+
+  public AttendanceArchiveService(
+      AttendanceArchiveJdbcRepository attendanceArchiveJdbcRepository,
+      AttendanceArchiveCatalog attendanceArchiveCatalog,
+      AttendanceRecordRepository attendanceRecordRepository,
+      TransactionTemplate transactionTemplate,
+      DatabaseClockJdbcRepository databaseClockJdbcRepository,
+      Clock clock,
+      @Value("${attendance.archive.enabled:false}") boolean enabled,
+      @Value("${attendance.archive.keep-months:2}") int keepMonths,
+      @Value("${attendance.archive.purge:false}") boolean purge,
+      @Value("${attendance.archive.purge-delay:1d}") Duration purgeDelay) {
+    if (keepMonths < 1) {
+      throw new IllegalArgumentException("attendance.archive.keep-months は1以上を指定してください");
+    }
+    this.attendanceArchiveJdbcRepository = attendanceArchiveJdbcRepository;
+    this.attendanceArchiveCatalog = attendanceArchiveCatalog;
+    this.attendanceRecordRepository = attendanceRecordRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.databaseClockJdbcRepository = databaseClockJdbcRepository;
+    this.clock = clock;
+    this.enabled = enabled;
+    this.keepMonths = keepMonths;
+    this.purge = purge;
+    this.purgeDelay = purgeDelay;
+  }
+
+  /**
+   * 定期実行(enabled の場合のみ)
+   */
+  @Scheduled(cron = "${attendance.archive.cron:0 30 3 * * *}", zone = ClockConfig.ZONE_ID)
+  public void runScheduled() {
+    if (enabled && run() == null) {
+      log.warn("前回のアーカイブ処理が実行中のため、今回の実行を見送りました");
+    }
+  }
+
+  /**
+   * アーカイブと(有効な場合は)MySQLからの削除を1回実行し、アーカイブした月を返す
+   * このインスタンスで実行中の場合はnull
+   */
+  public List<YearMonth> run() {
+    if (!running.tryLock()) {
+      return null;
+    }
+    try {
+      List<YearMonth> archived = archiveClosedMonths();
+      if (purge) {
+        purgeArchivedMonths();
+      }
+      return archived;
+    } finally {
+      running.unlock();
+    }
+  }
+
+  /**
+   * 管理テーブルの最後の月の翌月(初回は最も古い勤怠記録の月)から、保持する月の前までをアーカイブする
+   * 記録のない月も空のファイルとして登録し、アーカイブ済みの月が連続するようにする
+   */
+  public List<YearMonth> archiveClosedMonths() {
+    YearMonth limit = YearMonth.now(clock).minusMonths(keepMonths - 1);
+    List<ArchivedMonth> months = attendanceArchiveJdbcRepository.findMonths();
+    YearMonth next;
+    if (!months.isEmpty()) {
+      next = months.get(months.size() - 1).getMonth().plusMonths(1);
+    } else {
+      LocalDateTime firstRecordDate = attendanceArchiveJdbcRepository.findFirstRecordDate();
+      if (firstRecordDate == null) {
+        return List.of();
+      }
+      next = YearMonth.from(firstRecordDate);
+    }
+
+    List<YearMonth> archived = new ArrayList<>();
+    for (; next.isBefore(limit); next = next.plusMonths(1)) {
+      try {
+        if (archiveMonth(next)) {
+          archived.add(next);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(next + " のアーカイブファイルを書き出せませんでした", e);
+      }
+    }
+    if (!archived.isEmpty()) {
+      attendanceArchiveCatalog.refresh();
+    }
+    return archived;
+  }
+
+  /**
+   * MySQLから削除できる月の勤怠記録を古い順に削除し、削除した件数を返す
+   * 削除中の月の集計の作り直しを防ぐため、先に管理テーブルに削除済みと記録してから1日ずつ削除する
+   * (途中で失敗した場合も、次回の実行で残りを削除する)
+   */
+  public long purgeArchivedMonths() {
+    AttendanceArchiveCatalog.Snapshot snapshot = attendanceArchiveCatalog.refresh();
+    // archived_at はDBの時刻で記録されるため、DBの時計と比べる
+    LocalDateTime threshold = databaseClockJdbcRepository.now().minus(purgeDelay);
+    long deleted = 0;
+    for (ArchivedMonth month : attendanceArchiveJdbcRepository.findMonths()) {
+      if (!month.isPurged() && month.getArchivedAt().isAfter(threshold)) {
+        break;
+      }
+      if (!snapshot.months().containsKey(month.getMonth())) {
+        log.warn("{} のアーカイブファイルをこのインスタンスで読めないため、MySQLから削除しません", month.getMonth());
+        break;
+      }
+      if (!month.isPurged()) {
+        attendanceArchiveJdbcRepository.markPurged(month.getMonth());
+      }
+
+      long monthDeleted = 0;
+      for (LocalDate day = month.getMonth().atDay(1); YearMonth.from(day).equals(month.getMonth());
+          day = day.plusDays(1)) {
+        monthDeleted += attendanceArchiveJdbcRepository.deleteRecords(
+            day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+      }
+      if (monthDeleted > 0) {
+        log.info("{} の勤怠記録をMySQLから削除しました ({}件)", month.getMonth(), monthDeleted);
+      }
+      deleted += monthDeleted;
+    }
+    return deleted;
+  }
+
+  /**
+   * アーカイブ済みの月の一覧(available はこのインスタンスでファイルから読めるか)
+   */
+  public List<ArchiveMonthResponse> getStatus() {
+    AttendanceArchiveCatalog.Snapshot snapshot = attendanceArchiveCatalog.getSnapshot();
+    List<ArchiveMonthResponse> status = new ArrayList<>();
+    for (ArchivedMonth month : attendanceArchiveJdbcRepository.findMonths()) {
+      status.add(new ArchiveMonthResponse(
+          month.getMonth().toString(),
+          month.getRowCount(),
+          month.getFileSize(),
+          month.getArchivedAt(),
+          month.getPurgedAt(),
+          snapshot.months().containsKey(month.getMonth())));
+    }
+    return status;
+  }
+
+  /**
+   * 1か月分をアーカイブし、管理テーブルに登録する(他インスタンスが登録済みの場合はfalse)
+   */
+  private boolean archiveMonth(YearMonth month) throws IOException {
+    long start = System.currentTimeMillis();
+    LocalDateTime from = month.atDay(1).atStartOfDay();
+    LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+
+    // 以降の書き込みを拒否し、この月に書き込み中のトランザクションの完了を待つ
+    transactionTemplate.executeWithoutResult(status -> {
+      LocalDate sealedBefore = attendanceArchiveJdbcRepository.lockSealedBefore();
+      LocalDate next = to.toLocalDate();
+      if (sealedBefore == null || sealedBefore.isBefore(next)) {
+        attendanceArchiveJdbcRepository.updateSealedBefore(next);
+      }
+    });
+
+    // 読み取り専用にするとレプリカへ振り分けられるため、書き込みと同じプライマリから読む
+    // (記録日時は秒単位のため、月末の最後の秒までを対象にする)
+    MonthArchiveWriter writer = new MonthArchiveWriter(month);
+    transactionTemplate.executeWithoutResult(status -> {
+      try (Stream<AttendanceResponse> rows =
+          attendanceRecordRepository.streamResponsesByDateRange(from, to.minusSeconds(1))) {
+        rows.forEach(writer::add);
+      }
+    });
+
+    Path file = writeFile(month, writer);
+    MonthArchive archive = MonthArchive.open(file);
+    long count = attendanceArchiveJdbcRepository.countRecords(from, to);
+    if (archive.getRowCount() != count) {
+      throw new IllegalStateException(month + " のアーカイブの件数がMySQLと一致しません: "
+          + archive.getRowCount() + "件 / " + count + "件");
+    }
+
+    try {
+      attendanceArchiveJdbcRepository.insertMonth(month, archive.getRowCount(), archive.getFileSize(),
+          archive.getChecksum());
+    } catch (DuplicateKeyException e) {
+      log.info("{} は他のインスタンスがアーカイブ済みです", month);
+      return false;
+    }
+    log.info("{} をアーカイブしました ({}件, {}バイト, {}ms)",
+        month, archive.getRowCount(), archive.getFileSize(), System.currentTimeMillis() - start);
+    return true;
+  }
+
+  /**
+   * 一時ファイルに書き出してディスクに同期してから、月のファイル名に置き換える
+   */
+  private Path writeFile(YearMonth month, MonthArchiveWriter writer) throws IOException {
+    Files.createDirectories(attendanceArchiveCatalog.getDirectory());
+    Path target = attendanceArchiveCatalog.pathOf(month);
+    Path temp = Files.createTempFile(attendanceArchiveCatalog.getDirectory(), "attendance-" + month + "-", ".tmp");
+    try {
+      writer.writeTo(temp);
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        channel.force(true);
+      }
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    return target;
+  }
+}
@@ -0,0 +1,263 @@
+package com.attendance.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.attendance.dto.AttendanceBatchItemResult;
+import com.attendance.dto.AttendanceBatchResponse;
+import com.attendance.dto.AttendanceErrorCode;
+import com.attendance.dto.AttendanceRequest;
+import com.attendance.model.AttendanceRecord;
+import com.attendance.model.User;
+import com.attendance.repository.AttendanceRecordJdbcRepository;
+import com.attendance.repository.AttendanceRecordRepository;
+import com.attendance.repository.AttendanceSummaryDelta;
+import com.attendance.repository.AttendanceSummaryJdbcRepository;
+import com.attendance.repository.UserChangeVersionJdbcRepository;
+import com.attendance.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 打刻端末からのバッチ取込
+ * ユーザーと対象日の既存記録をまとめて読み込み、打刻時刻順にルールを適用してJDBCバッチで書き込む
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttendanceBatchService {
+
+  private static final int MAX_BATCH_SIZE = 1000;
+
+  // 端末の時計のずれとして許容する、受信時刻より後の打刻時刻
+  private static final Duration MAX_CLOCK_SKEW = Duration.ofMinutes(5);
+
+  private final AttendanceRecordRepository attendanceRecordRepository;
+  private final AttendanceRecordJdbcRepository attendanceRecordJdbcRepository;
+  private final AttendanceSummaryJdbcRepository attendanceSummaryJdbcRepository;
+  private final UserRepository userRepository;
+  private final UserChangeVersionJdbcRepository userChangeVersionJdbcRepository;
+  private final TodayAttendanceCache todayAttendanceCache;
+  private final UserLockStripes userLockStripes;
+  private final TransactionTemplate transactionTemplate;
+  private final AttendanceArchiveCatalog attendanceArchiveCatalog;
+  private final Clock clock;
+
+  /**
+   * 打刻をまとめて記録
+   * 保持するロックのストライプ数が上限以下になるようユーザー単位でグループに分け、
+   * グループごとにロックを取得して1トランザクションで書き込む(同じユーザーの打刻は同じグループに入る)
+   * 他インスタンスの打刻と競合したグループはロールバックし、その打刻を CONCURRENT_UPDATE とする
+   */
+  public AttendanceBatchResponse recordBatch(List<AttendanceRequest> requests) {
+    if (requests.size() > MAX_BATCH_SIZE) {
+      throw new IllegalArgumentException("一度に取り込める打刻は" + MAX_BATCH_SIZE + "件までです");
+    }
+
+    Set<Long> userIds = requests.stream()
+        .filter(Objects::nonNull)
+        .map(AttendanceRequest::getUserId)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+
+    // ユーザーIDのない打刻は(ロックを取らずに除外されるため)最初のグループで扱う
+    List<Set<Long>> groups = new ArrayList<>(userLockStripes.partition(userIds));
+    if (groups.isEmpty()) {
+      groups.add(Set.of());
+    }
+    Map<Long, Integer> groupOf = new HashMap<>();
+    for (int g = 0; g < groups.size(); g++) {
+      for (Long userId : groups.get(g)) {
+        groupOf.put(userId, g);
+      }
+    }
+    List<List<Integer>> indexesByGroup = new ArrayList<>();
+    groups.forEach(group -> indexesByGroup.add(new ArrayList<>()));
+    for (int i = 0; i < requests.size(); i++) {
+      AttendanceRequest request = requests.get(i);
+      Long userId = request == null ? null : request.getUserId();
+      indexesByGroup.get(userId == null ? 0 : groupOf.get(userId)).add(i);
+    }
+
+    AttendanceBatchItemResult[] results = new AttendanceBatchItemResult[requests.size()];
+    for (int g = 0; g < groups.size(); g++) {
+      Set<Long> groupUserIds = groups.get(g);
+      List<Integer> indexes = indexesByGroup.get(g);
+      List<AttendanceRequest> groupRequests = indexes.stream().map(requests::get).collect(Collectors.toList());
+
+      List<AttendanceBatchItemResult> groupResults;
+      try {
+        groupResults = userLockStripes.withLocks(groupUserIds,
+            () -> transactionTemplate.execute(status -> recordInTransaction(groupRequests, groupUserIds)));
+      } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+        // 端末側で該当の打刻だけを再送する
+        log.warn("バッチ取込: 他の打刻と競合したため{}件を記録しませんでした", groupRequests.size(), e);
+        AttendanceErrorCode error = AttendanceErrorCode.CONCURRENT_UPDATE;
+        groupResults = groupRequests.stream()
+            .map(request -> new AttendanceBatchItemResult(0, false, error, error.getMessage(), null))
+            .collect(Collectors.toList());
+      }
+
+      for (int j = 0; j < indexes.size(); j++) {
+        AttendanceBatchItemResult result = groupResults.get(j);
+        result.setIndex(indexes.get(j));
+        results[indexes.get(j)] = result;
+      }
+    }
+
+    // 結果はリクエスト順で返す
+    int accepted = 0;
+    for (AttendanceBatchItemResult result : results) {
+      accepted += result.isSuccess() ? 1 : 0;
+    }
+    log.debug("バッチ取込: {}件中{}件を記録 ({}トランザクション)", requests.size(), accepted, groups.size());
+    return new AttendanceBatchResponse(accepted, requests.size() - accepted, List.of(results));
+  }
+
+  /**
+   * 1グループの打刻を記録し、グループ内の順で結果を返す
+   */
+  private List<AttendanceBatchItemResult> recordInTransaction(List<AttendanceRequest> requests, Set<Long> userIds) {
+    AttendanceRecord[] applied = new AttendanceRecord[requests.size()];
+    AttendanceErrorCode[] errors = new AttendanceErrorCode[requests.size()];
+
+    // 空の要素・受信時刻より先の打刻時刻はその打刻だけを除外する(打刻時刻はnull)
+    LocalDateTime receivedAt = LocalDateTime.now(clock);
+    LocalDateTime latestEventTime = receivedAt.plus(MAX_CLOCK_SKEW);
+    List<LocalDateTime> eventTimes = new ArrayList<>(requests.size());
+    for (int i = 0; i < requests.size(); i++) {
+      AttendanceRequest request = requests.get(i);
+      LocalDateTime eventTime = null;
+      if (request == null) {
+        errors[i] = AttendanceErrorCode.INVALID_TYPE;
+      } else if (request.getTimestamp() == null) {
+        eventTime = receivedAt;
+      } else if (request.getTimestamp().isAfter(latestEventTime)) {
+        errors[i] = AttendanceErrorCode.INVALID_TIMESTAMP;
+      } else {
+        eventTime = request.getTimestamp();
+      }
+      eventTimes.add(eventTime);
+    }
+
+    // 打刻時刻順(同時刻はリクエスト順)に適用
+    List<Integer> order = IntStream.range(0, requests.size())
+        .filter(i -> eventTimes.get(i) != null)
+        .boxed()
+        .sorted(Comparator.comparing(eventTimes::get))
+        .collect(Collectors.toList());
+    LocalDate firstDay = order.isEmpty() ? null : eventTimes.get(order.get(0)).toLocalDate();
+    LocalDate lastDay = order.isEmpty() ? null : eventTimes.get(order.get(order.size() - 1)).toLocalDate();
+
+    // アーカイブ中・アーカイブ済みの月へは書き込まない(境界の行ロックはコミットまで保持する)
+    LocalDate sealedBefore = firstDay == null ? null : attendanceArchiveCatalog.lockSealedBefore(firstDay);
+
+    // ユーザーをまとめて取得
+    Map<Long, User> users = userRepository.findAllById(userIds).stream()
+        .collect(Collectors.toMap(User::getUserId, Function.identity()));
+
+    // 対象日の既存記録をまとめて取得
+    Map<DayKey, AttendanceRecord> dayRecords = loadDayRecords(users.keySet(), firstDay, lastDay);
+
+    List<AttendanceRecord> inserts = new ArrayList<>();
+    // エンティティのequals/hashCodeは関連を辿るため同一性で管理する
+    Set<AttendanceRecord> updates = Collections.newSetFromMap(new IdentityHashMap<>());
+    List<AttendanceSummaryDelta> summaryDeltas = new ArrayList<>();
+    Set<Long> touchedUserIds = new HashSet<>();
+
+    for (int index : order) {
+      AttendanceRequest request = requests.get(index);
+      User user = request.getUserId() == null ? null : users.get(request.getUserId());
+      if (user == null) {
+        errors[index] = AttendanceErrorCode.USER_NOT_FOUND;
+        continue;
+      }
+
+      LocalDateTime eventTime = eventTimes.get(index);
+      if (sealedBefore != null && eventTime.toLocalDate().isBefore(sealedBefore)) {
+        errors[index] = AttendanceErrorCode.MONTH_ARCHIVED;
+        continue;
+      }
+
+      DayKey key = new DayKey(user.getUserId(), eventTime.toLocalDate());
+      AttendanceRecord existing = dayRecords.get(key);
+
+      AttendanceErrorCode error = AttendanceRules.validate(request.getType(), existing, eventTime);
+      if (error != null) {
+        errors[index] = error;
+        continue;
+      }
+
+      AttendanceRecord record = AttendanceRules.apply(request.getType(), user, existing, eventTime);
+      if (record != existing) {
+        inserts.add(record);
+        dayRecords.put(key, record);
+      } else if (record.getRecordId() != null) {
+        updates.add(record);
+      }
+      applied[index] = record;
+      summaryDeltas.add(AttendanceRules.summaryDelta(request.getType(), record));
+      touchedUserIds.add(user.getUserId());
+    }
+
+    attendanceRecordJdbcRepository.batchInsert(inserts);
+    attendanceRecordJdbcRepository.batchUpdateCheckOut(new ArrayList<>(updates));
+    attendanceSummaryJdbcRepository.applyDeltas(summaryDeltas);
+    userChangeVersionJdbcRepository.incrementAll(touchedUserIds);
+    todayAttendanceCache.evictAfterCommit(touchedUserIds);
+
+    List<AttendanceBatchItemResult> results = new ArrayList<>(requests.size());
+    for (int i = 0; i < requests.size(); i++) {
+      if (applied[i] != null) {
+        results.add(new AttendanceBatchItemResult(
+            i, true, null, null, AttendanceService.mapToResponse(applied[i])));
+      } else {
+        results.add(new AttendanceBatchItemResult(i, false, errors[i], errors[i].getMessage(), null));
+      }
+    }
+
+    log.debug("バッチ取込: {}件を処理 (INSERT {}件, UPDATE {}件)", requests.size(), inserts.size(), updates.size());
+    return results;
+  }
+
+  /**
+   * 打刻対象日の範囲にある既存記録を (ユーザー, 日付) ごとに取得
+   */
+  private Map<DayKey, AttendanceRecord> loadDayRecords(Set<Long> userIds, LocalDate firstDay, LocalDate lastDay) {
+    Map<DayKey, AttendanceRecord> dayRecords = new HashMap<>();
+    if (userIds.isEmpty() || firstDay == null) {
+      return dayRecords;
+    }
+
+    List<AttendanceRecord> records = attendanceRecordRepository.findAllByUserIdsAndWorkDateBetween(
+        userIds, firstDay, lastDay);
+    for (AttendanceRecord record : records) {
+      dayRecords.put(new DayKey(record.getUser().getUserId(), record.getWorkDate()), record);
+    }
+    return dayRecords;
+  }
+
+  private record DayKey(Long userId, LocalDate date) {
+  }
+}
@@ -0,0 +1,89 @@
+package com.attendance.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.attendance.dto.AttendanceChange;
+import com.attendance.dto.ChangeFeedPage;
+import com.attendance.metrics.AttendanceMetrics;
+import com.attendance.repository.AttendanceRecordRepository;
+import com.attendance.repository.DatabaseClockJdbcRepository;
+
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 勤怠記録の変更フィード(下流システムの差分同期用)
+ * 追加・更新された記録を (updated_at, record_id) の順に返す
+ *
+ * updated_at は文の実行時刻で、コミットはそれより後になる。
+ * 確定待ち時間(settle-window)より新しい変更は返さず、後からコミットされた変更の取りこぼしを防ぐ
+ */
+@Service
+public class AttendanceChangeFeedService {
+
+  private static final int DEFAULT_LIMIT = 500;
+  private static final int MAX_LIMIT = 5000;
+
+  private final AttendanceRecordRepository attendanceRecordRepository;
+  private final DatabaseClockJdbcRepository databaseClockJdbcRepository;
+  private final AttendanceMetrics attendanceMetrics;
+  private final Duration settleWindow;
+
+  public AttendanceChangeFeedService(
+      AttendanceRecordRepository attendanceRecordRepository,
+      DatabaseClockJdbcRepository databaseClockJdbcRepository,
+      AttendanceMetrics attendanceMetrics,
+      @Value("${attendance.changes.settle-window:5s}") Duration settleWindow) {
+    this.attendanceRecordRepository = attendanceRecordRepository;
+    this.databaseClockJdbcRepository = databaseClockJdbcRepository;
+    this.attendanceMetrics = attendanceMetrics;
+    this.settleWindow = settleWindow;
+  }
+
+  /**
+   * ウォーターマーク以降の変更を取得(since が空の場合は先頭から)
+   * レプリカの遅延で取りこぼさないよう読み取り専用にせずプライマリで読む
+   */
+  @Transactional
+  public ChangeFeedPage getChanges(String since, Integer limit) {
+    int pageSize = resolveLimit(limit);
+    Pageable pageable = PageRequest.of(0, pageSize + 1);
+    Timer.Sample sample = attendanceMetrics.start();
+
+    LocalDateTime settledBefore = databaseClockJdbcRepository.now().minus(settleWindow);
+
+    List<AttendanceChange> rows;
+    if (since == null || since.isEmpty()) {
+      rows = attendanceRecordRepository.findChanges(settledBefore, pageable);
+    } else {
+      ChangeWatermark position = ChangeWatermark.decode(since);
+      rows = attendanceRecordRepository.findChangesAfter(
+          position.getUpdatedAt(), position.getRecordId(), settledBefore, pageable);
+    }
+
+    boolean hasMore = rows.size() > pageSize;
+    List<AttendanceChange> items = hasMore ? rows.subList(0, pageSize) : rows;
+    String watermark = items.isEmpty() ? emptyToNull(since) : ChangeWatermark.encode(items.get(items.size() - 1));
+
+    attendanceMetrics.rangeQuery(sample, "changes", items.size());
+    return new ChangeFeedPage(items, watermark, hasMore);
+  }
+
+  private int resolveLimit(Integer limit) {
+    if (limit == null || limit <= 0) {
+      return DEFAULT_LIMIT;
+    }
+    return Math.min(limit, MAX_LIMIT);
+  }
+
+  private static String emptyToNull(String value) {
+    return value == null || value.isEmpty() ? null : value;
+  }
+}
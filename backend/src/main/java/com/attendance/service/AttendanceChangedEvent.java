@@ -0,0 +1,11 @@
+package com.attendance.service;
+
+import java.time.LocalDate;
+
+import com.attendance.dto.AttendanceResponse;
+
+/**
+ * 打刻で勤怠記録が変わったことの通知(コミット後に購読者へ配信する)
+ */
+public record AttendanceChangedEvent(LocalDate workDate, AttendanceResponse response) {
+}
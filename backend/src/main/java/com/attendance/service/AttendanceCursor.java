@@ -0,0 +1,59 @@
+package com.attendance.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.attendance.dto.AttendanceResponse;
+
+/**
+ * (record_date, record_id) をキーとするページングカーソル
+ * クライアントには不透明な文字列として渡す
+ */
+final class AttendanceCursor {
+
+  private static final char SEPARATOR = '|';
+
+  private final LocalDateTime recordDate;
+  private final Long recordId;
+
+  private AttendanceCursor(LocalDateTime recordDate, Long recordId) {
+    this.recordDate = recordDate;
+    this.recordId = recordId;
+  }
+
+  LocalDateTime getRecordDate() {
+    return recordDate;
+  }
+
+  Long getRecordId() {
+    return recordId;
+  }
+
+  /**
+   * ページ末尾の行からカーソル文字列を生成
+   */
+  static String encode(AttendanceResponse last) {
+    String raw = last.getRecordDate().toString() + SEPARATOR + last.getRecordId();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * カーソル文字列を復元(不正な値はIllegalArgumentException)
+   */
+  static AttendanceCursor decode(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int index = raw.indexOf(SEPARATOR);
+      if (index < 0) {
+        throw new IllegalArgumentException("無効なカーソルです");
+      }
+      return new AttendanceCursor(
+          LocalDateTime.parse(raw.substring(0, index)),
+          Long.valueOf(raw.substring(index + 1)));
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("無効なカーソルです", e);
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.attendance.service;
+
+import java.util.List;
+
+import com.attendance.dto.AttendanceResponse;
+
+/**
+ * ユーザーの勤怠記録と、それを読んだ時点の変更バージョン
+ * 同じトランザクションで読むため、ETagと内容が食い違わない
+ */
+public final class AttendanceHistory {
+
+  private final long changeVersion;
+  private final List<AttendanceResponse> records;
+
+  AttendanceHistory(long changeVersion, List<AttendanceResponse> records) {
+    this.changeVersion = changeVersion;
+    this.records = records;
+  }
+
+  public long getChangeVersion() {
+    return changeVersion;
+  }
+
+  public List<AttendanceResponse> getRecords() {
+    return records;
+  }
+}
@@ -0,0 +1,316 @@
+package com.attendance.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.attendance.dto.AttendanceErrorCode;
+import com.attendance.dto.ImportResult;
+import com.attendance.dto.ImportRowError;
+import com.attendance.dto.UserSummary;
+import com.attendance.importer.AttendanceRowParser;
+import com.attendance.importer.ImportFormat;
+import com.attendance.importer.ImportedRow;
+import com.attendance.model.AttendanceRecord;
+import com.attendance.model.User;
+import com.attendance.repository.AttendanceRecordJdbcRepository;
+import com.attendance.repository.AttendanceRecordRepository;
+import com.attendance.repository.AttendanceSummaryDelta;
+import com.attendance.repository.AttendanceSummaryJdbcRepository;
+import com.attendance.repository.UserChangeVersionJdbcRepository;
+import com.attendance.repository.UserRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 他システムの勤怠記録(xlsx・CSV)の一括取込
+ * ファイルを1行ずつ読み、一定件数ごとにユーザーのグループに分けて、グループごとに1トランザクションでJDBCバッチ登録する
+ * 保持するのは1チャンク分の行とユーザー名のキャッシュのみのため、行数に関わらずメモリ使用量は一定
+ */
+@Service
+@Slf4j
+public class AttendanceImportService {
+
+  // 応答に含めるエラーの上限(全件は errorListener に渡す)
+  private static final int MAX_REPORTED_ERRORS = 1000;
+
+  private static final int USERNAME_CACHE_SIZE = 10_000;
+
+  // 未登録のユーザー名のキャッシュ値
+  private static final Long NOT_FOUND = -1L;
+
+  private final AttendanceRecordRepository attendanceRecordRepository;
+  private final AttendanceRecordJdbcRepository attendanceRecordJdbcRepository;
+  private final AttendanceSummaryJdbcRepository attendanceSummaryJdbcRepository;
+  private final UserRepository userRepository;
+  private final UserChangeVersionJdbcRepository userChangeVersionJdbcRepository;
+  private final TodayAttendanceCache todayAttendanceCache;
+  private final UserLockStripes userLockStripes;
+  private final TransactionTemplate transactionTemplate;
+  private final AttendanceArchiveCatalog attendanceArchiveCatalog;
+  private final int chunkSize;
+
+  public AttendanceImportService(
+      AttendanceRecordRepository attendanceRecordRepository,
+      AttendanceRecordJdbcRepository attendanceRecordJdbcRepository,
+      AttendanceSummaryJdbcRepository attendanceSummaryJdbcRepository,
+      UserRepository userRepository,
+      UserChangeVersionJdbcRepository userChangeVersionJdbcRepository,
+      TodayAttendanceCache todayAttendanceCache,
+      UserLockStripes userLockStripes,
+      TransactionTemplate transactionTemplate,
+      AttendanceArchiveCatalog attendanceArchiveCatalog,
+      @Value("${attendance.import.chunk-size:1000}") int chunkSize) {
+    this.attendanceRecordRepository = attendanceRecordRepository;
+    this.attendanceRecordJdbcRepository = attendanceRecordJdbcRepository;
+    this.attendanceSummaryJdbcRepository = attendanceSummaryJdbcRepository;
+    this.userRepository = userRepository;
+    this.userChangeVersionJdbcRepository = userChangeVersionJdbcRepository;
+    this.todayAttendanceCache = todayAttendanceCache;
+    this.userLockStripes = userLockStripes;
+    this.transactionTemplate = transactionTemplate;
+    this.attendanceArchiveCatalog = attendanceArchiveCatalog;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * ファイルを取り込む
+   * 不正な行・未登録のユーザー・登録済みの勤務日・アーカイブ済みの月の行はその行だけを除外し、errorListener に渡す
+   * ヘッダー行が不正な場合、CSVの1行が長すぎる場合はIllegalArgumentException
+   */
+  public ImportResult importFile(Path file, ImportFormat format, Consumer<ImportRowError> errorListener)
+      throws IOException {
+    long start = System.currentTimeMillis();
+    ImportRun run = new ImportRun(errorListener);
+    format.read(file, run::handle);
+    run.flush();
+
+    ImportResult result = run.result();
+    log.info("勤怠記録を取り込みました: {}行中{}件を登録、{}件を除外 ({}ms)",
+        result.getTotalRows(), result.getImported(), result.getRejected(), System.currentTimeMillis() - start);
+    return result;
+  }
+
+  /**
+   * 1回の取込の状態(読み込み中のチャンクと件数)
+   */
+  private final class ImportRun {
+
+    private final Consumer<ImportRowError> errorListener;
+    private final List<ImportedRow> pending = new ArrayList<>();
+    private final List<ImportRowError> reportedErrors = new ArrayList<>();
+
+    // ユーザー名 → ユーザーID(未登録は NOT_FOUND)。古いものから破棄する
+    private final Map<String, Long> userIdsByName = new LinkedHashMap<>(1024, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+        return size() > USERNAME_CACHE_SIZE;
+      }
+    };
+
+    private AttendanceRowParser parser;
+    private long totalRows;
+    private long imported;
+    private long rejected;
+
+    ImportRun(Consumer<ImportRowError> errorListener) {
+      this.errorListener = errorListener;
+    }
+
+    void handle(long rowNumber, List<String> cells) {
+      if (cells.stream().allMatch(String::isBlank)) {
+        return;
+      }
+      if (parser == null) {
+        parser = AttendanceRowParser.fromHeader(cells);
+        return;
+      }
+
+      totalRows++;
+      try {
+        pending.add(parser.parse(rowNumber, cells));
+      } catch (IllegalArgumentException e) {
+        reject(rowNumber, parser.username(cells), e.getMessage());
+        return;
+      }
+      if (pending.size() >= chunkSize) {
+        flush();
+      }
+    }
+
+    /**
+     * 読み込み済みの行を登録(ユーザーのグループごとに1トランザクション)
+     */
+    void flush() {
+      if (pending.isEmpty()) {
+        return;
+      }
+
+      Map<String, Long> userIds = resolveUsers(pending);
+      List<ImportedRow> rows = new ArrayList<>(pending.size());
+      for (ImportedRow row : pending) {
+        if (NOT_FOUND.equals(userIds.get(row.username()))) {
+          reject(row.rowNumber(), row.username(), "ユーザーが見つかりません");
+        } else {
+          rows.add(row);
+        }
+      }
+      pending.clear();
+      if (rows.isEmpty()) {
+        return;
+      }
+
+      Set<Long> chunkUserIds = new HashSet<>(userIds.values());
+      chunkUserIds.remove(NOT_FOUND);
+      // 保持するロックのストライプ数が上限以下になるよう、ユーザー単位で分けたグループごとに書き込む
+      for (Set<Long> groupUserIds : userLockStripes.partition(chunkUserIds)) {
+        List<ImportedRow> groupRows = new ArrayList<>();
+        for (ImportedRow row : rows) {
+          if (groupUserIds.contains(userIds.get(row.username()))) {
+            groupRows.add(row);
+          }
+        }
+        List<ImportRowError> excluded = userLockStripes.withLocks(groupUserIds,
+            () -> transactionTemplate.execute(status -> writeChunk(groupRows, userIds)));
+
+        imported += groupRows.size() - excluded.size();
+        for (ImportRowError error : excluded) {
+          reject(error.getRowNumber(), error.getUsername(), error.getMessage());
+        }
+      }
+    }
+
+    ImportResult result() {
+      return new ImportResult(totalRows, imported, rejected, reportedErrors, rejected > reportedErrors.size());
+    }
+
+    /**
+     * チャンク内のユーザー名をユーザーIDに変換(キャッシュにないものはまとめて1クエリで取得)
+     */
+    private Map<String, Long> resolveUsers(List<ImportedRow> rows) {
+      Map<String, Long> resolved = new HashMap<>();
+      Set<String> missing = new HashSet<>();
+      for (ImportedRow row : rows) {
+        Long userId = userIdsByName.get(row.username());
+        if (userId != null) {
+          resolved.put(row.username(), userId);
+        } else {
+          missing.add(row.username());
+        }
+      }
+      if (missing.isEmpty()) {
+        return resolved;
+      }
+
+      for (UserSummary user : userRepository.findSummariesByUsernames(missing)) {
+        resolved.put(user.getUsername(), user.getUserId());
+        userIdsByName.put(user.getUsername(), user.getUserId());
+        missing.remove(user.getUsername());
+      }
+      for (String username : missing) {
+        resolved.put(username, NOT_FOUND);
+        userIdsByName.put(username, NOT_FOUND);
+      }
+      return resolved;
+    }
+
+    private void reject(long rowNumber, String username, String message) {
+      rejected++;
+      ImportRowError error = new ImportRowError(rowNumber, username, message);
+      if (reportedErrors.size() < MAX_REPORTED_ERRORS) {
+        reportedErrors.add(error);
+      }
+      errorListener.accept(error);
+    }
+  }
+
+  /**
+   * 登録済み・ファイル内で重複する勤務日とアーカイブ済みの月を除いて登録し、除外した行を返す
+   */
+  private List<ImportRowError> writeChunk(List<ImportedRow> rows, Map<String, Long> userIds) {
+    LocalDate firstDay = rows.get(0).workDate();
+    LocalDate lastDay = firstDay;
+    Set<Long> chunkUserIds = new HashSet<>();
+    for (ImportedRow row : rows) {
+      firstDay = row.workDate().isBefore(firstDay) ? row.workDate() : firstDay;
+      lastDay = row.workDate().isAfter(lastDay) ? row.workDate() : lastDay;
+      chunkUserIds.add(userIds.get(row.username()));
+    }
+
+    // アーカイブ中・アーカイブ済みの月へは書き込まない(境界の行ロックはコミットまで保持する)
+    LocalDate sealedBefore = attendanceArchiveCatalog.lockSealedBefore(firstDay);
+
+    Set<DayKey> recordedDays = new HashSet<>();
+    for (Object[] workDay : attendanceRecordRepository.findWorkDays(chunkUserIds, firstDay, lastDay)) {
+      recordedDays.add(new DayKey((Long) workDay[0], (LocalDate) workDay[1]));
+    }
+
+    List<ImportRowError> excluded = new ArrayList<>();
+    List<AttendanceRecord> inserts = new ArrayList<>(rows.size());
+    List<AttendanceSummaryDelta> summaryDeltas = new ArrayList<>(rows.size());
+    Set<Long> touchedUserIds = new HashSet<>();
+    for (ImportedRow row : rows) {
+      Long userId = userIds.get(row.username());
+      if (sealedBefore != null && row.workDate().isBefore(sealedBefore)) {
+        excluded.add(new ImportRowError(
+            row.rowNumber(), row.username(), AttendanceErrorCode.MONTH_ARCHIVED.getMessage()));
+        continue;
+      }
+      if (!recordedDays.add(new DayKey(userId, row.workDate()))) {
+        excluded.add(new ImportRowError(row.rowNumber(), row.username(), "この勤務日の勤怠記録は登録済みです"));
+        continue;
+      }
+      inserts.add(toRecord(userId, row));
+      summaryDeltas.add(toSummaryDelta(userId, row));
+      touchedUserIds.add(userId);
+    }
+
+    attendanceRecordJdbcRepository.batchInsert(inserts);
+    attendanceSummaryJdbcRepository.applyDeltas(summaryDeltas);
+    userChangeVersionJdbcRepository.incrementAll(touchedUserIds);
+    todayAttendanceCache.evictAfterCommit(touchedUserIds);
+    return excluded;
+  }
+
+  private static AttendanceRecord toRecord(Long userId, ImportedRow row) {
+    User user = new User();
+    user.setUserId(userId);
+
+    AttendanceRecord record = new AttendanceRecord();
+    record.setUser(user);
+    record.setWorkDate(row.workDate());
+    record.setAttendanceType(row.attendanceType());
+    record.setCheckInTime(row.checkInTime());
+    record.setCheckOutTime(row.checkOutTime());
+    // 出勤は出勤時刻、年休は勤務日の0時を記録日時とする
+    record.setRecordDate(row.checkInTime() != null ? row.checkInTime() : row.workDate().atStartOfDay());
+    return record;
+  }
+
+  private static AttendanceSummaryDelta toSummaryDelta(Long userId, ImportedRow row) {
+    if ("ANNUAL_LEAVE".equals(row.attendanceType())) {
+      return new AttendanceSummaryDelta(userId, row.workDate(), 0, 1, 0);
+    }
+    if (row.checkOutTime() == null) {
+      return new AttendanceSummaryDelta(userId, row.workDate(), 0, 0, 1);
+    }
+    long minutes = Duration.between(row.checkInTime(), row.checkOutTime()).toMinutes();
+    return new AttendanceSummaryDelta(userId, row.workDate(), minutes, 0, 0);
+  }
+
+  private record DayKey(Long userId, LocalDate date) {
+  }
+}
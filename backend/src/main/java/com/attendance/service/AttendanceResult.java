@@ -0,0 +1,39 @@
+package com.attendance.service;
+
+import com.attendance.dto.AttendanceErrorCode;
+import com.attendance.dto.AttendanceResponse;
+
+/**
+ * 打刻の結果
+ * 業務上の不受理は例外ではなくエラーコードで返す
+ */
+public final class AttendanceResult {
+
+  private final AttendanceResponse response;
+  private final AttendanceErrorCode error;
+
+  private AttendanceResult(AttendanceResponse response, AttendanceErrorCode error) {
+    this.response = response;
+    this.error = error;
+  }
+
+  public static AttendanceResult ok(AttendanceResponse response) {
+    return new AttendanceResult(response, null);
+  }
+
+  public static AttendanceResult rejected(AttendanceErrorCode error) {
+    return new AttendanceResult(null, error);
+  }
+
+  public boolean isSuccess() {
+    return error == null;
+  }
+
+  public AttendanceResponse getResponse() {
+    return response;
+  }
+
+  public AttendanceErrorCode getError() {
+    return error;
+  }
+}
@@ -0,0 +1,93 @@
+package com.attendance.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import com.attendance.dto.AttendanceErrorCode;
+import com.attendance.model.AttendanceRecord;
+import com.attendance.model.User;
+import com.attendance.repository.AttendanceSummaryDelta;
+
+/**
+ * 出勤・退勤・年休の打刻ルール
+ * 単件の記録とバッチ取込で同じ判定を使う
+ */
+final class AttendanceRules {
+
+  private AttendanceRules() {
+  }
+
+  /**
+   * 当日の既存記録に対して time に打刻できるか判定(不可の場合はエラーコード、可能な場合はnull)
+   */
+  static AttendanceErrorCode validate(String type, AttendanceRecord existing, LocalDateTime time) {
+    if ("CHECK_IN".equals(type)) {
+      if (existing != null && existing.getCheckInTime() != null) {
+        return AttendanceErrorCode.ALREADY_CHECKED_IN;
+      }
+      if (existing != null) {
+        // 勤務日ごとに1件のため年休の日には出勤できない
+        return AttendanceErrorCode.ALREADY_RECORDED;
+      }
+      return null;
+    }
+    if ("CHECK_OUT".equals(type)) {
+      if (existing == null || existing.getCheckInTime() == null) {
+        return AttendanceErrorCode.CHECK_IN_NOT_FOUND;
+      }
+      if (existing.getCheckOutTime() != null) {
+        return AttendanceErrorCode.ALREADY_CHECKED_OUT;
+      }
+      if (time.isBefore(existing.getCheckInTime())) {
+        // 勤務時間が負にならないよう、出勤より前の退勤は受け付けない
+        return AttendanceErrorCode.INVALID_TIMESTAMP;
+      }
+      return null;
+    }
+    if ("ANNUAL_LEAVE".equals(type)) {
+      if (existing != null) {
+        return AttendanceErrorCode.ALREADY_RECORDED;
+      }
+      return null;
+    }
+    return AttendanceErrorCode.INVALID_TYPE;
+  }
+
+  /**
+   * 打刻を適用(CHECK_OUTは既存記録を更新し、それ以外は新しい記録を返す)
+   * validateで許可された打刻のみ渡すこと
+   */
+  static AttendanceRecord apply(String type, User user, AttendanceRecord existing, LocalDateTime time) {
+    if ("CHECK_OUT".equals(type)) {
+      existing.setCheckOutTime(time);
+      return existing;
+    }
+
+    AttendanceRecord record = new AttendanceRecord();
+    record.setUser(user);
+    record.setRecordDate(time);
+    record.setWorkDate(time.toLocalDate());
+    if ("CHECK_IN".equals(type)) {
+      record.setCheckInTime(time);
+      record.setAttendanceType("WORK");
+    } else {
+      record.setAttendanceType("ANNUAL_LEAVE");
+    }
+    return record;
+  }
+
+  /**
+   * 適用済みの打刻から集計テーブルへの加算量を求める
+   */
+  static AttendanceSummaryDelta summaryDelta(String type, AttendanceRecord record) {
+    Long userId = record.getUser().getUserId();
+    if ("CHECK_IN".equals(type)) {
+      return new AttendanceSummaryDelta(userId, record.getWorkDate(), 0, 0, 1);
+    }
+    if ("CHECK_OUT".equals(type)) {
+      long minutes = Duration.between(record.getCheckInTime(), record.getCheckOutTime()).toMinutes();
+      return new AttendanceSummaryDelta(userId, record.getWorkDate(), minutes, 0, -1);
+    }
+    return new AttendanceSummaryDelta(userId, record.getWorkDate(), 0, 1, 0);
+  }
+}
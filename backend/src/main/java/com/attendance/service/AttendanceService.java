@@ -1,22 +1,32 @@
 package com.attendance.service;
 
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.attendance.dto.AttendanceErrorCode;
 import com.attendance.dto.AttendanceRequest;
 import com.attendance.dto.AttendanceResponse;
+import com.attendance.dto.CacheStatsResponse;
+import com.attendance.dto.CursorPage;
+import com.attendance.metrics.AttendanceMetrics;
 import com.attendance.model.AttendanceRecord;
 import com.attendance.model.User;
 import com.attendance.repository.AttendanceRecordRepository;
+import com.attendance.repository.AttendanceSummaryJdbcRepository;
+import com.attendance.repository.UserChangeVersionJdbcRepository;
 import com.attendance.repository.UserRepository;
 
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -25,121 +35,244 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class AttendanceService {
 
+  private static final int DEFAULT_PAGE_SIZE = 50;
+  private static final int MAX_PAGE_SIZE = 500;
+
   private final AttendanceRecordRepository attendanceRecordRepository;
   private final UserRepository userRepository;
+  private final UserChangeVersionJdbcRepository userChangeVersionJdbcRepository;
+  private final AttendanceSummaryJdbcRepository attendanceSummaryJdbcRepository;
+  private final TodayAttendanceCache todayAttendanceCache;
+  private final UserLockStripes userLockStripes;
+  private final TransactionTemplate transactionTemplate;
+  private final AttendanceMetrics attendanceMetrics;
+  private final IdempotencyKeyStore idempotencyKeyStore;
+  private final TieredAttendanceReader tieredAttendanceReader;
+  private final ApplicationEventPublisher eventPublisher;
+  private final Clock clock;
 
   /**
-   * 出勤・退勤・年休を記録
+   * Idempotency-Key 付きで出勤・退勤・年休を記録
+   * 同じキーの再送にはDBを参照せず最初の結果を返す(キーがnullの場合は毎回記録する)
    */
-  @Transactional
-  public AttendanceResponse recordAttendance(AttendanceRequest request) {
-    User user = userRepository.findById(request.getUserId())
-        .orElseThrow(() -> new RuntimeException("ユーザーが見つかりません"));
-
-    LocalDateTime now = LocalDateTime.now();
-    LocalDate today = now.toLocalDate();
-    LocalDateTime startOfDay = today.atStartOfDay();
-    LocalDateTime endOfDay = today.atTime(LocalTime.MAX);
+  public AttendanceResult recordAttendance(AttendanceRequest request, String idempotencyKey) {
+    if (idempotencyKey == null) {
+      return recordAttendance(request);
+    }
+    String fingerprint = request.getUserId() + "|" + request.getType() + "|" + request.getTimestamp();
+    return idempotencyKeyStore.execute(idempotencyKey, fingerprint, () -> recordAttendance(request));
+  }
 
-    // 今日の勤怠記録を取得
-    Optional<AttendanceRecord> existingRecord = attendanceRecordRepository
-        .findFirstByUserAndRecordDateBetween(user, startOfDay, endOfDay);
+  /**
+   * 出勤・退勤・年休を記録
+   * 同じユーザーの打刻はストライプロックで直列化し、他インスタンスとの競合はバージョンで検出する
+   */
+  public AttendanceResult recordAttendance(AttendanceRequest request) {
+    Timer.Sample sample = attendanceMetrics.start();
+    String outcome = AttendanceMetrics.OUTCOME_ERROR;
+    try {
+      AttendanceResult result = recordWithLock(request);
+      outcome = result.isSuccess() ? AttendanceMetrics.OUTCOME_SUCCESS : result.getError().name();
+      return result;
+    } finally {
+      attendanceMetrics.recordAttendance(sample, request.getType(), outcome);
+    }
+  }
 
-    AttendanceRecord record;
+  private AttendanceResult recordWithLock(AttendanceRequest request) {
+    if (request.getUserId() == null) {
+      return AttendanceResult.rejected(AttendanceErrorCode.USER_NOT_FOUND);
+    }
 
-    if ("CHECK_IN".equals(request.getType())) {
-      if (existingRecord.isPresent() && existingRecord.get().getCheckInTime() != null) {
-        throw new RuntimeException("既に出勤記録が存在します");
+    return userLockStripes.withLock(request.getUserId(), () -> {
+      try {
+        return transactionTemplate.execute(status -> recordInTransaction(request));
+      } catch (DataIntegrityViolationException e) {
+        // 他インスタンスで同時に登録された場合は (user_id, work_date) のユニーク制約違反になる
+        return AttendanceResult.rejected("CHECK_IN".equals(request.getType())
+            ? AttendanceErrorCode.ALREADY_CHECKED_IN
+            : AttendanceErrorCode.ALREADY_RECORDED);
+      } catch (OptimisticLockingFailureException e) {
+        return AttendanceResult.rejected(AttendanceErrorCode.CONCURRENT_UPDATE);
       }
+    });
+  }
 
-      record = new AttendanceRecord();
-      record.setUser(user);
-      record.setCheckInTime(now);
-      record.setRecordDate(now);
-      record.setAttendanceType("WORK");
-
-      record = attendanceRecordRepository.save(record);
-
-    } else if ("CHECK_OUT".equals(request.getType())) {
-      record = existingRecord
-          .orElseThrow(() -> new RuntimeException("出勤記録が見つかりません"));
+  private AttendanceResult recordInTransaction(AttendanceRequest request) {
+    Optional<User> foundUser = userRepository.findById(request.getUserId());
+    if (foundUser.isEmpty()) {
+      return AttendanceResult.rejected(AttendanceErrorCode.USER_NOT_FOUND);
+    }
+    User user = foundUser.get();
 
-      if (record.getCheckOutTime() != null) {
-        throw new RuntimeException("既に退勤記録が存在します");
-      }
+    LocalDateTime now = LocalDateTime.now(clock);
+    LocalDate today = now.toLocalDate();
 
-      record.setCheckOutTime(now);
+    // 今日の勤怠記録を取得
+    AttendanceRecord existingRecord = attendanceRecordRepository.findByUserAndWorkDate(user, today).orElse(null);
 
-      record = attendanceRecordRepository.save(record);
+    AttendanceErrorCode error = AttendanceRules.validate(request.getType(), existingRecord, now);
+    if (error != null) {
+      return AttendanceResult.rejected(error);
+    }
 
-    } else if ("ANNUAL_LEAVE".equals(request.getType())) {
-      if (existingRecord.isPresent()) {
-        throw new RuntimeException("既に本日の勤怠記録が存在します");
-      }
+    AttendanceRecord record = AttendanceRules.apply(request.getType(), user, existingRecord, now);
+    record = attendanceRecordRepository.saveAndFlush(record);
+    attendanceSummaryJdbcRepository.applyDeltas(List.of(AttendanceRules.summaryDelta(request.getType(), record)));
+    userChangeVersionJdbcRepository.increment(user.getUserId());
 
-      record = new AttendanceRecord();
-      record.setUser(user);
-      record.setRecordDate(now);
-      record.setAttendanceType("ANNUAL_LEAVE");
-      record.setCheckInTime(null);
-      record.setCheckOutTime(null);
+    AttendanceResponse response = mapToResponse(record);
+    todayAttendanceCache.putAfterCommit(user.getUserId(), today, response);
+    eventPublisher.publishEvent(new AttendanceChangedEvent(today, response));
+    return AttendanceResult.ok(response);
+  }
 
-      record = attendanceRecordRepository.save(record);
+  /**
+   * ユーザーの勤怠記録の変更バージョンを取得(ユーザーが存在しない場合はnull)
+   * 勤怠記録は読まないため、条件付きGETの判定に使う
+   */
+  public Long getChangeVersion(Long userId) {
+    return userChangeVersionJdbcRepository.find(userId);
+  }
 
-    } else {
-      throw new RuntimeException("無効なタイプです");
+  /**
+   * ユーザーの勤怠記録を変更バージョンとともに取得
+   * 読み取り専用のためレプリカ構成ではレプリカで読む(バージョンも同じレプリカから読む)
+   */
+  @Transactional(readOnly = true)
+  public AttendanceHistory getUserAttendanceHistory(Long userId) {
+    Long changeVersion = userChangeVersionJdbcRepository.find(userId);
+    if (changeVersion == null) {
+      throw new RuntimeException("ユーザーが見つかりません");
     }
 
-    return mapToResponse(record);
+    return new AttendanceHistory(changeVersion, tieredAttendanceReader.findResponsesByUserId(userId));
   }
 
   /**
-   * ユーザーの勤怠記録を取得
+   * ユーザーの勤怠記録をカーソルページングで取得(新しい順)
    */
-  public List<AttendanceResponse> getUserAttendanceRecords(Long userId) {
-    User user = userRepository.findById(userId)
-        .orElseThrow(() -> new RuntimeException("ユーザーが見つかりません"));
-
-    return attendanceRecordRepository.findByUserOrderByRecordDateDesc(user)
-        .stream()
-        .map(this::mapToResponse)
-        .collect(Collectors.toList());
+  @Transactional(readOnly = true)
+  public CursorPage<AttendanceResponse> getUserAttendancePage(Long userId, String cursor, Integer limit) {
+    // existsById は毎回COUNTを発行するため、二次キャッシュに載る findById で確認する
+    if (userRepository.findById(userId).isEmpty()) {
+      throw new RuntimeException("ユーザーが見つかりません");
+    }
+
+    int pageSize = resolvePageSize(limit);
+
+    List<AttendanceResponse> rows;
+    if (cursor == null || cursor.isEmpty()) {
+      rows = tieredAttendanceReader.findUserPage(userId, pageSize + 1);
+    } else {
+      AttendanceCursor position = AttendanceCursor.decode(cursor);
+      rows = tieredAttendanceReader.findUserPageAfter(
+          userId, position.getRecordDate(), position.getRecordId(), pageSize + 1);
+    }
+
+    return toPage(rows, pageSize);
   }
 
   /**
    * 今日の勤怠状況を取得
    */
   public AttendanceResponse getTodayAttendance(Long userId) {
-    User user = userRepository.findById(userId)
-        .orElseThrow(() -> new RuntimeException("ユーザーが見つかりません"));
+    LocalDate today = LocalDate.now(clock);
+    Timer.Sample sample = attendanceMetrics.start();
 
-    LocalDate today = LocalDate.now();
-    LocalDateTime startOfDay = today.atStartOfDay();
-    LocalDateTime endOfDay = today.atTime(LocalTime.MAX);
+    TodayAttendanceCache.Entry cached = todayAttendanceCache.get(userId, today);
+    if (cached != null) {
+      attendanceMetrics.todayAttendance(sample, true);
+      return cached.getResponse();
+    }
+
+    try {
+      User user = userRepository.findById(userId)
+          .orElseThrow(() -> new RuntimeException("ユーザーが見つかりません"));
 
-    Optional<AttendanceRecord> record = attendanceRecordRepository
-        .findFirstByUserAndRecordDateBetween(user, startOfDay, endOfDay);
+      Optional<AttendanceRecord> record = attendanceRecordRepository.findByUserAndWorkDate(user, today);
+
+      AttendanceResponse response = record.map(AttendanceService::mapToResponse).orElse(null);
+      todayAttendanceCache.putIfAbsent(userId, today, response);
+      return response;
+    } finally {
+      attendanceMetrics.todayAttendance(sample, false);
+    }
+  }
 
-    return record.map(this::mapToResponse).orElse(null);
+  /**
+   * 今日のキャッシュの統計情報を取得
+   */
+  public CacheStatsResponse getTodayCacheStats() {
+    return todayAttendanceCache.getStats();
   }
 
   /**
    * 期間指定で全ユーザーの勤怠記録を取得(管理者用)
    */
+  @Transactional(readOnly = true)
   public List<AttendanceResponse> getAttendanceRecordsByDateRange(
       LocalDateTime startDate,
       LocalDateTime endDate) {
 
-    return attendanceRecordRepository.findByDateRange(startDate, endDate)
-        .stream()
-        .map(this::mapToResponse)
-        .collect(Collectors.toList());
+    Timer.Sample sample = attendanceMetrics.start();
+    List<AttendanceResponse> records = tieredAttendanceReader.findResponsesByDateRange(startDate, endDate);
+    attendanceMetrics.rangeQuery(sample, "list", records.size());
+    return records;
+  }
+
+  /**
+   * 期間指定で全ユーザーの勤怠記録をカーソルページングで取得(管理者用、古い順)
+   */
+  @Transactional(readOnly = true)
+  public CursorPage<AttendanceResponse> getAttendancePageByDateRange(
+      LocalDateTime startDate,
+      LocalDateTime endDate,
+      String cursor,
+      Integer limit) {
+
+    int pageSize = resolvePageSize(limit);
+    Timer.Sample sample = attendanceMetrics.start();
+
+    List<AttendanceResponse> rows;
+    if (cursor == null || cursor.isEmpty()) {
+      rows = tieredAttendanceReader.findRangePage(startDate, endDate, pageSize + 1);
+    } else {
+      AttendanceCursor position = AttendanceCursor.decode(cursor);
+      rows = tieredAttendanceReader.findRangePageAfter(
+          endDate, position.getRecordDate(), position.getRecordId(), pageSize + 1);
+    }
+
+    CursorPage<AttendanceResponse> page = toPage(rows, pageSize);
+    attendanceMetrics.rangeQuery(sample, "page", page.getItems().size());
+    return page;
+  }
+
+  /**
+   * ページサイズを上限内に丸める
+   */
+  private int resolvePageSize(Integer limit) {
+    if (limit == null || limit <= 0) {
+      return DEFAULT_PAGE_SIZE;
+    }
+    return Math.min(limit, MAX_PAGE_SIZE);
+  }
+
+  /**
+   * 1件多く取得した結果からページと次カーソルを組み立てる
+   */
+  private CursorPage<AttendanceResponse> toPage(List<AttendanceResponse> rows, int pageSize) {
+    if (rows.size() <= pageSize) {
+      return new CursorPage<>(rows, null);
+    }
+    List<AttendanceResponse> items = rows.subList(0, pageSize);
+    return new CursorPage<>(items, AttendanceCursor.encode(items.get(pageSize - 1)));
   }
 
   /**
    * エンティティをレスポンスDTOに変換
    */
-  private AttendanceResponse mapToResponse(AttendanceRecord record) {
+  static AttendanceResponse mapToResponse(AttendanceRecord record) {
     AttendanceResponse response = new AttendanceResponse();
     response.setRecordId(record.getRecordId());
     response.setUserId(record.getUser().getUserId());
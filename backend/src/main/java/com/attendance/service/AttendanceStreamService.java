@@ -0,0 +1,332 @@
+package com.attendance.service;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.attendance.config.ClockConfig;
+import com.attendance.dto.AttendanceResponse;
+import com.attendance.dto.PresenceBoard;
+import com.attendance.dto.PresenceCounts;
+import com.attendance.dto.PresenceEntry;
+import com.attendance.dto.PresenceUpdate;
+import com.attendance.repository.AttendanceRecordRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 今日の勤怠状況と在席状況ボードのServer-Sent Events配信
+ * 接続はサーブレットの非同期処理で保持するため、待機中の接続はリクエストスレッドを占有しない
+ * 送信は専用のワーカーで行い、打刻の処理を遅い接続で待たせない
+ */
+@Service
+@Slf4j
+public class AttendanceStreamService {
+
+  /** 在席状況の変更がこれより多い場合は差分ではなくボード全体を送る */
+  private static final int MAX_INCREMENTAL_UPDATES = 100;
+
+  private final AttendanceService attendanceService;
+  private final AttendanceRecordRepository attendanceRecordRepository;
+  private final PresenceIndex presenceIndex;
+  private final TransactionTemplate transactionTemplate;
+  private final TaskExecutor streamExecutor;
+  private final long timeoutMillis;
+  private final int maxConnections;
+  private final Clock clock;
+
+  private final ConcurrentHashMap<Long, Set<SseEmitter>> userEmitters = new ConcurrentHashMap<>();
+  private final Set<SseEmitter> adminEmitters = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger connections = new AtomicInteger();
+  private final Object loadLock = new Object();
+
+  public AttendanceStreamService(
+      AttendanceService attendanceService,
+      AttendanceRecordRepository attendanceRecordRepository,
+      PresenceIndex presenceIndex,
+      TransactionTemplate transactionTemplate,
+      @Qualifier("streamExecutor") TaskExecutor streamExecutor,
+      @Value("${attendance.stream.timeout:30m}") Duration timeout,
+      @Value("${attendance.stream.max-connections:10000}") int maxConnections,
+      Clock clock) {
+    this.attendanceService = attendanceService;
+    this.attendanceRecordRepository = attendanceRecordRepository;
+    this.presenceIndex = presenceIndex;
+    this.transactionTemplate = transactionTemplate;
+    this.streamExecutor = streamExecutor;
+    this.timeoutMillis = timeout.toMillis();
+    this.maxConnections = maxConnections;
+    this.clock = clock;
+  }
+
+  /**
+   * ユーザーの今日の勤怠状況を購読(接続時に現在の状況を送る)
+   * 接続数が上限に達している場合はnull
+   */
+  public SseEmitter subscribeToday(Long userId) {
+    SseEmitter emitter = open();
+    if (emitter == null) {
+      return null;
+    }
+    userEmitters.compute(userId, (id, emitters) -> {
+      Set<SseEmitter> set = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+      set.add(emitter);
+      return set;
+    });
+    Runnable close = onClose(emitter, () -> userEmitters.computeIfPresent(userId, (id, emitters) -> {
+      emitters.remove(emitter);
+      return emitters.isEmpty() ? null : emitters;
+    }));
+
+    // 登録してから読むことで、読み込み中の打刻も配信される
+    try {
+      sendAll(Set.of(emitter), todayEvent(attendanceService.getTodayAttendance(userId)));
+    } catch (RuntimeException e) {
+      close.run();
+      throw e;
+    }
+    return emitter;
+  }
+
+  /**
+   * 在席状況ボードを購読(接続時にボード全体を送り、以降は変更のたびに差分を送る)
+   * 接続数が上限に達している場合はnull
+   */
+  public SseEmitter subscribePresence() {
+    SseEmitter emitter = open();
+    if (emitter == null) {
+      return null;
+    }
+    adminEmitters.add(emitter);
+    Runnable close = onClose(emitter, () -> adminEmitters.remove(emitter));
+
+    try {
+      sendAll(Set.of(emitter), SseEmitter.event().name("board").data(getPresenceBoard()));
+    } catch (RuntimeException e) {
+      close.run();
+      throw e;
+    }
+    return emitter;
+  }
+
+  /**
+   * 在席状況ボード全体(未読み込みの場合はDBから読み込む)
+   */
+  public PresenceBoard getPresenceBoard() {
+    LocalDate today = LocalDate.now(clock);
+    if (!presenceIndex.isLoaded(today)) {
+      synchronized (loadLock) {
+        if (!presenceIndex.isLoaded(today)) {
+          load(today);
+        }
+      }
+    }
+    return presenceIndex.snapshot(today);
+  }
+
+  /**
+   * 打刻のコミット後に在席状況を更新し、本人と管理者へ配信する
+   */
+  @TransactionalEventListener
+  public void onAttendanceChanged(AttendanceChangedEvent event) {
+    PresenceUpdate update = presenceIndex.apply(event.workDate(), event.response());
+    Set<SseEmitter> emitters = userEmitters.get(event.response().getUserId());
+    if (emitters == null && (update == null || adminEmitters.isEmpty())) {
+      return;
+    }
+    dispatch(() -> {
+      if (emitters != null) {
+        sendAll(emitters, todayEvent(event.response()));
+      }
+      if (update != null) {
+        sendAll(adminEmitters, SseEmitter.event().name("presence").data(update));
+      }
+    });
+  }
+
+  /**
+   * 他インスタンス・一括登録・取込による変更をDBとの突き合わせで取り込む
+   * 購読者がいない間は突き合わせず、次の購読時に読み直す
+   */
+  @Scheduled(fixedDelayString = "${attendance.stream.resync-interval:60000}")
+  public void resync() {
+    if (connections.get() == 0) {
+      presenceIndex.invalidate();
+      return;
+    }
+    LocalDate today = LocalDate.now(clock);
+    PresenceIndex.Reconciliation reconciliation;
+    synchronized (loadLock) {
+      reconciliation = load(today);
+    }
+    if (reconciliation.changed().isEmpty() && !reconciliation.removed()) {
+      return;
+    }
+
+    dispatch(() -> {
+      for (AttendanceResponse response : reconciliation.changed()) {
+        Set<SseEmitter> emitters = userEmitters.get(response.getUserId());
+        if (emitters != null) {
+          sendAll(emitters, todayEvent(response));
+        }
+      }
+      if (adminEmitters.isEmpty()) {
+        return;
+      }
+      if (reconciliation.removed() || reconciliation.changed().size() > MAX_INCREMENTAL_UPDATES) {
+        sendAll(adminEmitters, SseEmitter.event().name("board").data(presenceIndex.snapshot(today)));
+        return;
+      }
+      PresenceCounts counts = presenceIndex.getCounts();
+      for (AttendanceResponse response : reconciliation.changed()) {
+        sendAll(adminEmitters, SseEmitter.event().name("presence")
+            .data(new PresenceUpdate(PresenceEntry.of(response), counts)));
+      }
+    });
+    log.debug("在席状況をDBと突き合わせました: 変更 {}件", reconciliation.changed().size());
+  }
+
+  /**
+   * 日付の切り替わり(Asia/Tokyo)で本人には「記録なし」、管理者には新しい日のボードを送る
+   */
+  @Scheduled(cron = "0 0 0 * * *", zone = ClockConfig.ZONE_ID)
+  public void rollOver() {
+    if (connections.get() == 0) {
+      return;
+    }
+    PresenceBoard board = getPresenceBoard();
+    dispatch(() -> {
+      for (Set<SseEmitter> emitters : userEmitters.values()) {
+        sendAll(emitters, todayEvent(null));
+      }
+      sendAll(adminEmitters, SseEmitter.event().name("board").data(board));
+    });
+  }
+
+  /**
+   * 接続を維持するためのコメント行(プロキシのアイドルタイムアウトより短い間隔で送る)
+   */
+  @Scheduled(fixedDelayString = "${attendance.stream.heartbeat-interval:25000}")
+  public void heartbeat() {
+    if (connections.get() == 0) {
+      return;
+    }
+    dispatch(() -> {
+      SseEmitter.SseEventBuilder ping = SseEmitter.event().comment("ping");
+      for (Set<SseEmitter> emitters : userEmitters.values()) {
+        sendAll(emitters, ping);
+      }
+      sendAll(adminEmitters, ping);
+    });
+  }
+
+  /**
+   * 本人向けの接続数
+   */
+  public int getUserConnections() {
+    return userEmitters.values().stream().mapToInt(Set::size).sum();
+  }
+
+  /**
+   * 管理者向けの接続数
+   */
+  public int getAdminConnections() {
+    return adminEmitters.size();
+  }
+
+  /**
+   * 今日の勤怠記録をDBから読み、在席状況と突き合わせる
+   * 反映済みの打刻を遅延したレプリカの値で戻さないよう、読み取り専用でないトランザクションでプライマリから読む
+   */
+  private PresenceIndex.Reconciliation load(LocalDate today) {
+    long startedAt = System.nanoTime();
+    List<AttendanceResponse> rows = transactionTemplate.execute(status ->
+        attendanceRecordRepository.findResponsesByDateRange(today.atStartOfDay(), today.atTime(LocalTime.MAX)));
+    return presenceIndex.reconcile(today, rows, startedAt);
+  }
+
+  /**
+   * 接続数の上限を確認して接続を作成(上限に達している場合はnull)
+   */
+  private SseEmitter open() {
+    if (connections.incrementAndGet() > maxConnections) {
+      connections.decrementAndGet();
+      return null;
+    }
+    return new SseEmitter(timeoutMillis);
+  }
+
+  /**
+   * 切断・タイムアウト・エラーのいずれかで一度だけ登録を解除する
+   * 返す処理は、MVCに渡す前に失敗した接続(コールバックが呼ばれない)の解除に使う
+   */
+  private Runnable onClose(SseEmitter emitter, Runnable unregister) {
+    AtomicBoolean closed = new AtomicBoolean();
+    Runnable close = () -> {
+      if (closed.compareAndSet(false, true)) {
+        unregister.run();
+        connections.decrementAndGet();
+      }
+    };
+    emitter.onCompletion(close);
+    emitter.onTimeout(() -> {
+      close.run();
+      emitter.complete();
+    });
+    emitter.onError(e -> close.run());
+    return close;
+  }
+
+  private static SseEmitter.SseEventBuilder todayEvent(AttendanceResponse response) {
+    // 今日の記録がない場合はJSONのnullを送る
+    return response == null
+        ? SseEmitter.event().name("today").data("null", MediaType.TEXT_PLAIN)
+        : SseEmitter.event().name("today").data(response);
+  }
+
+  /**
+   * 同じイベントを各接続に送る(イベントの組み立ては1回のみ)
+   * 送信に失敗した接続は閉じる(登録の解除は onError / onCompletion で行われる)
+   */
+  private static void sendAll(Collection<SseEmitter> emitters, SseEmitter.SseEventBuilder event) {
+    Set<ResponseBodyEmitter.DataWithMediaType> items = event.build();
+    for (SseEmitter emitter : emitters) {
+      try {
+        emitter.send(items);
+      } catch (IOException | IllegalStateException e) {
+        emitter.completeWithError(e);
+      }
+    }
+  }
+
+  /**
+   * 送信用ワーカーに渡す(待ち行列が一杯の場合は破棄し、次の突き合わせで補う)
+   */
+  private void dispatch(Runnable task) {
+    try {
+      streamExecutor.execute(task);
+    } catch (TaskRejectedException e) {
+      log.debug("配信の待ち行列が一杯のため破棄しました");
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.attendance.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.attendance.dto.MonthlySummaryResponse;
+import com.attendance.repository.AttendanceArchiveJdbcRepository;
+import com.attendance.repository.AttendanceSummaryJdbcRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttendanceSummaryService {
+
+  private final AttendanceSummaryJdbcRepository attendanceSummaryJdbcRepository;
+  private final AttendanceArchiveJdbcRepository attendanceArchiveJdbcRepository;
+
+  /**
+   * 月次の勤務時間集計を取得
+   */
+  @Transactional(readOnly = true)
+  public List<MonthlySummaryResponse> getMonthlySummary(YearMonth month) {
+    return attendanceSummaryJdbcRepository.findMonthly(month);
+  }
+
+  /**
+   * 集計テーブルを勤怠記録から作り直す
+   * 作り直しの間は勤怠記録の更新が待たされるため、打刻の少ない時間帯に実行すること
+   * MySQLから削除済みのアーカイブの月は勤怠記録が残っていないため、既存の集計をそのまま残す
+   */
+  @Transactional
+  public void rebuild() {
+    long start = System.currentTimeMillis();
+    LocalDate purgedBefore = attendanceArchiveJdbcRepository.findPurgedBefore();
+    attendanceSummaryJdbcRepository.rebuild(purgedBefore);
+    log.info("勤務時間集計を再作成しました (対象: {}以降, {}ms)",
+        purgedBefore == null ? "全期間" : purgedBefore, System.currentTimeMillis() - start);
+  }
+}
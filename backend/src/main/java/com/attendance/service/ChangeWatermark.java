@@ -0,0 +1,59 @@
+package com.attendance.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.attendance.dto.AttendanceChange;
+
+/**
+ * 変更フィードの読み取り位置 (updated_at, record_id)
+ * クライアントには不透明な文字列として渡す
+ */
+final class ChangeWatermark {
+
+  private static final char SEPARATOR = '|';
+
+  private final LocalDateTime updatedAt;
+  private final Long recordId;
+
+  private ChangeWatermark(LocalDateTime updatedAt, Long recordId) {
+    this.updatedAt = updatedAt;
+    this.recordId = recordId;
+  }
+
+  LocalDateTime getUpdatedAt() {
+    return updatedAt;
+  }
+
+  Long getRecordId() {
+    return recordId;
+  }
+
+  /**
+   * 最後に返した変更からウォーターマーク文字列を生成
+   */
+  static String encode(AttendanceChange last) {
+    String raw = last.getUpdatedAt().toString() + SEPARATOR + last.getRecordId();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * ウォーターマーク文字列を復元(不正な値はIllegalArgumentException)
+   */
+  static ChangeWatermark decode(String watermark) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(watermark), StandardCharsets.UTF_8);
+      int index = raw.indexOf(SEPARATOR);
+      if (index < 0) {
+        throw new IllegalArgumentException("無効なウォーターマークです");
+      }
+      return new ChangeWatermark(
+          LocalDateTime.parse(raw.substring(0, index)),
+          Long.valueOf(raw.substring(index + 1)));
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("無効なウォーターマークです", e);
+    }
+  }
+}
@@ -1,62 +1,119 @@
 package com.attendance.service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
 
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import com.attendance.model.AttendanceRecord;
-import com.attendance.repository.AttendanceRecordRepository;
+import com.attendance.dto.AttendanceResponse;
+import com.attendance.dto.PayrollResult;
+import com.attendance.metrics.AttendanceMetrics;
+import com.attendance.metrics.CountingOutputStream;
+import com.attendance.payroll.PayrollDataset;
+import com.attendance.payroll.PayrollEngine;
 
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class ExcelExportService {
 
-  private final AttendanceRecordRepository attendanceRecordRepository;
+  private final TieredAttendanceReader tieredAttendanceReader;
+  private final AttendanceMetrics attendanceMetrics;
+  private final PayrollEngine payrollEngine;
+  private final PayrollService payrollService;
   private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
   private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
 
+  // メモリ上に保持する行数(これを超えた行は一時ファイルに書き出される)
+  private static final int ROW_ACCESS_WINDOW = 100;
+
+  // 1シートの最終行(これを超えた行は続きのシート「勤怠記録 (2)」…に書き出す)
+  private static final int LAST_ROW_INDEX = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+
+  private static final String RECORD_SHEET_NAME = "勤怠記録";
+  private static final String[] RECORD_HEADERS =
+      { "ユーザーID", "ユーザー名", "日付", "勤怠区分", "出勤時刻", "退勤時刻", "勤務時間" };
+
+  // 列幅(文字数)。autoSizeColumnは全行を走査するため固定値を使う
+  private static final int[] COLUMN_WIDTHS = { 12, 20, 12, 10, 10, 10, 14 };
+  private static final int[] PAYROLL_COLUMN_WIDTHS = { 12, 20, 10, 16, 14, 16, 14, 10, 14, 12, 16, 12, 10 };
+
   /**
    * 指定期間の勤怠データをExcelに出力
+   * 行はカーソルで1件ずつ読み出し、SXSSFで書き出すためメモリ使用量は行数に関わらず一定
+   * payroll の場合は給与計算のシートを追加する(ユーザーごとに記録を読み終えた時点で計算し、保持するのは1ユーザー分のみ)
    */
-  public byte[] exportToExcel(LocalDateTime startDate, LocalDateTime endDate) throws IOException {
-    List<AttendanceRecord> records = attendanceRecordRepository.findByDateRange(startDate, endDate);
+  @Transactional(readOnly = true)
+  public void exportToExcel(LocalDateTime startDate, LocalDateTime endDate, boolean payroll,
+      OutputStream outputStream) throws IOException {
+    Timer.Sample sample = attendanceMetrics.start();
+    CountingOutputStream countingStream = new CountingOutputStream(outputStream);
+    String outcome = AttendanceMetrics.OUTCOME_ERROR;
+    long rows = 0;
+    Map<Long, Long> leaveDaysYearToDate = payroll ? payrollService.leaveDaysYearToDate(endDate.toLocalDate()) : null;
+    try (Stream<AttendanceResponse> records =
+        tieredAttendanceReader.streamResponsesByDateRange(startDate, endDate)) {
+      rows = writeWorkbook(records.iterator(), leaveDaysYearToDate, countingStream);
+      outcome = AttendanceMetrics.OUTCOME_SUCCESS;
+    } finally {
+      attendanceMetrics.export(sample, "xlsx", outcome, rows, countingStream.getCount());
+    }
+  }
 
-    try (Workbook workbook = new XSSFWorkbook()) {
-      Sheet sheet = workbook.createSheet("勤怠記録");
+  /**
+   * 勤怠記録を順に読みながらワークブックを書き出し、データ行数を返す
+   * leaveDaysYearToDate がnullでない場合は、ユーザーが切り替わるごとに給与計算を行い2枚目のシートに書き出す
+   * (記録はユーザーID順に渡すこと)
+   * 1シートの行数の上限を超える場合は、ヘッダー行を付けた続きのシートに書き出す
+   */
+  long writeWorkbook(Iterator<AttendanceResponse> iterator, Map<Long, Long> leaveDaysYearToDate,
+      OutputStream outputStream) throws IOException {
+    SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+    workbook.setCompressTempFiles(true);
 
+    try {
       // ヘッダースタイル
       CellStyle headerStyle = createHeaderStyle(workbook);
-
-      // ヘッダー行作成
-      Row headerRow = sheet.createRow(0);
-      String[] headers = { "ユーザーID", "ユーザー名", "日付", "勤怠区分", "出勤時刻", "退勤時刻", "勤務時間" };
-      for (int i = 0; i < headers.length; i++) {
-        Cell cell = headerRow.createCell(i);
-        cell.setCellValue(headers[i]);
-        cell.setCellStyle(headerStyle);
-      }
+      int sheetCount = 1;
+      Sheet sheet = createRecordSheet(workbook, headerStyle, sheetCount);
 
       // データ行作成
       CellStyle dataStyle = createDataStyle(workbook);
       int rowNum = 1;
+      long rows = 0;
+      PayrollSheet payrollSheet = leaveDaysYearToDate == null
+          ? null
+          : new PayrollSheet(workbook, headerStyle, dataStyle, leaveDaysYearToDate);
 
-      for (AttendanceRecord record : records) {
+      while (iterator.hasNext()) {
+        AttendanceResponse record = iterator.next();
+        if (payrollSheet != null) {
+          payrollSheet.add(record);
+        }
+        if (rowNum > LAST_ROW_INDEX) {
+          sheet = createRecordSheet(workbook, headerStyle, ++sheetCount);
+          rowNum = 1;
+        }
         Row row = sheet.createRow(rowNum++);
+        rows++;
 
         Cell cell0 = row.createCell(0);
-        cell0.setCellValue(record.getUser().getUserId());
+        cell0.setCellValue(record.getUserId());
         cell0.setCellStyle(dataStyle);
 
         Cell cell1 = row.createCell(1);
-        cell1.setCellValue(record.getUser().getUsername());
+        cell1.setCellValue(record.getUsername());
         cell1.setCellStyle(dataStyle);
 
         Cell cell2 = row.createCell(2);
@@ -99,15 +156,111 @@ public class ExcelExportService {
         cell6.setCellStyle(dataStyle);
       }
 
-      // 列幅自動調整
-      for (int i = 0; i < headers.length; i++) {
-        sheet.autoSizeColumn(i);
+      if (payrollSheet != null) {
+        payrollSheet.finish();
       }
 
-      // ByteArrayに変換
-      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
       workbook.write(outputStream);
-      return outputStream.toByteArray();
+      return rows;
+    } finally {
+      workbook.dispose();
+      workbook.close();
+    }
+  }
+
+  /**
+   * 勤怠記録のシートをヘッダー行と列幅を設定して作成(2枚目以降は「勤怠記録 (n)」として給与計算のシートより前に置く)
+   */
+  private Sheet createRecordSheet(Workbook workbook, CellStyle headerStyle, int number) {
+    String name = number == 1 ? RECORD_SHEET_NAME : RECORD_SHEET_NAME + " (" + number + ")";
+    Sheet sheet = workbook.createSheet(name);
+    workbook.setSheetOrder(name, number - 1);
+
+    Row headerRow = sheet.createRow(0);
+    for (int i = 0; i < RECORD_HEADERS.length; i++) {
+      Cell cell = headerRow.createCell(i);
+      cell.setCellValue(RECORD_HEADERS[i]);
+      cell.setCellStyle(headerStyle);
+      sheet.setColumnWidth(i, COLUMN_WIDTHS[i] * 256);
+    }
+    return sheet;
+  }
+
+  /**
+   * 給与計算のシート(時間は分単位の数値)
+   * ユーザーID順に渡される記録を1ユーザー分ずつ計算し、ユーザーが切り替わるごとに1行書き出す
+   */
+  private final class PayrollSheet {
+
+    private final Sheet sheet;
+    private final CellStyle dataStyle;
+    private final Map<Long, Long> leaveDaysYearToDate;
+    private final PayrollDataset dataset = payrollEngine.newDataset();
+    private Long currentUserId;
+    private int rowNum = 1;
+
+    PayrollSheet(Workbook workbook, CellStyle headerStyle, CellStyle dataStyle, Map<Long, Long> leaveDaysYearToDate) {
+      this.sheet = workbook.createSheet("給与計算");
+      this.dataStyle = dataStyle;
+      this.leaveDaysYearToDate = leaveDaysYearToDate;
+
+      Row headerRow = sheet.createRow(0);
+      String[] headers = { "ユーザーID", "ユーザー名", "出勤日数", "実労働時間(分)", "残業時間(分)", "超過残業(分)",
+          "深夜時間(分)", "遅刻回数", "遅刻時間(分)", "年休(期間)", "年休(年度累計)", "年休残日数", "未退勤" };
+      for (int i = 0; i < headers.length; i++) {
+        Cell cell = headerRow.createCell(i);
+        cell.setCellValue(headers[i]);
+        cell.setCellStyle(headerStyle);
+        sheet.setColumnWidth(i, PAYROLL_COLUMN_WIDTHS[i] * 256);
+      }
+    }
+
+    void add(AttendanceResponse record) {
+      if (currentUserId != null && !currentUserId.equals(record.getUserId())) {
+        writeUser();
+      }
+      currentUserId = record.getUserId();
+      dataset.add(record);
+    }
+
+    void finish() {
+      writeUser();
+    }
+
+    private void writeUser() {
+      if (dataset.size() == 0) {
+        return;
+      }
+      PayrollResult result = payrollEngine.calculateSingleUser(dataset, leaveDaysYearToDate);
+      dataset.clear();
+
+      Row row = sheet.createRow(rowNum++);
+      double[] values = {
+          result.getWorkDays(),
+          result.getWorkedMinutes(),
+          result.getOvertimeMinutes(),
+          result.getExcessOvertimeMinutes(),
+          result.getNightMinutes(),
+          result.getLateCount(),
+          result.getLateMinutes(),
+          result.getLeaveDays(),
+          result.getLeaveDaysYearToDate(),
+          result.getLeaveBalance(),
+          result.getOpenSessions() };
+
+      Cell cell0 = row.createCell(0);
+      cell0.setCellValue(result.getUserId());
+      cell0.setCellStyle(dataStyle);
+
+      Cell cell1 = row.createCell(1);
+      cell1.setCellValue(result.getUsername());
+      cell1.setCellStyle(dataStyle);
+
+      for (int i = 0; i < values.length; i++) {
+        Cell cell = row.createCell(i + 2);
+        cell.setCellValue(values[i]);
+        cell.setCellStyle(dataStyle);
+      }
     }
   }
 
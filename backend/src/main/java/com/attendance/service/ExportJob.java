@@ -0,0 +1,88 @@
+package com.attendance.service;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * 非同期エクスポートジョブの状態
+ */
+public class ExportJob {
+
+  public enum Status {
+    PENDING, RUNNING, DONE, FAILED
+  }
+
+  private final String jobId;
+  private final LocalDateTime startDate;
+  private final LocalDateTime endDate;
+  private final boolean payroll;
+  private final Instant createdAt = Instant.now();
+
+  private volatile Status status = Status.PENDING;
+  private volatile Path file;
+  private volatile Instant completedAt;
+  private volatile String error;
+
+  ExportJob(String jobId, LocalDateTime startDate, LocalDateTime endDate, boolean payroll) {
+    this.jobId = jobId;
+    this.startDate = startDate;
+    this.endDate = endDate;
+    this.payroll = payroll;
+  }
+
+  public String getJobId() {
+    return jobId;
+  }
+
+  public LocalDateTime getStartDate() {
+    return startDate;
+  }
+
+  public LocalDateTime getEndDate() {
+    return endDate;
+  }
+
+  /**
+   * 給与計算のシートを含めるか
+   */
+  public boolean isPayroll() {
+    return payroll;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  public Instant getCompletedAt() {
+    return completedAt;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  void running() {
+    this.status = Status.RUNNING;
+  }
+
+  void done(Path file) {
+    this.file = file;
+    this.completedAt = Instant.now();
+    this.status = Status.DONE;
+  }
+
+  void failed(String error) {
+    this.error = error;
+    this.completedAt = Instant.now();
+    this.status = Status.FAILED;
+  }
+}
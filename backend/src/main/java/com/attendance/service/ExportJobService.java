@@ -0,0 +1,132 @@
+package com.attendance.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Excelエクスポートをジョブとして非同期に実行し、結果を一時ファイルに保存する
+ */
+@Service
+@Slf4j
+public class ExportJobService {
+
+  private final ExcelExportService excelExportService;
+  private final TaskExecutor exportJobExecutor;
+  private final Path jobDir;
+  private final Duration resultTtl;
+
+  private final ConcurrentHashMap<String, ExportJob> jobs = new ConcurrentHashMap<>();
+  // 実行待ち・実行中のジョブ(同じ期間の要求を1つにまとめる)
+  private final ConcurrentHashMap<String, ExportJob> activeJobs = new ConcurrentHashMap<>();
+
+  public ExportJobService(
+      ExcelExportService excelExportService,
+      @Qualifier("exportJobExecutor") TaskExecutor exportJobExecutor,
+      @Value("${attendance.export.job-dir:${java.io.tmpdir}/attendance-exports}") String jobDir,
+      @Value("${attendance.export.result-ttl:30m}") Duration resultTtl) {
+    this.excelExportService = excelExportService;
+    this.exportJobExecutor = exportJobExecutor;
+    this.jobDir = Paths.get(jobDir);
+    this.resultTtl = resultTtl;
+  }
+
+  /**
+   * ジョブを登録(同じ期間・内容のジョブが実行待ち・実行中であればそれを返す)
+   * ワーカーのキューが一杯の場合はRejectedExecutionException
+   */
+  public ExportJob submit(LocalDateTime startDate, LocalDateTime endDate, boolean payroll) {
+    String key = startDate + "|" + endDate + "|" + payroll;
+    boolean[] created = new boolean[1];
+    ExportJob job = activeJobs.computeIfAbsent(key, k -> {
+      created[0] = true;
+      return new ExportJob(UUID.randomUUID().toString(), startDate, endDate, payroll);
+    });
+    if (!created[0]) {
+      return job;
+    }
+
+    jobs.put(job.getJobId(), job);
+    try {
+      exportJobExecutor.execute(() -> run(job, key));
+    } catch (RuntimeException e) {
+      activeJobs.remove(key, job);
+      jobs.remove(job.getJobId());
+      throw e;
+    }
+    return job;
+  }
+
+  /**
+   * ジョブを取得(存在しない場合はnull)
+   */
+  public ExportJob getJob(String jobId) {
+    return jobs.get(jobId);
+  }
+
+  private void run(ExportJob job, String key) {
+    job.running();
+    Path file = null;
+    try {
+      Files.createDirectories(jobDir);
+      file = Files.createTempFile(jobDir, "attendance-", ".xlsx");
+      try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file))) {
+        excelExportService.exportToExcel(job.getStartDate(), job.getEndDate(), job.isPayroll(), outputStream);
+      }
+      job.done(file);
+      log.info("エクスポートジョブが完了しました: {}", job.getJobId());
+    } catch (Exception e) {
+      log.error("エクスポートジョブが失敗しました: {}", job.getJobId(), e);
+      deleteQuietly(file);
+      job.failed("エクスポートに失敗しました");
+    } finally {
+      activeJobs.remove(key, job);
+    }
+  }
+
+  /**
+   * 保持期間を過ぎたジョブと結果ファイルを削除
+   */
+  @Scheduled(fixedDelayString = "${attendance.export.cleanup-interval:60000}")
+  public void cleanupExpired() {
+    Instant threshold = Instant.now().minus(resultTtl);
+    Iterator<ExportJob> iterator = jobs.values().iterator();
+    while (iterator.hasNext()) {
+      ExportJob job = iterator.next();
+      Instant completedAt = job.getCompletedAt();
+      if (completedAt != null && completedAt.isBefore(threshold)) {
+        iterator.remove();
+        deleteQuietly(job.getFile());
+        log.debug("期限切れのエクスポートジョブを削除しました: {}", job.getJobId());
+      }
+    }
+  }
+
+  private void deleteQuietly(Path file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.warn("エクスポートファイルを削除できませんでした: {}", file, e);
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package com.attendance.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.attendance.dto.AttendanceErrorCode;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Idempotency-Key ごとの打刻結果をメモリに保持する
+ * 同じキーの再送にはDBを参照せず最初の結果(成功・不受理とも)を返し、
+ * 処理中の再送は最初のリクエストの完了を待って同じ結果を返す
+ * 保持はインスタンスごと。別インスタンスへの再送は業務ルール(二重出勤など)とユニーク制約で防ぐ
+ */
+@Component
+@Slf4j
+public class IdempotencyKeyStore {
+
+  /** キーの最大長 */
+  public static final int MAX_KEY_LENGTH = 255;
+
+  private final int maxEntries;
+  private final long ttlNanos;
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+  private final LongAdder executions = new LongAdder();
+  private final LongAdder replays = new LongAdder();
+  private final LongAdder mismatches = new LongAdder();
+  private final LongAdder bypasses = new LongAdder();
+
+  public IdempotencyKeyStore(
+      @Value("${attendance.idempotency.max-entries:100000}") int maxEntries,
+      @Value("${attendance.idempotency.ttl:10m}") Duration ttl) {
+    this.maxEntries = maxEntries;
+    this.ttlNanos = ttl.toNanos();
+  }
+
+  /**
+   * キーに対する最初の結果を返す(初回のみactionを実行する)
+   * 同じキーが別の内容の打刻に使われた場合は IDEMPOTENCY_KEY_REUSED
+   * 競合(CONCURRENT_UPDATE)と例外は再送で成功しうるため保持しない
+   */
+  public AttendanceResult execute(String key, String fingerprint, Supplier<AttendanceResult> action) {
+    Entry entry = new Entry(fingerprint);
+    while (true) {
+      if (!ensureCapacity()) {
+        // 上限に達している間は重複排除せずに実行する
+        bypasses.increment();
+        return action.get();
+      }
+      Entry existing = entries.putIfAbsent(key, entry);
+      if (existing == null) {
+        break;
+      }
+      if (existing.isExpired(System.nanoTime())) {
+        entries.remove(key, existing);
+        continue;
+      }
+      if (!existing.fingerprint.equals(fingerprint)) {
+        mismatches.increment();
+        return AttendanceResult.rejected(AttendanceErrorCode.IDEMPOTENCY_KEY_REUSED);
+      }
+      replays.increment();
+      return await(existing);
+    }
+
+    executions.increment();
+    AttendanceResult result;
+    try {
+      result = action.get();
+    } catch (RuntimeException | Error e) {
+      entries.remove(key, entry);
+      entry.result.completeExceptionally(e);
+      throw e;
+    }
+    if (result.getError() == AttendanceErrorCode.CONCURRENT_UPDATE) {
+      entries.remove(key, entry);
+    } else {
+      entry.expiresAt = System.nanoTime() + ttlNanos;
+    }
+    entry.result.complete(result);
+    return result;
+  }
+
+  /**
+   * 期限切れの結果を破棄
+   */
+  @Scheduled(fixedDelayString = "${attendance.idempotency.cleanup-interval:60000}")
+  public void purgeExpired() {
+    long now = System.nanoTime();
+    entries.values().removeIf(entry -> entry.isExpired(now));
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public long getExecutions() {
+    return executions.sum();
+  }
+
+  public long getReplays() {
+    return replays.sum();
+  }
+
+  public long getMismatches() {
+    return mismatches.sum();
+  }
+
+  public long getBypasses() {
+    return bypasses.sum();
+  }
+
+  /**
+   * 上限に達している場合は期限切れを破棄し、それでも空きがなければfalse
+   */
+  private boolean ensureCapacity() {
+    if (entries.size() < maxEntries) {
+      return true;
+    }
+    purgeExpired();
+    if (entries.size() < maxEntries) {
+      return true;
+    }
+    log.debug("Idempotency-Keyの保持件数が上限({}件)に達しています", maxEntries);
+    return false;
+  }
+
+  /**
+   * 処理中の最初のリクエストの完了を待つ(例外で終わった場合は同じ例外を投げる)
+   */
+  private static AttendanceResult await(Entry entry) {
+    try {
+      return entry.result.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * キー1件の結果(完了までは有効期限なし)
+   */
+  private static final class Entry {
+    private final String fingerprint;
+    private final CompletableFuture<AttendanceResult> result = new CompletableFuture<>();
+    private volatile long expiresAt = Long.MAX_VALUE;
+
+    private Entry(String fingerprint) {
+      this.fingerprint = fingerprint;
+    }
+
+    private boolean isExpired(long now) {
+      return expiresAt != Long.MAX_VALUE && now - expiresAt > 0;
+    }
+  }
+}
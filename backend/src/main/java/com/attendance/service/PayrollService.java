@@ -0,0 +1,61 @@
+package com.attendance.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.attendance.dto.AttendanceResponse;
+import com.attendance.dto.PayrollResult;
+import com.attendance.metrics.AttendanceMetrics;
+import com.attendance.payroll.PayrollDataset;
+import com.attendance.payroll.PayrollEngine;
+import com.attendance.payroll.PayrollRules;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class PayrollService {
+
+  private final TieredAttendanceReader tieredAttendanceReader;
+  private final PayrollEngine payrollEngine;
+  private final PayrollRules payrollRules;
+  private final AttendanceMetrics attendanceMetrics;
+
+  /**
+   * 指定期間の勤怠記録からユーザーごとの残業・深夜・遅刻・年休を計算
+   * 記録はカーソルで読み出し、プリミティブ配列に詰めてから並列に計算する
+   */
+  @Transactional(readOnly = true)
+  public List<PayrollResult> calculate(LocalDateTime startDate, LocalDateTime endDate) {
+    Timer.Sample sample = attendanceMetrics.start();
+    PayrollDataset dataset = payrollEngine.newDataset();
+    try (Stream<AttendanceResponse> records =
+        tieredAttendanceReader.streamResponsesByDateRange(startDate, endDate)) {
+      records.forEach(dataset::add);
+    }
+
+    List<PayrollResult> results =
+        payrollEngine.calculate(dataset, leaveDaysYearToDate(endDate.toLocalDate()));
+    attendanceMetrics.rangeQuery(sample, "payroll", dataset.size());
+    return results;
+  }
+
+  /**
+   * 年度初めから指定日までのユーザーごとの年休日数
+   */
+  @Transactional(readOnly = true)
+  public Map<Long, Long> leaveDaysYearToDate(LocalDate lastDay) {
+    LocalDate firstDay = LocalDate.of(lastDay.getYear(), payrollRules.getFiscalYearStartMonth(), 1);
+    if (firstDay.isAfter(lastDay)) {
+      firstDay = firstDay.minusYears(1);
+    }
+    return tieredAttendanceReader.countLeaveDaysByUser(firstDay, lastDay);
+  }
+}
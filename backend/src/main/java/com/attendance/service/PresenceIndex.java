@@ -0,0 +1,178 @@
+package com.attendance.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.stereotype.Component;
+
+import com.attendance.dto.AttendanceResponse;
+import com.attendance.dto.PresenceBoard;
+import com.attendance.dto.PresenceCounts;
+import com.attendance.dto.PresenceEntry;
+import com.attendance.dto.PresenceStatus;
+import com.attendance.dto.PresenceUpdate;
+
+/**
+ * 今日の在席状況のインデックス(ユーザーごとの今日の勤怠記録と状況ごとの人数)
+ * 打刻のたびに差分で更新し、他インスタンスや一括処理の変更は定期的にDBと突き合わせて取り込む
+ * 更新頻度は打刻の件数程度のため、排他はインスタンス全体で1つのロックで行う
+ */
+@Component
+public class PresenceIndex {
+
+  private final Map<Long, Entry> entries = new TreeMap<>();
+  private final int[] counts = new int[PresenceStatus.values().length];
+  private LocalDate date;
+  private boolean loaded;
+
+  /**
+   * 打刻の結果を反映し、在席状況が変わった場合は差分を返す(変わらない場合・前日の記録の場合はnull)
+   */
+  public synchronized PresenceUpdate apply(LocalDate workDate, AttendanceResponse response) {
+    if (!rollOverIfNeeded(workDate)) {
+      return null;
+    }
+    Entry entry = new Entry(response, System.nanoTime());
+    Entry previous = entries.put(response.getUserId(), entry);
+    if (previous != null && previous.sameState(entry)) {
+      return null;
+    }
+    count(previous, -1);
+    count(entry, 1);
+    return new PresenceUpdate(PresenceEntry.of(response), counts());
+  }
+
+  /**
+   * DBから読んだ今日の勤怠記録と突き合わせ、在席状況が変わったユーザーの記録を返す
+   * 読み込みを開始した時刻(startedAt, System.nanoTime)より後に打刻で更新されたユーザーは上書きしない
+   */
+  public synchronized Reconciliation reconcile(LocalDate workDate, List<AttendanceResponse> rows, long startedAt) {
+    if (!rollOverIfNeeded(workDate)) {
+      return new Reconciliation(List.of(), false);
+    }
+    List<AttendanceResponse> changed = new ArrayList<>();
+    Set<Long> seen = new HashSet<>(rows.size() * 2);
+    for (AttendanceResponse row : rows) {
+      seen.add(row.getUserId());
+      Entry previous = entries.get(row.getUserId());
+      if (previous != null && previous.updatedAt - startedAt > 0) {
+        continue;
+      }
+      Entry entry = new Entry(row, startedAt);
+      entries.put(row.getUserId(), entry);
+      if (previous == null || !previous.sameState(entry)) {
+        count(previous, -1);
+        count(entry, 1);
+        changed.add(row);
+      }
+    }
+
+    // DBにない記録(取り消し・削除)を除く
+    boolean removed = false;
+    for (Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator(); iterator.hasNext();) {
+      Map.Entry<Long, Entry> current = iterator.next();
+      if (!seen.contains(current.getKey()) && current.getValue().updatedAt - startedAt <= 0) {
+        count(current.getValue(), -1);
+        iterator.remove();
+        removed = true;
+      }
+    }
+    loaded = true;
+    return new Reconciliation(changed, removed);
+  }
+
+  /**
+   * 指定日の内容をDBから読み込み済みか
+   */
+  public synchronized boolean isLoaded(LocalDate workDate) {
+    return loaded && workDate.equals(date);
+  }
+
+  /**
+   * 次の参照時にDBから読み直すようにする(購読者がいない間は突き合わせを行わないため)
+   */
+  public synchronized void invalidate() {
+    loaded = false;
+  }
+
+  /**
+   * 全ユーザー分の在席状況(ユーザーID順)
+   */
+  public synchronized PresenceBoard snapshot(LocalDate workDate) {
+    rollOverIfNeeded(workDate);
+    List<PresenceEntry> list = new ArrayList<>(entries.size());
+    for (Entry entry : entries.values()) {
+      list.add(PresenceEntry.of(entry.response));
+    }
+    return new PresenceBoard(workDate, counts(), list);
+  }
+
+  /**
+   * 在席状況ごとの人数
+   */
+  public synchronized PresenceCounts getCounts() {
+    return counts();
+  }
+
+  /**
+   * 日付が進んでいれば全件破棄して切り替える(前日の記録の場合はfalse)
+   */
+  private boolean rollOverIfNeeded(LocalDate workDate) {
+    if (date == null || workDate.isAfter(date)) {
+      entries.clear();
+      Arrays.fill(counts, 0);
+      date = workDate;
+      loaded = false;
+    }
+    return workDate.equals(date);
+  }
+
+  private void count(Entry entry, int delta) {
+    if (entry != null) {
+      counts[entry.status.ordinal()] += delta;
+    }
+  }
+
+  private PresenceCounts counts() {
+    return new PresenceCounts(
+        counts[PresenceStatus.CHECKED_IN.ordinal()],
+        counts[PresenceStatus.CHECKED_OUT.ordinal()],
+        counts[PresenceStatus.ON_LEAVE.ordinal()]);
+  }
+
+  /**
+   * 突き合わせの結果(在席状況が変わった記録と、除いた記録があったか)
+   */
+  public record Reconciliation(List<AttendanceResponse> changed, boolean removed) {
+  }
+
+  /**
+   * ユーザー1人分(updatedAtは最後に更新したSystem.nanoTime)
+   */
+  private static final class Entry {
+    private final AttendanceResponse response;
+    private final PresenceStatus status;
+    private final long updatedAt;
+
+    private Entry(AttendanceResponse response, long updatedAt) {
+      this.response = response;
+      this.status = PresenceStatus.of(response);
+      this.updatedAt = updatedAt;
+    }
+
+    /**
+     * 同じ記録で在席状況も同じか(時刻の精度はDBとの往復で変わるため比較しない)
+     */
+    private boolean sameState(Entry other) {
+      return Objects.equals(response.getRecordId(), other.response.getRecordId()) && status == other.status;
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package com.attendance.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.attendance.dto.AttendanceResponse;
+import com.attendance.metrics.AttendanceMetrics;
+import com.attendance.metrics.CountingOutputStream;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 勤怠記録をNDJSON・CSVで逐次書き出す(給与・BI連携などの機械読み取り用)
+ * カーソルから1行ずつ書き出すため、件数に関わらず先頭バイトまでの時間とメモリ使用量は一定
+ */
+@Service
+@RequiredArgsConstructor
+public class RecordStreamExportService {
+
+  private static final String[] CSV_HEADERS = {
+      "recordId", "userId", "username", "recordDate", "attendanceType", "status", "checkInTime", "checkOutTime" };
+
+  private final TieredAttendanceReader tieredAttendanceReader;
+  private final ObjectMapper objectMapper;
+  private final AttendanceMetrics attendanceMetrics;
+
+  /**
+   * 1行1レコードのJSON(NDJSON)で書き出す
+   */
+  @Transactional(readOnly = true)
+  public void writeNdjson(LocalDateTime startDate, LocalDateTime endDate, OutputStream outputStream)
+      throws IOException {
+    Timer.Sample sample = attendanceMetrics.start();
+    CountingOutputStream countingStream = new CountingOutputStream(outputStream);
+    String outcome = AttendanceMetrics.OUTCOME_ERROR;
+    long rows = 0;
+    try {
+      try (Stream<AttendanceResponse> records =
+          tieredAttendanceReader.streamResponsesByDateRange(startDate, endDate);
+          JsonGenerator generator = objectMapper.getFactory().createGenerator(countingStream)) {
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // 既定ではルートの値の間に空白が入り、2行目以降が空白で始まるため、区切りは改行だけにする
+        generator.setRootValueSeparator(null);
+
+        Iterator<AttendanceResponse> iterator = records.iterator();
+        while (iterator.hasNext()) {
+          generator.writeObject(iterator.next());
+          generator.writeRaw('\n');
+          rows++;
+        }
+      }
+      outcome = AttendanceMetrics.OUTCOME_SUCCESS;
+    } finally {
+      attendanceMetrics.export(sample, "ndjson", outcome, rows, countingStream.getCount());
+    }
+  }
+
+  /**
+   * CSV(ヘッダー行付き、UTF-8)で書き出す
+   */
+  @Transactional(readOnly = true)
+  public void writeCsv(LocalDateTime startDate, LocalDateTime endDate, OutputStream outputStream)
+      throws IOException {
+    Timer.Sample sample = attendanceMetrics.start();
+    CountingOutputStream countingStream = new CountingOutputStream(outputStream);
+    String outcome = AttendanceMetrics.OUTCOME_ERROR;
+    long rows = 0;
+    try {
+      rows = writeCsvRows(startDate, endDate, countingStream);
+      outcome = AttendanceMetrics.OUTCOME_SUCCESS;
+    } finally {
+      attendanceMetrics.export(sample, "csv", outcome, rows, countingStream.getCount());
+    }
+  }
+
+  /**
+   * ヘッダー行とデータ行を書き出し、データ行数を返す
+   */
+  private long writeCsvRows(LocalDateTime startDate, LocalDateTime endDate, OutputStream outputStream)
+      throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    long rows = 0;
+    try (Stream<AttendanceResponse> records =
+        tieredAttendanceReader.streamResponsesByDateRange(startDate, endDate)) {
+      writer.write(String.join(",", CSV_HEADERS));
+      writer.write("\r\n");
+
+      Iterator<AttendanceResponse> iterator = records.iterator();
+      while (iterator.hasNext()) {
+        AttendanceResponse record = iterator.next();
+        writer.write(String.valueOf(record.getRecordId()));
+        writer.write(',');
+        writer.write(String.valueOf(record.getUserId()));
+        writer.write(',');
+        writeCsvField(writer, record.getUsername());
+        writer.write(',');
+        writeCsvField(writer, record.getRecordDate());
+        writer.write(',');
+        writeCsvField(writer, record.getAttendanceType());
+        writer.write(',');
+        writeCsvField(writer, record.getStatus());
+        writer.write(',');
+        writeCsvField(writer, record.getCheckInTime());
+        writer.write(',');
+        writeCsvField(writer, record.getCheckOutTime());
+        writer.write("\r\n");
+        rows++;
+      }
+    }
+    writer.flush();
+    return rows;
+  }
+
+  /**
+   * CSVの1項目を書き出す(区切り文字・引用符・改行を含む場合は引用符で囲む)
+   */
+  private static void writeCsvField(Writer writer, Object value) throws IOException {
+    if (value == null) {
+      return;
+    }
+    String text = value.toString();
+    if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+      writer.write(text);
+      return;
+    }
+    writer.write('"');
+    writer.write(text.replace("\"", "\"\""));
+    writer.write('"');
+  }
+}
@@ -0,0 +1,492 @@
+package com.attendance.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.attendance.archive.MonthArchive;
+import com.attendance.dto.AttendanceResponse;
+import com.attendance.dto.UserSummary;
+import com.attendance.repository.AttendanceRecordRepository;
+import com.attendance.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * アーカイブ(締めた月の列指向ファイル)とMySQLの勤怠記録をまとめて読む
+ * アーカイブの境界より前はファイルから、以降はMySQLから読み、MySQLから読んだ場合と同じ順序・内容で返す
+ * (ユーザー名は現在の users から引き、削除済みのユーザーの記録は含めない)
+ * アーカイブ済みの月がMySQLに残っていても読まないため、削除の前後で結果は変わらない
+ */
+@Service
+@RequiredArgsConstructor
+public class TieredAttendanceReader {
+
+  private static final Comparator<AttendanceResponse> BY_USER = Comparator.comparing(AttendanceResponse::getUserId);
+
+  private final AttendanceArchiveCatalog attendanceArchiveCatalog;
+  private final AttendanceRecordRepository attendanceRecordRepository;
+  private final UserRepository userRepository;
+
+  private final LongAdder archivedRowsRead = new LongAdder();
+
+  /**
+   * 期間指定で取得(ユーザーID・記録日時順)
+   */
+  public List<AttendanceResponse> findResponsesByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+    AttendanceArchiveCatalog.Snapshot snapshot = attendanceArchiveCatalog.getSnapshot();
+    LocalDateTime boundary = snapshot.archivedBefore();
+    if (boundary == null || !startDate.isBefore(boundary)) {
+      return attendanceRecordRepository.findResponsesByDateRange(startDate, endDate);
+    }
+
+    Iterator<AttendanceResponse> archived = archivedByUser(snapshot.covering(startDate, endDate), startDate, endDate);
+    Iterator<AttendanceResponse> rows = endDate.isBefore(boundary)
+        ? archived
+        : mergeByUser(archived, attendanceRecordRepository.findResponsesByDateRange(boundary, endDate).iterator());
+    List<AttendanceResponse> records = new ArrayList<>();
+    rows.forEachRemaining(records::add);
+    return records;
+  }
+
+  /**
+   * 期間指定でストリームで取得(ユーザーID・記録日時順)
+   * 呼び出し側はトランザクション内で使用し、読み終えたら閉じること
+   */
+  public Stream<AttendanceResponse> streamResponsesByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+    AttendanceArchiveCatalog.Snapshot snapshot = attendanceArchiveCatalog.getSnapshot();
+    LocalDateTime boundary = snapshot.archivedBefore();
+    if (boundary == null || !startDate.isBefore(boundary)) {
+      return attendanceRecordRepository.streamResponsesByDateRange(startDate, endDate);
+    }
+
+    Iterator<AttendanceResponse> archived = archivedByUser(snapshot.covering(startDate, endDate), startDate, endDate);
+    if (endDate.isBefore(boundary)) {
+      return toStream(archived);
+    }
+    Stream<AttendanceResponse> live = attendanceRecordRepository.streamResponsesByDateRange(boundary, endDate);
+    return toStream(mergeByUser(archived, live.iterator())).onClose(live::close);
+  }
+
+  /**
+   * 期間指定の先頭から limit 件(記録日時・ID順)
+   */
+  public List<AttendanceResponse> findRangePage(LocalDateTime startDate, LocalDateTime endDate, int limit) {
+    AttendanceArchiveCatalog.Snapshot snapshot = attendanceArchiveCatalog.getSnapshot();
+    LocalDateTime boundary = snapshot.archivedBefore();
+    if (boundary == null || !startDate.isBefore(boundary)) {
+      return attendanceRecordRepository.findRangePage(startDate, endDate, PageRequest.of(0, limit));
+    }
+
+    List<AttendanceResponse> rows =
+        archivedByDate(snapshot.covering(startDate, endDate), startDate, null, endDate, limit);
+    appendLiveRange(rows, boundary, endDate, limit);
+    return rows;
+  }
+
+  /**
+   * カーソル位置より後ろの limit 件(記録日時・ID順)
+   */
+  public List<AttendanceResponse> findRangePageAfter(
+      LocalDateTime endDate, LocalDateTime cursorDate, Long cursorId, int limit) {
+    AttendanceArchiveCatalog.Snapshot snapshot = attendanceArchiveCatalog.getSnapshot();
+    LocalDateTime boundary = snapshot.archivedBefore();
+    if (boundary == null || !cursorDate.isBefore(boundary)) {
+      return attendanceRecordRepository.findRangePageAfter(endDate, cursorDate, cursorId, PageRequest.of(0, limit));
+    }
+
+    List<AttendanceResponse> rows =
+        archivedByDate(snapshot.covering(cursorDate, endDate), cursorDate, cursorId, endDate, limit);
+    appendLiveRange(rows, boundary, endDate, limit);
+    return rows;
+  }
+
+  /**
+   * ユーザーの全勤怠記録(新しい順)
+   */
+  public List<AttendanceResponse> findResponsesByUserId(Long userId) {
+    AttendanceArchiveCatalog.Snapshot snapshot = attendanceArchiveCatalog.getSnapshot();
+    LocalDateTime boundary = snapshot.archivedBefore();
+    if (boundary == null) {
+      return attendanceRecordRepository.findResponsesByUserId(userId);
+    }
+
+    List<AttendanceResponse> rows =
+        new ArrayList<>(attendanceRecordRepository.findResponsesByUserIdSince(userId, boundary));
+    appendArchivedUserRows(rows, snapshot, userId, null, null, Integer.MAX_VALUE);
+    return rows;
+  }
+
+  /**
+   * ユーザーの勤怠記録の先頭から limit 件(新しい順)
+   */
+  public List<AttendanceResponse> findUserPage(Long userId, int limit) {
+    AttendanceArchiveCatalog.Snapshot snapshot = attendanceArchiveCatalog.getSnapshot();
+    LocalDateTime boundary = snapshot.archivedBefore();
+    if (boundary == null) {
+      return attendanceRecordRepository.findUserPage(userId, PageRequest.of(0, limit));
+    }
+
+    List<AttendanceResponse> rows =
+        new ArrayList<>(attendanceRecordRepository.findUserPageSince(userId, boundary, PageRequest.of(0, limit)));
+    appendArchivedUserRows(rows, snapshot, userId, null, null, limit);
+    return rows;
+  }
+
+  /**
+   * カーソル位置より後ろのユーザーの勤怠記録 limit 件(新しい順)
+   */
+  public List<AttendanceResponse> findUserPageAfter(Long userId, LocalDateTime cursorDate, Long cursorId, int limit) {
+    AttendanceArchiveCatalog.Snapshot snapshot = attendanceArchiveCatalog.getSnapshot();
+    LocalDateTime boundary = snapshot.archivedBefore();
+    if (boundary == null) {
+      return attendanceRecordRepository.findUserPageAfter(userId, cursorDate, cursorId, PageRequest.of(0, limit));
+    }
+
+    List<AttendanceResponse> rows = new ArrayList<>();
+    if (!cursorDate.isBefore(boundary)) {
+      rows.addAll(attendanceRecordRepository.findUserPageAfterSince(
+          userId, boundary, cursorDate, cursorId, PageRequest.of(0, limit)));
+      appendArchivedUserRows(rows, snapshot, userId, null, null, limit);
+    } else {
+      appendArchivedUserRows(rows, snapshot, userId, cursorDate, cursorId, limit);
+    }
+    return rows;
+  }
+
+  /**
+   * 勤務日範囲内のユーザーごとの年休日数
+   */
+  public Map<Long, Long> countLeaveDaysByUser(LocalDate firstDay, LocalDate lastDay) {
+    Map<Long, Long> leaveDays = new HashMap<>();
+    AttendanceArchiveCatalog.Snapshot snapshot = attendanceArchiveCatalog.getSnapshot();
+    LocalDateTime boundary = snapshot.archivedBefore();
+    LocalDate liveFirstDay = firstDay;
+
+    if (boundary != null && firstDay.isBefore(boundary.toLocalDate())) {
+      liveFirstDay = boundary.toLocalDate();
+      LocalDateTime from = firstDay.atStartOfDay();
+      LocalDateTime to = lastDay.atTime(LocalTime.MAX);
+      List<MonthArchive> archives = snapshot.covering(from, to);
+      Map<Long, String> usernames = archives.isEmpty() ? Map.of() : loadAllUsernames();
+      for (MonthArchive archive : archives) {
+        countArchivedLeaveDays(archive, from, to, usernames.keySet(), leaveDays);
+      }
+    }
+
+    if (!lastDay.isBefore(liveFirstDay)) {
+      for (Object[] row : attendanceRecordRepository.countLeaveDaysByUser(liveFirstDay, lastDay)) {
+        leaveDays.merge((Long) row[0], (Long) row[1], Long::sum);
+      }
+    }
+    return leaveDays;
+  }
+
+  /**
+   * アーカイブから読んだ行数(起動からの累計)
+   */
+  public long getArchivedRowsRead() {
+    return archivedRowsRead.sum();
+  }
+
+  /**
+   * アーカイブの [from, to] の勤怠記録をユーザーID・記録日時順に読む
+   * 各月のファイルはユーザーID順のため、ユーザーごとに古い月から順に取り出す
+   */
+  private Iterator<AttendanceResponse> archivedByUser(
+      List<MonthArchive> archives, LocalDateTime from, LocalDateTime to) {
+    if (archives.isEmpty()) {
+      return Collections.emptyIterator();
+    }
+    Map<Long, String> usernames = loadAllUsernames();
+    long fromMicros = MonthArchive.ceilMicros(from);
+    long toMicros = MonthArchive.floorMicros(to);
+
+    PriorityQueue<UserCursor> queue = new PriorityQueue<>();
+    for (int i = 0; i < archives.size(); i++) {
+      if (archives.get(i).getUserCount() > 0) {
+        queue.add(new UserCursor(archives.get(i), i));
+      }
+    }
+
+    return new Iterator<>() {
+      private UserCursor current;
+      private String username;
+      private int row;
+      private int end;
+      private AttendanceResponse next;
+
+      @Override
+      public boolean hasNext() {
+        while (next == null) {
+          if (current != null && row < end) {
+            int candidate = row++;
+            long recordDate = current.archive.recordDateMicros(candidate);
+            if (recordDate > toMicros) {
+              row = end;
+            } else if (recordDate >= fromMicros) {
+              next = current.archive.toResponse(candidate, current.userId(), username);
+            }
+            continue;
+          }
+          if (current != null && current.advance()) {
+            queue.add(current);
+          }
+          current = queue.poll();
+          if (current == null) {
+            return false;
+          }
+          username = usernames.get(current.userId());
+          row = current.archive.userStart(current.userIndex);
+          end = username == null ? row : current.archive.userStart(current.userIndex + 1);
+        }
+        return true;
+      }
+
+      @Override
+      public AttendanceResponse next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        AttendanceResponse result = next;
+        next = null;
+        archivedRowsRead.increment();
+        return result;
+      }
+    };
+  }
+
+  /**
+   * アーカイブの勤怠記録を記録日時・ID順に limit 件読む
+   * afterId が null の場合は from 以降、そうでなければ (from, afterId) より後ろから
+   */
+  private List<AttendanceResponse> archivedByDate(
+      List<MonthArchive> archives, LocalDateTime from, Long afterId, LocalDateTime to, int limit) {
+    List<AttendanceResponse> rows = new ArrayList<>();
+    Map<Long, String> usernames = new HashMap<>();
+    long toMicros = MonthArchive.floorMicros(to);
+
+    for (MonthArchive archive : archives) {
+      int position = afterId == null ? archive.datePositionFrom(from) : archive.datePositionAfter(from, afterId);
+      boolean exhausted = false;
+      while (!exhausted && rows.size() < limit && position < archive.getRowCount()) {
+        // 足りない件数分の行を集め、未解決のユーザー名をまとめて引く
+        int chunkEnd = Math.min(archive.getRowCount(), position + (limit - rows.size()));
+        List<Integer> chunk = new ArrayList<>(chunkEnd - position);
+        Set<Long> unresolved = new HashSet<>();
+        for (; position < chunkEnd; position++) {
+          int row = archive.rowAtDatePosition(position);
+          if (archive.recordDateMicros(row) > toMicros) {
+            exhausted = true;
+            break;
+          }
+          chunk.add(row);
+          long userId = archive.userIdAt(archive.userIndexOfRow(row));
+          if (!usernames.containsKey(userId)) {
+            unresolved.add(userId);
+          }
+        }
+        resolveUsernames(unresolved, usernames);
+        for (int row : chunk) {
+          long userId = archive.userIdAt(archive.userIndexOfRow(row));
+          String username = usernames.get(userId);
+          if (username != null) {
+            rows.add(archive.toResponse(row, userId, username));
+          }
+        }
+      }
+      if (exhausted || rows.size() >= limit) {
+        break;
+      }
+    }
+    archivedRowsRead.add(rows.size());
+    return rows;
+  }
+
+  /**
+   * ページの残りをMySQLの境界以降の先頭から埋める
+   */
+  private void appendLiveRange(List<AttendanceResponse> rows, LocalDateTime boundary, LocalDateTime endDate,
+      int limit) {
+    if (rows.size() < limit && !endDate.isBefore(boundary)) {
+      rows.addAll(attendanceRecordRepository.findRangePage(boundary, endDate, PageRequest.of(0, limit - rows.size())));
+    }
+  }
+
+  /**
+   * ユーザーのアーカイブの勤怠記録を新しい順に limit 件まで追加
+   * cursorDate が null でなければ (cursorDate, cursorId) より前のものだけ
+   */
+  private void appendArchivedUserRows(List<AttendanceResponse> rows, AttendanceArchiveCatalog.Snapshot snapshot,
+      Long userId, LocalDateTime cursorDate, Long cursorId, int limit) {
+    if (rows.size() >= limit) {
+      return;
+    }
+    long cursorMicros = cursorDate == null ? Long.MAX_VALUE : MonthArchive.floorMicros(cursorDate);
+    String username = null;
+    int added = 0;
+    for (MonthArchive archive : snapshot.all().descendingMap().values()) {
+      int index = archive.findUser(userId);
+      if (index < 0) {
+        continue;
+      }
+      if (username == null) {
+        username = userRepository.findSummariesByIds(List.of(userId)).stream()
+            .map(UserSummary::getUsername)
+            .findFirst()
+            .orElse(null);
+        if (username == null) {
+          return;
+        }
+      }
+      for (int row = archive.userStart(index + 1) - 1; row >= archive.userStart(index); row--) {
+        long recordDate = archive.recordDateMicros(row);
+        if (recordDate > cursorMicros || (recordDate == cursorMicros && archive.recordId(row) >= cursorId)) {
+          continue;
+        }
+        rows.add(archive.toResponse(row, userId, username));
+        added++;
+        if (rows.size() >= limit) {
+          archivedRowsRead.add(added);
+          return;
+        }
+      }
+    }
+    archivedRowsRead.add(added);
+  }
+
+  private static void countArchivedLeaveDays(MonthArchive archive, LocalDateTime from, LocalDateTime to,
+      Set<Long> userIds, Map<Long, Long> leaveDays) {
+    long fromMicros = MonthArchive.ceilMicros(from);
+    long toMicros = MonthArchive.floorMicros(to);
+    for (int index = 0; index < archive.getUserCount(); index++) {
+      long userId = archive.userIdAt(index);
+      if (!userIds.contains(userId)) {
+        continue;
+      }
+      long count = 0;
+      for (int row = archive.userStart(index); row < archive.userStart(index + 1); row++) {
+        long recordDate = archive.recordDateMicros(row);
+        if (recordDate >= fromMicros && recordDate <= toMicros && "ANNUAL_LEAVE".equals(archive.attendanceType(row))) {
+          count++;
+        }
+      }
+      if (count > 0) {
+        leaveDays.merge(userId, count, Long::sum);
+      }
+    }
+  }
+
+  /**
+   * ユーザーIDの順に2つの列を合わせる(同じユーザーではアーカイブの行が古いため先に返す)
+   */
+  private static Iterator<AttendanceResponse> mergeByUser(
+      Iterator<AttendanceResponse> archived, Iterator<AttendanceResponse> live) {
+    return new Iterator<>() {
+      private AttendanceResponse archivedNext;
+      private AttendanceResponse liveNext;
+
+      @Override
+      public boolean hasNext() {
+        if (archivedNext == null && archived.hasNext()) {
+          archivedNext = archived.next();
+        }
+        if (liveNext == null && live.hasNext()) {
+          liveNext = live.next();
+        }
+        return archivedNext != null || liveNext != null;
+      }
+
+      @Override
+      public AttendanceResponse next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        AttendanceResponse result;
+        if (liveNext == null || (archivedNext != null && BY_USER.compare(archivedNext, liveNext) <= 0)) {
+          result = archivedNext;
+          archivedNext = null;
+        } else {
+          result = liveNext;
+          liveNext = null;
+        }
+        return result;
+      }
+    };
+  }
+
+  private Map<Long, String> loadAllUsernames() {
+    Map<Long, String> usernames = new HashMap<>();
+    for (UserSummary user : userRepository.findAllSummaries()) {
+      usernames.put(user.getUserId(), user.getUsername());
+    }
+    return usernames;
+  }
+
+  /**
+   * ユーザー名をまとめて引く(削除済みのユーザーはnullとして記録する)
+   */
+  private void resolveUsernames(Collection<Long> userIds, Map<Long, String> usernames) {
+    if (userIds.isEmpty()) {
+      return;
+    }
+    for (Long userId : userIds) {
+      usernames.put(userId, null);
+    }
+    for (UserSummary user : userRepository.findSummariesByIds(userIds)) {
+      usernames.put(user.getUserId(), user.getUsername());
+    }
+  }
+
+  private static Stream<AttendanceResponse> toStream(Iterator<AttendanceResponse> iterator) {
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+  }
+
+  /**
+   * 月ごとのファイル上のユーザーの位置(ユーザーID、同じユーザーは古い月を先に取り出す)
+   */
+  private static final class UserCursor implements Comparable<UserCursor> {
+    private final MonthArchive archive;
+    private final int order;
+    private int userIndex;
+
+    private UserCursor(MonthArchive archive, int order) {
+      this.archive = archive;
+      this.order = order;
+    }
+
+    private long userId() {
+      return archive.userIdAt(userIndex);
+    }
+
+    private boolean advance() {
+      return ++userIndex < archive.getUserCount();
+    }
+
+    @Override
+    public int compareTo(UserCursor other) {
+      int result = Long.compare(userId(), other.userId());
+      return result != 0 ? result : Integer.compare(order, other.order);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package com.attendance.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.attendance.config.ClockConfig;
+import com.attendance.dto.AttendanceResponse;
+import com.attendance.dto.CacheStatsResponse;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ユーザーごとの今日の勤怠状況をメモリに保持するキャッシュ
+ * 記録時に書き込み(write-through)、日付が変わると破棄する
+ * 日付は呼び出し側が ClockConfig の時計(Asia/Tokyo)で求めたものを渡す
+ */
+@Component
+@Slf4j
+public class TodayAttendanceCache {
+
+  private final int maxEntries;
+  private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+  private volatile LocalDate cachedDate;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public TodayAttendanceCache(@Value("${attendance.today-cache.max-entries:50000}") int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * キャッシュを参照(未登録の場合はnull)
+   */
+  public Entry get(Long userId, LocalDate date) {
+    rollOverIfNeeded(date);
+    Entry entry = entries.get(userId);
+    if (entry == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return entry;
+  }
+
+  /**
+   * DBから読み込んだ値を登録(記録処理が書き込んだ値は上書きしない)
+   */
+  public void putIfAbsent(Long userId, LocalDate date, AttendanceResponse response) {
+    rollOverIfNeeded(date);
+    ensureCapacity(userId);
+    entries.putIfAbsent(userId, new Entry(response));
+  }
+
+  /**
+   * 記録処理の結果を登録
+   */
+  public void put(Long userId, LocalDate date, AttendanceResponse response) {
+    rollOverIfNeeded(date);
+    ensureCapacity(userId);
+    entries.put(userId, new Entry(response));
+  }
+
+  /**
+   * コミット後に記録処理の結果を登録(ロールバック時は登録しない)
+   */
+  public void putAfterCommit(Long userId, LocalDate date, AttendanceResponse response) {
+    afterCommit(() -> put(userId, date, response));
+  }
+
+  /**
+   * コミット後に複数ユーザーのキャッシュを破棄
+   */
+  public void evictAfterCommit(Collection<Long> userIds) {
+    afterCommit(() -> userIds.forEach(this::evict));
+  }
+
+  /**
+   * ユーザーのキャッシュを破棄
+   */
+  public void evict(Long userId) {
+    if (entries.remove(userId) != null) {
+      evictions.increment();
+    }
+  }
+
+  /**
+   * 日付の切り替わり(Asia/Tokyo)で全件破棄
+   */
+  @Scheduled(cron = "0 0 0 * * *", zone = ClockConfig.ZONE_ID)
+  public void flush() {
+    int size = entries.size();
+    entries.clear();
+    evictions.add(size);
+    log.debug("今日の勤怠キャッシュを破棄しました: {}件", size);
+  }
+
+  /**
+   * 統計情報を取得
+   */
+  public CacheStatsResponse getStats() {
+    long hitCount = hits.sum();
+    long missCount = misses.sum();
+    long total = hitCount + missCount;
+    double hitRatio = total == 0 ? 0.0 : (double) hitCount / total;
+    return new CacheStatsResponse(entries.size(), hitCount, missCount, evictions.sum(), hitRatio);
+  }
+
+  /**
+   * 参照された日付がキャッシュの日付と異なる場合は全件破棄して切り替える
+   */
+  private void rollOverIfNeeded(LocalDate date) {
+    if (date.equals(cachedDate)) {
+      return;
+    }
+    synchronized (this) {
+      if (!date.equals(cachedDate)) {
+        if (cachedDate != null) {
+          flush();
+        }
+        cachedDate = date;
+      }
+    }
+  }
+
+  /**
+   * トランザクション中であればコミット後に、そうでなければ即座に実行
+   */
+  private void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+
+  /**
+   * 上限に達している場合は任意の1件を追い出す
+   */
+  private void ensureCapacity(Long userId) {
+    if (entries.size() < maxEntries || entries.containsKey(userId)) {
+      return;
+    }
+    Iterator<Long> iterator = entries.keySet().iterator();
+    if (iterator.hasNext()) {
+      entries.remove(iterator.next());
+      evictions.increment();
+    }
+  }
+
+  /**
+   * キャッシュの値(今日の記録がない場合はresponseがnull)
+   */
+  public static final class Entry {
+    private final AttendanceResponse response;
+
+    private Entry(AttendanceResponse response) {
+      this.response = response;
+    }
+
+    public AttendanceResponse getResponse() {
+      return response;
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package com.attendance.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * ユーザー単位の打刻処理を直列化するストライプロック
+ * 同じユーザーへの同時リクエストをプロセス内で待たせ、MySQLの行ロック競合まで持ち込まない
+ */
+@Component
+public class UserLockStripes {
+
+  private final ReentrantLock[] locks;
+  private final int mask;
+  private final int maxStripesPerGroup;
+
+  public UserLockStripes(
+      @Value("${attendance.lock-stripes:1024}") int stripes,
+      @Value("${attendance.lock-stripes-per-transaction:16}") int maxStripesPerGroup) {
+    if (maxStripesPerGroup < 1) {
+      throw new IllegalArgumentException("attendance.lock-stripes-per-transaction は1以上を指定してください");
+    }
+    this.maxStripesPerGroup = maxStripesPerGroup;
+    int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+    this.locks = new ReentrantLock[size];
+    this.mask = size - 1;
+    for (int i = 0; i < size; i++) {
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  /**
+   * ユーザーのロックを取得して処理を実行
+   */
+  public <T> T withLock(Long userId, Supplier<T> action) {
+    ReentrantLock lock = locks[stripeOf(userId)];
+    lock.lock();
+    try {
+      return action.get();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 複数ユーザーのロックを取得して処理を実行
+   * デッドロックを避けるためストライプ番号の昇順で取得する
+   */
+  public <T> T withLocks(Collection<Long> userIds, Supplier<T> action) {
+    TreeSet<Integer> stripes = new TreeSet<>();
+    for (Long userId : userIds) {
+      stripes.add(stripeOf(userId));
+    }
+
+    Deque<ReentrantLock> acquired = new ArrayDeque<>();
+    try {
+      for (int stripe : stripes) {
+        ReentrantLock lock = locks[stripe];
+        lock.lock();
+        acquired.push(lock);
+      }
+      return action.get();
+    } finally {
+      while (!acquired.isEmpty()) {
+        acquired.pop().unlock();
+      }
+    }
+  }
+
+  /**
+   * 1回の withLocks で取得するストライプが lock-stripes-per-transaction 以下になるようユーザーを分ける
+   * 多数のユーザーをまとめて処理する場合に、ほぼすべてのストライプを長く保持して他の打刻を止めないようにする
+   * (同じストライプのユーザーは同じグループに入る)
+   */
+  public List<Set<Long>> partition(Collection<Long> userIds) {
+    TreeMap<Integer, List<Long>> byStripe = new TreeMap<>();
+    for (Long userId : userIds) {
+      byStripe.computeIfAbsent(stripeOf(userId), stripe -> new ArrayList<>()).add(userId);
+    }
+
+    List<Set<Long>> groups = new ArrayList<>();
+    Set<Long> group = null;
+    int stripesInGroup = 0;
+    for (List<Long> stripeUserIds : byStripe.values()) {
+      if (group == null || stripesInGroup == maxStripesPerGroup) {
+        group = new HashSet<>();
+        groups.add(group);
+        stripesInGroup = 0;
+      }
+      group.addAll(stripeUserIds);
+      stripesInGroup++;
+    }
+    return groups;
+  }
+
+  private int stripeOf(Long userId) {
+    long hash = (userId == null ? 0L : userId) * 0x9E3779B97F4A7C15L;
+    return (int) (hash >>> 32) & mask;
+  }
+}
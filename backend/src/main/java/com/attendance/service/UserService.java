@@ -0,0 +1,115 @@
+package com.attendance.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.attendance.config.UserCacheConfig;
+import com.attendance.dto.CacheRegionStatsResponse;
+import com.attendance.dto.CursorPage;
+import com.attendance.dto.UserSummary;
+import com.attendance.model.User;
+import com.attendance.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * ユーザー一覧(勤怠記録を読み込まない射影で返す)
+ */
+@Service
+@RequiredArgsConstructor
+public class UserService {
+
+  private static final int DEFAULT_PAGE_SIZE = 50;
+  private static final int MAX_PAGE_SIZE = 500;
+
+  private final UserRepository userRepository;
+  private final EntityManagerFactory entityManagerFactory;
+
+  /**
+   * 全ユーザーを取得
+   */
+  public List<UserSummary> getAllUsers() {
+    return userRepository.findAllSummaries();
+  }
+
+  /**
+   * ユーザー名の前方一致でユーザーをカーソルページングで取得(ユーザー名順)
+   */
+  public CursorPage<UserSummary> getUserPage(String prefix, String cursor, Integer limit) {
+    int pageSize = limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+    String pattern = escapeLike(prefix == null ? "" : prefix) + "%";
+    String after = cursor == null || cursor.isEmpty() ? "" : decodeCursor(cursor);
+
+    List<UserSummary> rows = userRepository.findSummaryPage(pattern, after, PageRequest.of(0, pageSize + 1));
+    if (rows.size() <= pageSize) {
+      return new CursorPage<>(rows, null);
+    }
+    List<UserSummary> items = rows.subList(0, pageSize);
+    return new CursorPage<>(items, encodeCursor(items.get(pageSize - 1).getUsername()));
+  }
+
+  /**
+   * ユーザーIDでユーザーを取得
+   */
+  public Optional<UserSummary> getUser(Long userId) {
+    return userRepository.findSummaryById(userId);
+  }
+
+  /**
+   * ユーザーを作成
+   */
+  public UserSummary createUser(User user) {
+    User saved = userRepository.save(user);
+    return new UserSummary(saved.getUserId(), saved.getUsername(), saved.getEmail(), saved.getRole());
+  }
+
+  /**
+   * ユーザーの二次キャッシュの領域ごとのヒット率(Hibernateの統計情報から取得)
+   */
+  public List<CacheRegionStatsResponse> getCacheStats() {
+    return UserCacheConfig.USER_REGIONS.stream().map(this::getCacheStats).toList();
+  }
+
+  /**
+   * 指定した領域のヒット率(まだ参照されていない領域は0件)
+   */
+  public CacheRegionStatsResponse getCacheStats(String region) {
+    CacheRegionStatistics statistics = entityManagerFactory.unwrap(SessionFactory.class)
+        .getStatistics()
+        .getCacheRegionStatistics(region);
+    if (statistics == null) {
+      return new CacheRegionStatsResponse(region, 0, 0, 0, 0.0);
+    }
+    long hitCount = statistics.getHitCount();
+    long missCount = statistics.getMissCount();
+    long total = hitCount + missCount;
+    double hitRatio = total == 0 ? 0.0 : (double) hitCount / total;
+    return new CacheRegionStatsResponse(region, hitCount, missCount, statistics.getPutCount(), hitRatio);
+  }
+
+  /**
+   * LIKEの特殊文字をエスケープ
+   */
+  private static String escapeLike(String value) {
+    return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+
+  private static String encodeCursor(String username) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(username.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * カーソル文字列を復元(不正な値はIllegalArgumentException)
+   */
+  private static String decodeCursor(String cursor) {
+    return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,58 @@
+-- H2(MySQL互換モード)用スキーマ(ローカル負荷試験・ベンチマーク用)
+-- MySQLの V1〜V8 をまとめたもの。以降の変更は db/migration/mysql と同じバージョン番号で追加する
+
+CREATE TABLE IF NOT EXISTS users (
+    user_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(100) NOT NULL UNIQUE,
+    email VARCHAR(200) NOT NULL,
+    role VARCHAR(20) NOT NULL DEFAULT 'USER',
+    change_version BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_email ON users(email);
+
+CREATE TABLE IF NOT EXISTS attendance_records (
+    record_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    check_in_time DATETIME,
+    check_out_time DATETIME,
+    record_date DATETIME NOT NULL,
+    work_date DATE NOT NULL,
+    attendance_type VARCHAR(20) NOT NULL DEFAULT 'WORK',
+    google_calendar_event_id VARCHAR(500),
+    version BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6),
+    updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+    CONSTRAINT uk_user_work_date UNIQUE (user_id, work_date),
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_record_date ON attendance_records(record_date);
+CREATE INDEX IF NOT EXISTS idx_user_record_date ON attendance_records(user_id, record_date);
+CREATE INDEX IF NOT EXISTS idx_attendance_type ON attendance_records(attendance_type);
+CREATE INDEX IF NOT EXISTS idx_updated_at ON attendance_records(updated_at);
+
+CREATE TABLE IF NOT EXISTS attendance_daily_summary (
+    user_id BIGINT NOT NULL,
+    work_date DATE NOT NULL,
+    worked_minutes BIGINT NOT NULL DEFAULT 0,
+    leave_days INT NOT NULL DEFAULT 0,
+    open_sessions INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, work_date)
+);
+
+CREATE TABLE IF NOT EXISTS attendance_monthly_summary (
+    summary_month INT NOT NULL,
+    user_id BIGINT NOT NULL,
+    worked_minutes BIGINT NOT NULL DEFAULT 0,
+    leave_days INT NOT NULL DEFAULT 0,
+    open_sessions INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (summary_month, user_id)
+);
+
+CREATE TABLE IF NOT EXISTS replication_heartbeat (
+    id INT NOT NULL PRIMARY KEY,
+    beat_at TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,17 @@
+-- 勤怠記録のアーカイブの管理(db/migration/mysql/V9 と同じ)
+
+CREATE TABLE IF NOT EXISTS attendance_archive_months (
+    archive_month DATE NOT NULL PRIMARY KEY,
+    row_count INT NOT NULL,
+    file_size BIGINT NOT NULL,
+    checksum BIGINT NOT NULL,
+    archived_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    purged_at TIMESTAMP(6) NULL
+);
+
+CREATE TABLE IF NOT EXISTS attendance_archive_state (
+    id INT NOT NULL PRIMARY KEY,
+    sealed_before DATE NULL
+);
+
+INSERT INTO attendance_archive_state (id, sealed_before) VALUES (1, NULL);
@@ -0,0 +1,6 @@
+-- カーソルページング用の複合インデックス
+
+-- ユーザー別履歴 (user_id, record_date, record_id) のシーク用
+-- InnoDBのセカンダリインデックスには主キー(record_id)が末尾に含まれる
+-- 期間指定一覧 (record_date, record_id) は既存の idx_record_date を使用する
+CREATE INDEX idx_user_record_date ON attendance_records(user_id, record_date);
@@ -0,0 +1,16 @@
+-- 勤務日(work_date)とユニークインデックス
+-- 「今日の記録」の検索を (user_id, work_date) の等価検索にし、同日の二重登録を制約で防ぐ
+-- 同じユーザー・同じ日の記録が重複している場合はユニークインデックスの作成で失敗するため、事前に解消すること
+
+-- バックフィルのため一旦NULLを許可
+ALTER TABLE attendance_records
+ADD COLUMN work_date DATE NULL AFTER record_date;
+
+UPDATE attendance_records
+SET work_date = DATE(record_date)
+WHERE work_date IS NULL;
+
+ALTER TABLE attendance_records
+MODIFY COLUMN work_date DATE NOT NULL;
+
+CREATE UNIQUE INDEX uk_user_work_date ON attendance_records(user_id, work_date);
@@ -0,0 +1,3 @@
+-- 楽観的ロック用のバージョン(既存データは0)
+ALTER TABLE attendance_records
+ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,45 @@
+-- 日次・月次の勤務時間集計テーブル
+-- 作成後、既存の勤怠記録から集計を作成する
+
+CREATE TABLE IF NOT EXISTS attendance_daily_summary (
+    user_id BIGINT NOT NULL,
+    work_date DATE NOT NULL,
+    worked_minutes BIGINT NOT NULL DEFAULT 0,
+    leave_days INT NOT NULL DEFAULT 0,
+    open_sessions INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, work_date),
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- summary_monthはyyyyMM
+CREATE TABLE IF NOT EXISTS attendance_monthly_summary (
+    summary_month INT NOT NULL,
+    user_id BIGINT NOT NULL,
+    worked_minutes BIGINT NOT NULL DEFAULT 0,
+    leave_days INT NOT NULL DEFAULT 0,
+    open_sessions INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (summary_month, user_id),
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+INSERT INTO attendance_daily_summary (user_id, work_date, worked_minutes, leave_days, open_sessions)
+SELECT
+    user_id,
+    work_date,
+    SUM(CASE WHEN attendance_type = 'WORK' AND check_in_time IS NOT NULL AND check_out_time IS NOT NULL
+        THEN TIMESTAMPDIFF(MINUTE, check_in_time, check_out_time) ELSE 0 END),
+    SUM(CASE WHEN attendance_type = 'ANNUAL_LEAVE' THEN 1 ELSE 0 END),
+    SUM(CASE WHEN attendance_type = 'WORK' AND check_in_time IS NOT NULL AND check_out_time IS NULL
+        THEN 1 ELSE 0 END)
+FROM attendance_records
+GROUP BY user_id, work_date;
+
+INSERT INTO attendance_monthly_summary (summary_month, user_id, worked_minutes, leave_days, open_sessions)
+SELECT
+    YEAR(work_date) * 100 + MONTH(work_date),
+    user_id,
+    SUM(worked_minutes),
+    SUM(leave_days),
+    SUM(open_sessions)
+FROM attendance_daily_summary
+GROUP BY YEAR(work_date) * 100 + MONTH(work_date), user_id;
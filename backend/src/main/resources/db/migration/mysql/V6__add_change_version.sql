@@ -0,0 +1,3 @@
+-- 勤怠記録の変更バージョン(条件付きGET用、既存データは0)
+ALTER TABLE users
+ADD COLUMN change_version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,6 @@
+-- 読み取りレプリカの遅延測定用ハートビート
+-- プライマリが定期的に更新し、レプリカで現在時刻との差を測る
+CREATE TABLE IF NOT EXISTS replication_heartbeat (
+    id INT NOT NULL PRIMARY KEY,
+    beat_at TIMESTAMP(6) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
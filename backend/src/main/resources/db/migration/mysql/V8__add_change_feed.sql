@@ -0,0 +1,10 @@
+-- 勤怠記録の変更フィード
+
+-- 同じ秒内の変更も順序付けできるようマイクロ秒精度にする
+ALTER TABLE attendance_records
+MODIFY COLUMN created_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6),
+MODIFY COLUMN updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+
+-- (updated_at, record_id) のシーク用
+-- InnoDBのセカンダリインデックスには主キー(record_id)が末尾に含まれる
+CREATE INDEX idx_updated_at ON attendance_records(updated_at);
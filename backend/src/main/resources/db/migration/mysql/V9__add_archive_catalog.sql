@@ -0,0 +1,20 @@
+-- 勤怠記録のアーカイブ(締めた月を列指向ファイルに移したもの)の管理
+
+-- アーカイブ済みの月(ファイルの検証用の行数・大きさ・CRC32と、MySQLから削除した日時)
+CREATE TABLE IF NOT EXISTS attendance_archive_months (
+    archive_month DATE NOT NULL PRIMARY KEY,
+    row_count INT NOT NULL,
+    file_size BIGINT NOT NULL,
+    checksum BIGINT NOT NULL,
+    archived_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    purged_at TIMESTAMP(6) NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- 変更を受け付けない月の境界(この日より前の勤怠記録は追加・更新しない)
+-- 過去の月へ書き込む処理はこの行をロックして確認する
+CREATE TABLE IF NOT EXISTS attendance_archive_state (
+    id INT NOT NULL PRIMARY KEY,
+    sealed_before DATE NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+INSERT INTO attendance_archive_state (id, sealed_before) VALUES (1, NULL);
@@ -0,0 +1,116 @@
+package com.attendance.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.attendance.config.ClockConfig;
+import com.attendance.dto.AttendanceBatchResponse;
+import com.attendance.dto.AttendanceRequest;
+import com.attendance.metrics.SqlStatementCounter;
+import com.attendance.model.User;
+import com.attendance.service.AttendanceArchiveCatalog;
+import com.attendance.service.AttendanceBatchService;
+import com.attendance.service.UserService;
+
+/**
+ * 勤怠記録の取得APIが発行するSQL文の数がユーザー数・記録数に関わらず一定であること(ユーザーの遅延ロードによるN+1がないこと)
+ * 文数はDataSourceで数えるため、JdbcTemplateで発行する文も含む
+ */
+@SpringBootTest(properties =
+    "spring.datasource.url=jdbc:h2:mem:attendance;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class AttendanceControllerStatementCountTest {
+
+  private static final int USERS = 5;
+  private static final int DAYS = 3;
+
+  // 期間指定は勤怠記録の一覧の1文
+  private static final int RANGE_STATEMENTS = 1;
+
+  // ユーザー別はETag用の変更バージョン、一覧と同じ時点の変更バージョン、勤怠記録の一覧の3文
+  private static final int USER_STATEMENTS = 3;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private UserService userService;
+
+  @Autowired
+  private AttendanceBatchService attendanceBatchService;
+
+  @Autowired
+  private AttendanceArchiveCatalog attendanceArchiveCatalog;
+
+  private final List<Long> userIds = new ArrayList<>();
+  private LocalDateTime startDate;
+  private LocalDateTime endDate;
+
+  @BeforeEach
+  void setUp() {
+    LocalDateTime today = LocalDateTime.now(ClockConfig.ZONE).toLocalDate().atStartOfDay();
+    startDate = today.minusDays(DAYS);
+    endDate = today.minusSeconds(1);
+
+    String prefix = "statement-count-" + System.nanoTime() + "-";
+    List<AttendanceRequest> requests = new ArrayList<>();
+    for (int i = 0; i < USERS; i++) {
+      String username = prefix + i;
+      Long userId = userService.createUser(new User(null, username, username + "@example.com", "USER", null))
+          .getUserId();
+      userIds.add(userId);
+      for (int day = 1; day <= DAYS; day++) {
+        LocalDateTime date = today.minusDays(day);
+        requests.add(new AttendanceRequest(userId, "CHECK_IN", date.withHour(9)));
+        requests.add(new AttendanceRequest(userId, "CHECK_OUT", date.withHour(18)));
+      }
+    }
+    AttendanceBatchResponse response = attendanceBatchService.recordBatch(requests);
+    assertThat(response.getRejected()).isZero();
+
+    // アーカイブの管理テーブルは初回だけ読むため、先に読み込んでおく
+    attendanceArchiveCatalog.getSnapshot();
+  }
+
+  @Test
+  void rangeQueryStatementsDoNotGrowWithUsers() throws Exception {
+    SqlStatementCounter.reset();
+    mockMvc.perform(get("/api/attendance/range")
+            .param("startDate", startDate.toString())
+            .param("endDate", endDate.toString())
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[?(@.userId == " + userIds.get(USERS - 1) + ")].username").isNotEmpty());
+
+    assertThat(SqlStatementCounter.current()).isEqualTo(RANGE_STATEMENTS);
+  }
+
+  @Test
+  void userRecordsStatementsDoNotGrowWithRecords() throws Exception {
+    for (Long userId : userIds) {
+      SqlStatementCounter.reset();
+      mockMvc.perform(get("/api/attendance/user/{userId}", userId).accept(MediaType.APPLICATION_JSON))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.length()").value(DAYS))
+          .andExpect(jsonPath("$[0].username").isNotEmpty());
+
+      assertThat(SqlStatementCounter.current()).isEqualTo(USER_STATEMENTS);
+    }
+  }
+}
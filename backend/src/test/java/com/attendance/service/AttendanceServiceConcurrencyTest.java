@@ -0,0 +1,72 @@
+package com.attendance.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.attendance.dto.AttendanceErrorCode;
+import com.attendance.dto.AttendanceRequest;
+import com.attendance.model.User;
+
+/**
+ * 同じユーザーへの同時打刻が1件だけ記録されること
+ */
+@SpringBootTest(properties =
+    "spring.datasource.url=jdbc:h2:mem:attendance;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("h2")
+class AttendanceServiceConcurrencyTest {
+
+  private static final int THREADS = 16;
+
+  @Autowired
+  private AttendanceService attendanceService;
+
+  @Autowired
+  private UserService userService;
+
+  @Test
+  void concurrentCheckInsRecordOnlyOnce() throws Exception {
+    String username = "concurrent-check-in-" + System.nanoTime();
+    Long userId = userService.createUser(new User(null, username, username + "@example.com", "USER", null))
+        .getUserId();
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<AttendanceResult>> futures = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          return attendanceService.recordAttendance(new AttendanceRequest(userId, "CHECK_IN", null));
+        }));
+      }
+      start.countDown();
+
+      List<AttendanceResult> results = new ArrayList<>();
+      for (Future<AttendanceResult> future : futures) {
+        results.add(future.get(30, TimeUnit.SECONDS));
+      }
+
+      assertThat(results).filteredOn(AttendanceResult::isSuccess).hasSize(1);
+      assertThat(results).filteredOn(result -> !result.isSuccess())
+          .extracting(AttendanceResult::getError)
+          .hasSize(THREADS - 1)
+          .allMatch(error -> error == AttendanceErrorCode.ALREADY_CHECKED_IN
+              || error == AttendanceErrorCode.CONCURRENT_UPDATE);
+      assertThat(attendanceService.getUserAttendanceHistory(userId).getRecords()).hasSize(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,29 @@
+#!/bin/bash
+
+# 起動高速化モードのビルド
+# AOT処理済みのjarを展開し、クラスパス起動用のディレクトリ(target/startup)を作成する
+# 使用方法: ./startup/build.sh  (backend ディレクトリで実行)
+#   REPLICA_ENABLED=true の場合は読み取りレプリカ構成でAOT処理する
+
+set -e
+
+cd "$(dirname "$0")/.."
+
+mvn -B -Pstartup clean package -DskipTests \
+  -Dstartup.replica-enabled="${REPLICA_ENABLED:-false}"
+
+OUT=target/startup
+rm -rf "$OUT"
+mkdir -p "$OUT/app"
+(cd "$OUT/app" && jar -xf ../../attendance-backend-1.0.0.jar)
+
+# BOOT-INF/classpath.idx の順序どおりにクラスパスを組み立てる(CDSはクラスパスの一致が必要)
+{
+  printf 'app/BOOT-INF/classes'
+  sed -n 's/^- "\(.*\)"$/:app\/\1/p' "$OUT/app/BOOT-INF/classpath.idx" | tr -d '\n'
+} > "$OUT/classpath.txt"
+
+cp startup/run.sh "$OUT/run.sh"
+chmod +x "$OUT/run.sh"
+
+echo "作成しました: $OUT (起動: $OUT/run.sh)"
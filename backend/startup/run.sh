@@ -0,0 +1,32 @@
+#!/bin/bash
+
+# 起動高速化モードでの起動
+# AOT処理済みのコードを使い(spring.aot.enabled)、クラスデータ共有(CDS)アーカイブからクラスを読み込む
+# アーカイブが無い、またはJVMが変わった場合は、コンテキストの初期化までを一度実行して作成する
+#   CDS_ARCHIVE  アーカイブの保存先(既定: このディレクトリの application.jsa)
+#   JAVA_OPTS    追加のJVMオプション
+
+set -e
+
+cd "$(dirname "$0")"
+
+CP="$(cat classpath.txt)"
+ARCHIVE="${CDS_ARCHIVE:-$(pwd)/application.jsa}"
+JVM_ID_FILE="$ARCHIVE.jvm"
+JVM_ID="$(java -version 2>&1 | tr -d '\n')"
+
+if [ ! -f "$ARCHIVE" ] || [ "$(cat "$JVM_ID_FILE" 2>/dev/null)" != "$JVM_ID" ]; then
+  echo "CDSアーカイブを作成中: $ARCHIVE"
+  mkdir -p "$(dirname "$ARCHIVE")"
+  # 複数インスタンスが同時に作成しても壊れないよう、一時ファイルに書いてから置き換える
+  java -XX:ArchiveClassesAtExit="$ARCHIVE.$$" \
+    -Dspring.aot.enabled=true \
+    -Dspring.context.exit=onRefresh \
+    $JAVA_OPTS -cp "$CP" com.attendance.AttendanceApplication "$@"
+  mv -f "$ARCHIVE.$$" "$ARCHIVE"
+  echo "$JVM_ID" > "$JVM_ID_FILE"
+fi
+
+exec java -XX:SharedArchiveFile="$ARCHIVE" \
+  -Dspring.aot.enabled=true \
+  $JAVA_OPTS -cp "$CP" com.attendance.AttendanceApplication "$@"
@@ -0,0 +1,24 @@
+-- サンプルデータ（任意）
+-- アプリケーションを一度起動してテーブルが作成された後に実行する
+
+USE attendance_db;
+
+-- サンプルユーザーデータを挿入
+INSERT INTO users (username, email, role) VALUES
+('山田太郎', 'yamada@example.com', 'USER'),
+('佐藤花子', 'sato@example.com', 'USER'),
+('管理者', 'admin@example.com', 'ADMIN');
+
+-- サンプル勤怠データを挿入
+INSERT INTO attendance_records (user_id, check_in_time, check_out_time, record_date, work_date) VALUES
+(1, '2025-01-10 09:00:00', '2025-01-10 18:00:00', '2025-01-10 09:00:00', '2025-01-10'),
+(2, '2025-01-10 09:15:00', '2025-01-10 17:45:00', '2025-01-10 09:15:00', '2025-01-10');
+
+-- サンプル勤怠データの集計
+INSERT INTO attendance_daily_summary (user_id, work_date, worked_minutes, leave_days, open_sessions) VALUES
+(1, '2025-01-10', 540, 0, 0),
+(2, '2025-01-10', 510, 0, 0);
+
+INSERT INTO attendance_monthly_summary (summary_month, user_id, worked_minutes, leave_days, open_sessions) VALUES
+(202501, 1, 540, 0, 0),
+(202501, 2, 510, 0, 0);
@@ -15,6 +15,12 @@ MYSQL_SERVER_NAME="attendance-mysql-server"
 MYSQL_DB_NAME="attendance_db"
 MYSQL_ADMIN_USER="attendanceadmin"
 MYSQL_ADMIN_PASSWORD="YourStrongPassword123!"
+# 読み取りレプリカ（期間指定取得・エクスポートの振り分け先）
+# レプリカはBurstable階層では作成できないため、作成する場合はプライマリをGeneralPurpose以上にしてください
+CREATE_READ_REPLICA="false"
+MYSQL_REPLICA_NAME="attendance-mysql-replica"
+# バックエンドの起動方式（"jar": 通常の実行可能jar / "cds": AOT処理済みのコードとCDSアーカイブで起動を高速化）
+STARTUP_MODE="jar"
 
 echo "==================================="
 echo "Azure App Service デプロイスクリプト"
@@ -61,6 +67,20 @@ az mysql flexible-server firewall-rule create \
   --start-ip-address 0.0.0.0 \
   --end-ip-address 0.0.0.0
 
+# 読み取りレプリカの作成（任意）
+REPLICA_SETTINGS=("REPLICA_ENABLED=false")
+if [ "$CREATE_READ_REPLICA" = "true" ]; then
+  echo "読み取りレプリカを作成中..."
+  az mysql flexible-server replica create \
+    --resource-group $RESOURCE_GROUP \
+    --replica-name $MYSQL_REPLICA_NAME \
+    --source-server $MYSQL_SERVER_NAME
+  REPLICA_SETTINGS=(
+    "REPLICA_ENABLED=true"
+    "MYSQL_REPLICA_URL=jdbc:mysql://${MYSQL_REPLICA_NAME}.mysql.database.azure.com:3306/${MYSQL_DB_NAME}?useSSL=true&requireSSL=true&serverTimezone=Asia/Tokyo&rewriteBatchedStatements=true"
+  )
+fi
+
 # バックエンドApp Serviceの作成
 echo "バックエンドApp Serviceを作成中..."
 az webapp create \
@@ -75,22 +95,43 @@ az webapp config appsettings set \
   --resource-group $RESOURCE_GROUP \
   --name $BACKEND_APP_NAME \
   --settings \
-    MYSQL_URL="jdbc:mysql://${MYSQL_SERVER_NAME}.mysql.database.azure.com:3306/${MYSQL_DB_NAME}?useSSL=true&requireSSL=true&serverTimezone=Asia/Tokyo" \
+    MYSQL_URL="jdbc:mysql://${MYSQL_SERVER_NAME}.mysql.database.azure.com:3306/${MYSQL_DB_NAME}?useSSL=true&requireSSL=true&serverTimezone=Asia/Tokyo&rewriteBatchedStatements=true" \
     MYSQL_USER="${MYSQL_ADMIN_USER}" \
     MYSQL_PASSWORD="${MYSQL_ADMIN_PASSWORD}" \
     GOOGLE_CREDENTIALS_PATH="/home/site/wwwroot/credentials.json" \
-    CORS_ALLOWED_ORIGINS="https://${FRONTEND_APP_NAME}.azurewebsites.net"
+    CORS_ALLOWED_ORIGINS="https://${FRONTEND_APP_NAME}.azurewebsites.net" \
+    "${REPLICA_SETTINGS[@]}"
 
 # バックエンドのビルドとデプロイ
 echo "バックエンドをビルド中..."
 cd backend
-mvn clean package -DskipTests
-echo "バックエンドをデプロイ中..."
-az webapp deploy \
-  --resource-group $RESOURCE_GROUP \
-  --name $BACKEND_APP_NAME \
-  --src-path target/attendance-backend-1.0.0.jar \
-  --type jar
+if [ "$STARTUP_MODE" = "cds" ]; then
+  REPLICA_ENABLED="$CREATE_READ_REPLICA" ./startup/build.sh
+  (cd target/startup && zip -qr ../startup.zip .)
+  # CDSアーカイブは再起動後も残るよう /home 配下に保存する
+  az webapp config appsettings set \
+    --resource-group $RESOURCE_GROUP \
+    --name $BACKEND_APP_NAME \
+    --settings CDS_ARCHIVE="/home/cds/application.jsa"
+  echo "バックエンドをデプロイ中..."
+  az webapp deploy \
+    --resource-group $RESOURCE_GROUP \
+    --name $BACKEND_APP_NAME \
+    --src-path target/startup.zip \
+    --type zip
+  az webapp config set \
+    --resource-group $RESOURCE_GROUP \
+    --name $BACKEND_APP_NAME \
+    --startup-file "/home/site/wwwroot/run.sh"
+else
+  mvn clean package -DskipTests
+  echo "バックエンドをデプロイ中..."
+  az webapp deploy \
+    --resource-group $RESOURCE_GROUP \
+    --name $BACKEND_APP_NAME \
+    --src-path target/attendance-backend-1.0.0.jar \
+    --type jar
+fi
 cd ..
 
 # フロントエンドApp Serviceの作成
@@ -130,5 +171,5 @@ echo ""
 echo "次のステップ:"
 echo "1. Google Calendar APIの認証情報をバックエンドにアップロード"
 echo "2. Azure ポータルでEasy Authを設定"
-echo "3. データベースの初期化SQLを実行"
+echo "3. 必要に応じてサンプルデータ(database/sample_data.sql)を投入（テーブルはバックエンドの起動時に作成されます）"
 echo ""
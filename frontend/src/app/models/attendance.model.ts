@@ -9,6 +9,39 @@ export interface AttendanceRecord {
   status?: string;
 }
 
+export type PresenceStatus = 'CHECKED_IN' | 'CHECKED_OUT' | 'ON_LEAVE';
+
+export interface PresenceEntry {
+  userId: number;
+  username: string;
+  status: PresenceStatus;
+  checkInTime?: string;
+  checkOutTime?: string;
+}
+
+export interface PresenceCounts {
+  checkedIn: number;
+  checkedOut: number;
+  onLeave: number;
+}
+
+export interface PresenceBoard {
+  date: string;
+  counts: PresenceCounts;
+  entries: PresenceEntry[];
+}
+
+export type ExportJobStatus = 'PENDING' | 'RUNNING' | 'DONE' | 'FAILED';
+
+export interface ExportJob {
+  jobId: string;
+  status: ExportJobStatus;
+  startDate: string;
+  endDate: string;
+  downloadUrl?: string; // DONEの場合のみ
+  error?: string;
+}
+
 export interface AttendanceRequest {
   userId: number;
   type: 'CHECK_IN' | 'CHECK_OUT' | 'ANNUAL_LEAVE';
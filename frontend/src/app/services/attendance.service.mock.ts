@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { Observable, of } from 'rxjs';
 import { delay } from 'rxjs/operators';
-import { AttendanceRecord, AttendanceRequest } from '../models/attendance.model';
+import { AttendanceRecord, AttendanceRequest, PresenceBoard, PresenceStatus } from '../models/attendance.model';
 
 @Injectable({
   providedIn: 'root'
@@ -213,6 +213,40 @@ export class AttendanceServiceMock {
     return of(todayRecord || null).pipe(delay(200));
   }
 
+  /**
+   * 今日の勤怠状況を購読（モックでは現在の状況を1回だけ通知）
+   */
+  watchTodayAttendance(userId: number): Observable<AttendanceRecord | null> {
+    return this.getTodayAttendance(userId);
+  }
+
+  /**
+   * 在席状況ボードを購読（モックでは現在の状況を1回だけ通知）
+   */
+  watchPresence(): Observable<PresenceBoard> {
+    const today = new Date();
+    const entries = this.records
+      .filter(r => new Date(r.recordDate!).toDateString() === today.toDateString())
+      .map(r => ({
+        userId: r.userId,
+        username: r.username || '',
+        status: (r.attendanceType === 'ANNUAL_LEAVE' ? 'ON_LEAVE'
+          : r.checkOutTime ? 'CHECKED_OUT' : 'CHECKED_IN') as PresenceStatus,
+        checkInTime: r.checkInTime,
+        checkOutTime: r.checkOutTime
+      }));
+    const board: PresenceBoard = {
+      date: today.toISOString().substring(0, 10),
+      counts: {
+        checkedIn: entries.filter(e => e.status === 'CHECKED_IN').length,
+        checkedOut: entries.filter(e => e.status === 'CHECKED_OUT').length,
+        onLeave: entries.filter(e => e.status === 'ON_LEAVE').length
+      },
+      entries
+    };
+    return of(board).pipe(delay(200));
+  }
+
   /**
    * 期間指定で勤怠記録を取得
    */
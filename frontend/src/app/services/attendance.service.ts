@@ -1,8 +1,18 @@
-import { HttpClient, HttpParams } from '@angular/common/http';
-import { Injectable } from '@angular/core';
-import { Observable } from 'rxjs';
+import { HttpClient, HttpErrorResponse, HttpHeaders, HttpParams } from '@angular/common/http';
+import { Injectable, NgZone } from '@angular/core';
+import { Observable, concatMap, first, retry, switchMap, throwError, timer } from 'rxjs';
 import { environment } from '../../environments/environment';
-import { AttendanceRecord, AttendanceRequest } from '../models/attendance.model';
+import {
+  AttendanceRecord,
+  AttendanceRequest,
+  ExportJob,
+  PresenceBoard,
+  PresenceCounts,
+  PresenceEntry
+} from '../models/attendance.model';
+
+// エクスポートジョブの状態を確認する間隔(ミリ秒)
+const EXPORT_POLL_INTERVAL = 1000;
 
 @Injectable({
   providedIn: 'root'
@@ -10,13 +20,21 @@ import { AttendanceRecord, AttendanceRequest } from '../models/attendance.model'
 export class AttendanceService {
   private apiUrl = `${environment.apiUrl}/api/attendance`;
 
-  constructor(private http: HttpClient) { }
+  constructor(private http: HttpClient, private zone: NgZone) { }
 
   /**
    * 出勤・退勤を記録
+   * 通信エラー時は同じIdempotency-Keyで再送する(サーバー側で二重に記録されない)
    */
   recordAttendance(request: AttendanceRequest): Observable<AttendanceRecord> {
-    return this.http.post<AttendanceRecord>(`${this.apiUrl}/record`, request);
+    const headers = new HttpHeaders({ 'Idempotency-Key': crypto.randomUUID() });
+    return this.http.post<AttendanceRecord>(`${this.apiUrl}/record`, request, { headers }).pipe(
+      retry({
+        count: 3,
+        delay: (error: HttpErrorResponse, retryCount: number) =>
+          error.status === 0 ? timer(500 * retryCount) : throwError(() => error)
+      })
+    );
   }
 
   /**
@@ -33,6 +51,44 @@ export class AttendanceService {
     return this.http.get<AttendanceRecord>(`${this.apiUrl}/today/${userId}`);
   }
 
+  /**
+   * 今日の勤怠状況を購読（Server-Sent Events、記録がない場合はnull）
+   * 切断時はブラウザが自動で再接続し、接続時に現在の状況が送られる
+   */
+  watchTodayAttendance(userId: number): Observable<AttendanceRecord | null> {
+    return new Observable<AttendanceRecord | null>(subscriber => {
+      const source = new EventSource(`${this.apiUrl}/today/${userId}/stream`);
+      source.addEventListener('today', event =>
+        this.zone.run(() => subscriber.next(JSON.parse((event as MessageEvent).data))));
+      return () => source.close();
+    });
+  }
+
+  /**
+   * 在席状況ボードを購読（接続時にボード全体、以降は変更のたびに差分を反映した全体を通知）
+   */
+  watchPresence(): Observable<PresenceBoard> {
+    return new Observable<PresenceBoard>(subscriber => {
+      const source = new EventSource(`${this.apiUrl}/presence/stream`);
+      let board: PresenceBoard | null = null;
+      source.addEventListener('board', event => {
+        board = JSON.parse((event as MessageEvent).data) as PresenceBoard;
+        this.zone.run(() => subscriber.next(board!));
+      });
+      source.addEventListener('presence', event => {
+        if (!board) {
+          return;
+        }
+        const update = JSON.parse((event as MessageEvent).data) as { entry: PresenceEntry; counts: PresenceCounts };
+        const entries = board.entries.filter(entry => entry.userId !== update.entry.userId);
+        entries.push(update.entry);
+        board = { ...board, counts: update.counts, entries };
+        this.zone.run(() => subscriber.next(board!));
+      });
+      return () => source.close();
+    });
+  }
+
   /**
    * 期間指定で勤怠記録を取得
    */
@@ -45,14 +101,20 @@ export class AttendanceService {
 
   /**
    * Excelエクスポート
+   * ジョブを登録して完了まで状態を確認し、完了したファイルをダウンロードする
    */
   exportToExcel(startDate: string, endDate: string): Observable<Blob> {
     const params = new HttpParams()
       .set('startDate', startDate)
       .set('endDate', endDate);
-    return this.http.get(`${this.apiUrl}/export`, {
-      params,
-      responseType: 'blob'
-    });
+    return this.http.post<ExportJob>(`${this.apiUrl}/export/jobs`, null, { params }).pipe(
+      switchMap(job => timer(0, EXPORT_POLL_INTERVAL).pipe(
+        concatMap(() => this.http.get<ExportJob>(`${this.apiUrl}/export/jobs/${job.jobId}`)),
+        first(current => current.status === 'DONE' || current.status === 'FAILED')
+      )),
+      switchMap(job => job.status === 'DONE'
+        ? this.http.get(`${this.apiUrl}/export/jobs/${job.jobId}/file`, { responseType: 'blob' })
+        : throwError(() => new Error(job.error ?? 'エクスポートに失敗しました')))
+    );
   }
 }